@@ -0,0 +1,42 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Switches bank_account and transaction ids from IDENTITY to pooled sequences so Hibernate can batch inserts.
+ * The sequences must start past the ids already handed out by the identity columns, which plain SQL
+ * cannot express in H2, hence a Java migration.
+ */
+public class V2__ledger_id_sequences extends BaseJavaMigration {
+
+    // Must match allocationSize on the @SequenceGenerator of both entities
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            createSequenceAfterExistingIds(statement, "bank_account_seq", "bank_account");
+            createSequenceAfterExistingIds(statement, "transaction_seq", "transaction");
+        }
+    }
+
+    private void createSequenceAfterExistingIds(Statement statement, String sequence, String table) throws SQLException {
+        long maxId = 0;
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            if (rs.next()) {
+                maxId = rs.getLong(1);
+            }
+        }
+
+        // Hibernate's pooled optimizer treats each value as the top of a block of ALLOCATION_SIZE ids,
+        // so starting at maxId + ALLOCATION_SIZE makes the first generated id maxId + 1
+        statement.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence +
+                " START WITH " + (maxId + ALLOCATION_SIZE) +
+                " INCREMENT BY " + ALLOCATION_SIZE);
+    }
+}
@@ -3,8 +3,10 @@ package nl.inholland.bankAppBackEnd;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BankAppBackEndApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(BankAppBackEndApplication.class, args);
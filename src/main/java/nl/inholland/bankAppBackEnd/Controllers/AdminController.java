@@ -1,6 +1,9 @@
 package nl.inholland.bankAppBackEnd.Controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.inholland.bankAppBackEnd.DTOs.BankAccountDTO;
+import nl.inholland.bankAppBackEnd.DTOs.DailyActivityDTO;
 import nl.inholland.bankAppBackEnd.DTOs.DashboardStatsDTO;
 import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
 import nl.inholland.bankAppBackEnd.exceptions.ResourceNotFoundException;
@@ -9,14 +12,24 @@ import nl.inholland.bankAppBackEnd.models.Transaction;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
 import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -32,8 +45,16 @@ public class AdminController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
     private UserService userService;
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     @Autowired
     public AdminController(UserService userService, BankAccountService bankAccountService, TransactionService transactionService) {
         this.userService = userService;
@@ -100,19 +121,105 @@ public class AdminController {
     }
 
     /**
-     * Get all transactions for a specific account
+     * Get the transactions of a specific account, newest first
      * @param accountId The ID of the account
-     * @return List of transaction DTOs
+     * @param cursor nextCursor of the previous page; empty for the first page
+     * @param size Page size when paging by cursor
+     * @return Without cursor and size, every transaction as a list; otherwise one page and the next cursor
      */
     @GetMapping("/accounts/{accountId}/transactions")
-    public ResponseEntity<List<TransactionDTO>> getAccountTransactions(@PathVariable Long accountId) {
+    public ResponseEntity<?> getAccountTransactions(@PathVariable Long accountId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size) {
         // Verify account exists
         if (!bankAccountService.accountExists(accountId)) {
             throw new ResourceNotFoundException("Account not found with ID: " + accountId);
         }
 
-        List<TransactionDTO> transactionDTOs = transactionService.getTransactionDTOsByAccountId(accountId);
-        return ResponseEntity.ok(transactionDTOs);
+        if (cursor == null && size == null) {
+            List<TransactionDTO> transactionDTOs = transactionService.getTransactionDTOsByAccountId(accountId);
+            return ResponseEntity.ok(transactionDTOs);
+        }
+
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1) {
+            return ResponseEntity.badRequest().body("Page size must be at least 1");
+        }
+        TransactionCursor position;
+        try {
+            position = TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+
+        TransactionService.CursorPage<TransactionDTO> page =
+                transactionService.getAccountTransactionDTOs(accountId, position, pageSize);
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", page.content());
+        response.put("nextCursor", page.nextCursor());
+        response.put("size", page.content().size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Stream every transaction of a specific account as one JSON array, written while it is read
+     * @param accountId The ID of the account
+     * @return The same array as the unpaged transactions endpoint, without holding it in memory
+     */
+    @GetMapping("/accounts/{accountId}/transactions/stream")
+    public ResponseEntity<StreamingResponseBody> streamAccountTransactions(@PathVariable Long accountId) {
+        if (!bankAccountService.accountExists(accountId)) {
+            throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+        }
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                transactionService.streamAccountTransactionDTOs(accountId, dto -> {
+                    try {
+                        json.writeObject(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Get the activity of a specific account per day, read from its daily aggregates
+     * @param accountId The ID of the account
+     * @param from First day (yyyy-MM-dd), inclusive
+     * @param to Last day (yyyy-MM-dd), inclusive
+     * @return One entry per day with transactions, oldest first
+     */
+    @GetMapping("/accounts/{accountId}/daily-activity")
+    public ResponseEntity<?> getAccountDailyActivity(@PathVariable Long accountId,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!bankAccountService.accountExists(accountId)) {
+            throw new ResourceNotFoundException("Account not found with ID: " + accountId);
+        }
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("from must not be after to");
+        }
+        List<DailyActivityDTO> days = dailyAggregateService.getDailyActivity(accountId, from, to);
+        return ResponseEntity.ok(days);
+    }
+
+    /**
+     * Rebuild the daily aggregates of every account from the transaction history
+     * @return Number of accounts rebuilt and of daily rows written
+     */
+    @PostMapping("/aggregates/daily/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDailyAggregates() {
+        DailyAggregateService.RebuildResult result = dailyAggregateService.rebuild();
+        Map<String, Object> response = new HashMap<>();
+        response.put("accounts", result.accounts());
+        response.put("days", result.days());
+        return ResponseEntity.ok(response);
     }
 
     /**
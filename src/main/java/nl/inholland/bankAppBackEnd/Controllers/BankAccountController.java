@@ -1,12 +1,15 @@
 package nl.inholland.bankAppBackEnd.Controllers;
 
+import nl.inholland.bankAppBackEnd.config.JwtPrincipal;
 import nl.inholland.bankAppBackEnd.DTOs.AccountSearchResultDTO;
 import nl.inholland.bankAppBackEnd.exceptions.ResourceNotFoundException;
 import nl.inholland.bankAppBackEnd.models.BankAccount;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.AccountVersions;
 import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +18,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -37,11 +41,21 @@ public class BankAccountController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private AccountVersions accountVersions;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || auth.getName() == null) {
             return null;
         }
+        // Authenticated from the token's claims, no need to read the user
+        if (auth.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.toUser();
+        }
         return userService.getUserByUsername(auth.getName()).orElse(null);
     }
 
@@ -184,6 +198,35 @@ public class BankAccountController {
         }
     }
 
+    /**
+     * Hot account mode: spread credits to the account over {@code slots} balance slots, 0 turns it off
+     */
+    @PostMapping("/hot-mode")
+    public ResponseEntity<?> setHotMode(@RequestParam String iban, @RequestParam int slots) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("❌ Not authenticated");
+        }
+
+        if (currentUser.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("❌ Only administrators can change hot account mode");
+        }
+
+        TransactionService.TransferResult result = hotAccountService.setBalanceSlots(iban, slots, currentUser);
+
+        if (result.isSuccess()) {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", result.getMessage()
+            ));
+        } else {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", result.getMessage()
+            ));
+        }
+    }
+
 
 
 
@@ -206,12 +249,17 @@ public class BankAccountController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getAccountsByUserId(@PathVariable Long userId) {
+    public ResponseEntity<?> getAccountsByUserId(@PathVariable Long userId, WebRequest request) {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("❌ User not found");
         }
 
+        // Unchanged since the client's copy: 304 without loading the accounts
+        if (request.checkNotModified(accountVersions.ownerEtag("accounts", userId))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         List<BankAccount> accounts = bankAccountRepository.findAllByOwner(userOpt.get());
 
         if (accounts.isEmpty()) {
@@ -271,33 +319,28 @@ public class BankAccountController {
     }
 
     @GetMapping("/limits/{iban}")
-    public ResponseEntity<?> getAccountLimits(@PathVariable String iban) {
+    public ResponseEntity<?> getAccountLimits(@PathVariable String iban, WebRequest request) {
         User currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("❌ Not authenticated");
         }
+        // Taken before the limits are read, so it never tags a newer view than the one sent
+        String etag = accountVersions.accountEtag("limits", iban);
 
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
+        // Served from the account snapshot cache, without reading the account
+        Map<String, Object> limits;
+        try {
+            limits = bankAccountService.getLimitsForUser(iban, currentUser);
+        } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("❌ Account not found");
-        }
-
-        BankAccount account = accountOpt.get();
-
-        // Users can only view their own account limits, admins can view any
-        if (currentUser.getRole() == User.Role.USER && !account.getOwner().getId().equals(currentUser.getId())) {
+        } catch (SecurityException e) {
+            // Users can only view their own account limits, admins can view any
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("❌ You can only view your own account limits");
         }
 
-        Map<String, Object> limits = new HashMap<>();
-        limits.put("iban", account.getIban());
-        limits.put("absoluteLimit", account.getAbsoluteLimit());
-        limits.put("dailyLimit", account.getDailyLimit());
-        limits.put("dailySpent", account.getDailySpent());
-        limits.put("remainingDailyLimit", account.getRemainingDailyLimit());
-        limits.put("balance", account.getBalance());
-        limits.put("availableBalance", Math.max(0, account.getBalance() - account.getAbsoluteLimit()));
-
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
         return ResponseEntity.ok(limits);
     }
 }
\ No newline at end of file
@@ -1,14 +1,24 @@
 package nl.inholland.bankAppBackEnd.Controllers;
 
+import nl.inholland.bankAppBackEnd.config.JwtPrincipal;
 import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
+import nl.inholland.bankAppBackEnd.models.Money;
 import nl.inholland.bankAppBackEnd.models.Transaction;
 import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.services.AccountVersions;
+import nl.inholland.bankAppBackEnd.services.BulkTransferService;
+import nl.inholland.bankAppBackEnd.services.ConditionalPostingService;
+import nl.inholland.bankAppBackEnd.services.IdempotencyService;
+import nl.inholland.bankAppBackEnd.services.PostingPipeline;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
+import nl.inholland.bankAppBackEnd.services.TransferSubmissionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +26,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -33,6 +47,28 @@ public class TransactionController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    // Posting endpoints accept an optional Idempotency-Key header; retries replay the first response
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransferSubmissionService transferSubmissionService;
+
+    // ETags of the account and history polls
+    @Autowired
+    private AccountVersions accountVersions;
+
+    // Only present when bank.posting.pipeline.enabled=true
+    @Autowired(required = false)
+    private PostingPipeline postingPipeline;
+
+    // Only present when bank.posting.set-based.enabled=true
+    @Autowired(required = false)
+    private ConditionalPostingService conditionalPostingService;
+
     // ===================== AUTHENTICATION & AUTHORIZATION =====================
 
     private User getCurrentUser() {
@@ -40,6 +76,10 @@ public class TransactionController {
         if (auth == null || auth.getName() == null) {
             return null;
         }
+        // Authenticated from the token's claims, no need to read the user
+        if (auth.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.toUser();
+        }
         return userService.getUserByUsername(auth.getName()).orElse(null);
     }
 
@@ -69,6 +109,14 @@ public class TransactionController {
         });
     }
 
+    private ResponseEntity<?> idempotent(String idempotencyKey, User user, String operation,
+                                         Map<String, Object> requestBody, Supplier<ResponseEntity<?>> posting) {
+        if (idempotencyKey == null) {
+            return posting.get();
+        }
+        return idempotencyService.execute(idempotencyKey, user, operation, requestBody, posting);
+    }
+
     // ===================== RESPONSE HELPERS =====================
 
     private ResponseEntity<?> createErrorResponse(HttpStatus status, String message) {
@@ -98,6 +146,48 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    // includeTotal=false: no COUNT behind the page, only whether another one follows
+    private ResponseEntity<?> createSliceResponse(Slice<TransactionDTO> transactionsSlice) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", transactionsSlice.getContent());
+        response.put("currentPage", transactionsSlice.getNumber());
+        response.put("hasNext", transactionsSlice.hasNext());
+        return ResponseEntity.ok(response);
+    }
+
+    // Keyset pages carry no totals; clients follow nextCursor until it is null
+    private ResponseEntity<?> createCursorResponse(TransactionService.CursorPage<TransactionDTO> cursorPage) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("transactions", cursorPage.content());
+        response.put("nextCursor", cursorPage.nextCursor());
+        response.put("size", cursorPage.content().size());
+        return ResponseEntity.ok(response);
+    }
+
+    // An empty cursor asks for the first page; anything that does not decode is a client error
+    private ResponseEntity<?> withCursor(String cursor, int size,
+                                         java.util.function.Function<TransactionCursor, ResponseEntity<?>> action) {
+        if (size < 1) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Page size must be at least 1");
+        }
+        TransactionCursor decoded;
+        try {
+            decoded = TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid cursor");
+        }
+        return action.apply(decoded);
+    }
+
+    // 304 when none of the user's accounts changed since the client's copy of this view, without reading it
+    private ResponseEntity<?> withNotModified(WebRequest request, String view, User user,
+                                              Supplier<ResponseEntity<?>> action) {
+        if (request.checkNotModified(accountVersions.ownerEtag(view, user.getId()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return action.get();
+    }
+
     private ResponseEntity<?> handleTransactionResult(Supplier<Object> serviceCall, boolean isATM) {
         try {
             Object result = serviceCall.get();
@@ -173,13 +263,84 @@ public class TransactionController {
     }
 
     private Double parseAmount(Object amountObj) throws NumberFormatException {
-        return Double.valueOf(amountObj.toString());
+        Double amount = Double.valueOf(amountObj.toString());
+        // Postings work in whole cents (see Money); amounts that do not fit are as invalid as bad input
+        try {
+            Money.toCents(amount);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + amountObj);
+        }
+        return amount;
     }
 
     private boolean isATMTransaction(Map<String, Object> requestBody) {
         return requestBody.containsKey("isATM") && Boolean.TRUE.equals(requestBody.get("isATM"));
     }
 
+    private boolean isAsyncRequest(Map<String, Object> requestBody) {
+        return Boolean.TRUE.equals(requestBody.get("async"));
+    }
+
+    // ===================== ASYNC SUBMISSIONS =====================
+
+    // Async mode: answer 202 right away and let the client poll /submissions/{id} for the outcome
+    private ResponseEntity<?> submitAsync(User user, boolean isATM, Supplier<Object> posting) {
+        TransferSubmissionService.Submission submission = transferSubmissionService.submit(user, isATM, posting);
+        if (submission == null) {
+            return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "❌ Too many pending transfers, please retry later");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Transfer accepted for processing");
+        response.put("submissionId", submission.getId());
+        response.put("status", submission.getStatus());
+        response.put("statusUrl", "/api/transactions/submissions/" + submission.getId());
+        return ResponseEntity.accepted().body(response);
+    }
+
+    private ResponseEntity<?> createSubmissionResponse(TransferSubmissionService.Submission submission) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("submissionId", submission.getId());
+        response.put("status", submission.getStatus());
+        response.put("submittedAt", submission.getSubmittedAt());
+        if (submission.getCompletedAt() != null) {
+            response.put("completedAt", submission.getCompletedAt());
+        }
+
+        Object result = submission.getResult();
+        if (result instanceof TransactionService.ATMResult atmResult) {
+            response.put("success", atmResult.isSuccess());
+            response.put("message", atmResult.getMessage());
+            if (atmResult.isSuccess()) {
+                response.putAll(createATMResponseData(atmResult));
+            }
+        } else if (result instanceof TransactionService.TransferResult transferResult) {
+            response.put("success", transferResult.isSuccess());
+            response.put("message", transferResult.getMessage());
+            if (transferResult.getTransaction() != null) {
+                response.put("transaction", transferResult.getTransaction());
+            }
+        } else if (submission.getStatus() == TransferSubmissionService.Status.FAILED) {
+            response.put("success", false);
+            response.put("message", "❌ " + submission.getError());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/submissions/{id}")
+    public ResponseEntity<?> getSubmission(@PathVariable String id) {
+        return withAuthenticatedUser(user -> transferSubmissionService.find(id, user)
+                .<ResponseEntity<?>>map(this::createSubmissionResponse)
+                .orElseGet(() -> createErrorResponse(HttpStatus.NOT_FOUND, "❌ Submission not found")));
+    }
+
+    @GetMapping("/submissions/stats")
+    public ResponseEntity<?> getSubmissionStats() {
+        return withAdminUser(user -> createSuccessResponse("Submission queue stats",
+                transferSubmissionService.getQueueStats()));
+    }
+
     // ===================== TRANSACTION ENDPOINTS =====================
 
     @PostMapping
@@ -198,10 +359,21 @@ public class TransactionController {
             @RequestParam(required = false) String end,
             @RequestParam(required = false) String initiatedBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+
+        if (cursor != null) {
+            return withAuthenticatedUser(user -> withCursor(cursor, size, position -> createCursorResponse(
+                    transactionService.getFilteredTransactionsWithDirection(
+                            user, iban, ibanType, amount, comparator, start, end, position, size))));
+        }
         return withAuthenticatedUser(user -> {
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp"));
+            if (!includeTotal) {
+                return createSliceResponse(transactionService.getFilteredTransactionsWithDirectionSlice(
+                        user, iban, ibanType, amount, comparator, start, end, pageable));
+            }
             Page<TransactionDTO> transactionsPage = transactionService.getFilteredTransactionsWithDirection(
                     user, iban, ibanType, amount, comparator, start, end, pageable);
             return createPaginatedResponse(transactionsPage);
@@ -219,21 +391,32 @@ public class TransactionController {
     @GetMapping("/my-transactions")
     public ResponseEntity<?> getMyTransactions(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        return withAuthenticatedUser(user -> {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            WebRequest request) {
+
+        String view = "my-transactions:" + page + ":" + size + ":" + cursor + ":" + includeTotal;
+        if (cursor != null) {
+            return withAuthenticatedUser(user -> withNotModified(request, view, user, () -> withCursor(cursor, size,
+                    position -> createCursorResponse(transactionService.getTransactionsWithDirectionByUser(user, position, size)))));
+        }
+        return withAuthenticatedUser(user -> withNotModified(request, view, user, () -> {
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp"));
+            if (!includeTotal) {
+                return createSliceResponse(transactionService.getTransactionsWithDirectionByUserSlice(user, pageable));
+            }
             Page<TransactionDTO> transactionsPage = transactionService.getTransactionsWithDirectionByUser(user, pageable);
             return createPaginatedResponse(transactionsPage);
-        });
+        }));
     }
 
     @GetMapping("/user-ibans")
-    public ResponseEntity<?> getUserIbans() {
-        return withAuthenticatedUser(user -> {
+    public ResponseEntity<?> getUserIbans(WebRequest request) {
+        return withAuthenticatedUser(user -> withNotModified(request, "user-ibans", user, () -> {
             List<String> userIbans = transactionService.getUserIbans(user);
             return ResponseEntity.ok(Map.of("ibans", userIbans));
-        });
+        }));
     }
 
     @GetMapping("/all")
@@ -247,32 +430,33 @@ public class TransactionController {
             @RequestParam(required = false) String end,
             @RequestParam(required = false) String initiatedBy,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+
+        if (cursor != null) {
+            return withAuthenticatedUser(user -> withCursor(cursor, size, position -> createCursorResponse(
+                    transactionService.getFilteredTransactions(
+                            iban, ibanType, amount, comparator, start, end, initiatedBy, position, size))));
+        }
         return withAuthenticatedUser(user -> {
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp"));
-            Page<Transaction> transactionsPage = transactionService.getFilteredTransactions(
+            if (!includeTotal) {
+                return createSliceResponse(transactionService.getFilteredTransactionsSlice(
+                        iban, ibanType, amount, comparator, start, end, initiatedBy, pageable));
+            }
+            Page<TransactionDTO> transactionsPage = transactionService.getFilteredTransactionDTOs(
                     iban, ibanType, amount, comparator, start, end, initiatedBy, pageable);
-
-            List<TransactionDTO> transactionDTOs = transactionsPage.getContent().stream()
-                    .map(transactionService::convertToAdminDTO)
-                    .toList();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("transactions", transactionDTOs);
-            response.put("currentPage", transactionsPage.getNumber());
-            response.put("totalItems", transactionsPage.getTotalElements());
-            response.put("totalPages", transactionsPage.getTotalPages());
-
-            return ResponseEntity.ok(response);
+            return createPaginatedResponse(transactionsPage);
         });
     }
 
     // ===================== UNIFIED TRANSACTION ENDPOINTS =====================
 
     @PostMapping("/transfer")
-    public ResponseEntity<?> transfer(@RequestBody Map<String, Object> requestBody) {
-        return withApprovedUser(user -> {
+    public ResponseEntity<?> transfer(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withApprovedUser(user -> idempotent(idempotencyKey, user, "transfer", requestBody, () -> {
             ResponseEntity<?> validationError = validateTransferRequest(requestBody, "fromIban", "toIban", "amount");
             if (validationError != null) return validationError;
 
@@ -282,20 +466,94 @@ public class TransactionController {
                 Double amount = parseAmount(requestBody.get("amount"));
                 boolean isATM = isATMTransaction(requestBody);
 
+                Supplier<Object> posting;
                 if (isATM) {
-                    return handleTransactionResult(() -> transactionService.atmTransfer(fromIban, toIban, amount, user), true);
+                    posting = () -> transactionService.atmTransfer(fromIban, toIban, amount, user);
+                } else if (postingPipeline != null) {
+                    posting = () -> postingPipeline.transfer(fromIban, toIban, amount, user);
+                } else if (conditionalPostingService != null) {
+                    posting = () -> conditionalPostingService.transfer(fromIban, toIban, amount, user);
                 } else {
-                    return handleTransactionResult(() -> transactionService.transferFunds(fromIban, toIban, amount, user), false);
+                    posting = () -> transactionService.transferFunds(fromIban, toIban, amount, user);
                 }
+
+                if (isAsyncRequest(requestBody)) {
+                    return submitAsync(user, isATM, posting);
+                }
+                return handleTransactionResult(posting, isATM);
             } catch (NumberFormatException e) {
                 return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid amount format");
             }
-        });
+        }));
+    }
+
+    /**
+     * Many transfers in one call: {"transfers": [{"fromIban", "toIban", "amount"}, ...]}.
+     * Same rules as /transfer, applied in order; the response has one result per item.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchTransfer(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withApprovedUser(user -> idempotent(idempotencyKey, user, "batch", requestBody, () -> {
+            ResponseEntity<?> validationError = validateTransferRequest(requestBody, "transfers");
+            if (validationError != null) return validationError;
+
+            if (!(requestBody.get("transfers") instanceof List<?> transfers) || transfers.isEmpty()) {
+                return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ transfers must be a non-empty list");
+            }
+            if (transfers.size() > bulkTransferService.getMaxItems()) {
+                return createErrorResponse(HttpStatus.BAD_REQUEST,
+                        "❌ A batch can contain at most " + bulkTransferService.getMaxItems() + " transfers");
+            }
+
+            // Malformed items are answered in place; the rest go to the service in request order
+            Map<Integer, String> rejected = new HashMap<>();
+            List<BulkTransferService.TransferItem> items = new ArrayList<>(transfers.size());
+            for (int i = 0; i < transfers.size(); i++) {
+                if (!(transfers.get(i) instanceof Map<?, ?> item)
+                        || item.get("fromIban") == null || item.get("toIban") == null || item.get("amount") == null) {
+                    rejected.put(i, "❌ Missing required field: fromIban, toIban and amount are required");
+                    continue;
+                }
+                try {
+                    items.add(new BulkTransferService.TransferItem(item.get("fromIban").toString(),
+                            item.get("toIban").toString(), parseAmount(item.get("amount"))));
+                } catch (NumberFormatException e) {
+                    rejected.put(i, "❌ Invalid amount format");
+                }
+            }
+
+            Iterator<TransactionService.TransferResult> processed =
+                    bulkTransferService.transferAll(items, user).iterator();
+            List<Map<String, Object>> results = new ArrayList<>(transfers.size());
+            int succeeded = 0;
+            for (int i = 0; i < transfers.size(); i++) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("index", i);
+                if (rejected.containsKey(i)) {
+                    result.put("success", false);
+                    result.put("message", rejected.get(i));
+                } else {
+                    TransactionService.TransferResult transferResult = processed.next();
+                    result.put("success", transferResult.isSuccess());
+                    result.put("message", transferResult.getMessage());
+                    if (transferResult.getTransaction() != null) {
+                        result.put("transactionId", transferResult.getTransaction().getId());
+                    }
+                    if (transferResult.isSuccess()) succeeded++;
+                }
+                results.add(result);
+            }
+
+            return createSuccessResponse(String.format("Processed %d transfers: %d succeeded, %d failed",
+                    transfers.size(), succeeded, transfers.size() - succeeded), Map.of("results", results));
+        }));
     }
 
     @PostMapping("/admin/transfer")
-    public ResponseEntity<?> adminTransfer(@RequestBody Map<String, Object> requestBody) {
-        return withAdminUser(user -> {
+    public ResponseEntity<?> adminTransfer(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withAdminUser(user -> idempotent(idempotencyKey, user, "admin-transfer", requestBody, () -> {
             ResponseEntity<?> validationError = validateTransferRequest(requestBody, "fromIban", "toIban", "amount");
             if (validationError != null) return validationError;
 
@@ -304,16 +562,23 @@ public class TransactionController {
                 String toIban = (String) requestBody.get("toIban");
                 Double amount = parseAmount(requestBody.get("amount"));
 
-                return handleTransactionResult(() -> transactionService.transferFunds(fromIban, toIban, amount, user), false);
+                Supplier<Object> posting = conditionalPostingService != null
+                        ? () -> conditionalPostingService.transfer(fromIban, toIban, amount, user)
+                        : () -> transactionService.transferFunds(fromIban, toIban, amount, user);
+                if (isAsyncRequest(requestBody)) {
+                    return submitAsync(user, false, posting);
+                }
+                return handleTransactionResult(posting, false);
             } catch (NumberFormatException e) {
                 return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid amount format");
             }
-        });
+        }));
     }
 
     @PostMapping("/deposit")
-    public ResponseEntity<?> deposit(@RequestBody Map<String, Object> requestBody) {
-        return withAuthenticatedUser(user -> {
+    public ResponseEntity<?> deposit(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withAuthenticatedUser(user -> idempotent(idempotencyKey, user, "deposit", requestBody, () -> {
             ResponseEntity<?> validationError = validateTransferRequest(requestBody, "iban", "amount");
             if (validationError != null) return validationError;
 
@@ -330,12 +595,13 @@ public class TransactionController {
             } catch (NumberFormatException e) {
                 return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid amount format");
             }
-        });
+        }));
     }
 
     @PostMapping("/withdraw")
-    public ResponseEntity<?> withdraw(@RequestBody Map<String, Object> requestBody) {
-        return withApprovedUser(user -> {
+    public ResponseEntity<?> withdraw(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withApprovedUser(user -> idempotent(idempotencyKey, user, "withdraw", requestBody, () -> {
             ResponseEntity<?> validationError = validateTransferRequest(requestBody, "iban", "amount");
             if (validationError != null) return validationError;
 
@@ -352,12 +618,13 @@ public class TransactionController {
             } catch (NumberFormatException e) {
                 return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid amount format");
             }
-        });
+        }));
     }
 
     @PostMapping("/internal")
-    public ResponseEntity<?> internalTransfer(@RequestBody Map<String, Object> requestBody) {
-        return withApprovedUser(user -> {
+    public ResponseEntity<?> internalTransfer(@RequestBody Map<String, Object> requestBody,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return withApprovedUser(user -> idempotent(idempotencyKey, user, "internal", requestBody, () -> {
             ResponseEntity<?> validationError = validateTransferRequest(requestBody, "fromIban", "toIban", "amount");
             if (validationError != null) return validationError;
 
@@ -370,7 +637,7 @@ public class TransactionController {
             } catch (NumberFormatException e) {
                 return createErrorResponse(HttpStatus.BAD_REQUEST, "❌ Invalid amount format");
             }
-        });
+        }));
     }
 
     // ===================== ATM-SPECIFIC ENDPOINTS =====================
@@ -64,7 +64,7 @@ public class UserController {
         }
 
         User user = optionalUser.get();
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole().toString()); // still generating based on username
+        String token = jwtUtil.generateToken(user);
 
         return ResponseEntity.ok(Map.of(
                 "token", token,
@@ -117,7 +117,7 @@ public class UserController {
             return ResponseEntity.status(401).body("Invalid credentials");
         }
 
-        String token = jwtUtil.generateToken(user.getUsername(), user.getRole().toString());
+        String token = jwtUtil.generateToken(user);
         System.out.println("🎟️ Generated JWT: " + token);
 
         return ResponseEntity.ok(Map.of(
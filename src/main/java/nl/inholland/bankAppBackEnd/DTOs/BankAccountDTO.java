@@ -2,6 +2,8 @@ package nl.inholland.bankAppBackEnd.DTOs;
 
 import nl.inholland.bankAppBackEnd.models.BankAccount;
 
+import java.time.LocalDateTime;
+
 public class BankAccountDTO {
     private Long id;
     private String iban;
@@ -11,6 +13,11 @@ public class BankAccountDTO {
     private Double absoluteLimit;
     private Double dailyLimit;
     private boolean active;
+    // Activity counters kept on the account, no ledger read
+    private long transactionCount;
+    private LocalDateTime lastActivityAt;
+    private Double totalIn;
+    private Double totalOut;
 
     // Getters
     public Long getId() {
@@ -45,6 +52,22 @@ public class BankAccountDTO {
         return active;
     }
 
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public Double getTotalIn() {
+        return totalIn;
+    }
+
+    public Double getTotalOut() {
+        return totalOut;
+    }
+
     // Setters
     public void setId(Long id) {
         this.id = id;
@@ -78,6 +101,22 @@ public class BankAccountDTO {
         this.active = active;
     }
 
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public void setLastActivityAt(LocalDateTime lastActivityAt) {
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    public void setTotalIn(Double totalIn) {
+        this.totalIn = totalIn;
+    }
+
+    public void setTotalOut(Double totalOut) {
+        this.totalOut = totalOut;
+    }
+
     // Factory method
     public static BankAccountDTO fromEntity(BankAccount account) {
         if (account == null) return null;
@@ -91,6 +130,10 @@ public class BankAccountDTO {
         dto.setAbsoluteLimit(account.getAbsoluteLimit());
         dto.setDailyLimit(account.getDailyLimit());
         dto.setActive(account.isActive());
+        dto.setTransactionCount(account.getTransactionCount());
+        dto.setLastActivityAt(account.getLastActivityAt());
+        dto.setTotalIn(account.getTotalIn());
+        dto.setTotalOut(account.getTotalOut());
         return dto;
     }
 }
\ No newline at end of file
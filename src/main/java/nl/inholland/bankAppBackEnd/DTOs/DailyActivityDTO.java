@@ -0,0 +1,58 @@
+package nl.inholland.bankAppBackEnd.DTOs;
+
+import nl.inholland.bankAppBackEnd.models.Money;
+import nl.inholland.bankAppBackEnd.repository.DailyActivity;
+
+import java.time.LocalDate;
+
+public class DailyActivityDTO {
+    private LocalDate date;
+    private long transactionCount;
+    private Double totalIn;
+    private Double totalOut;
+    // Lowest and highest balance right after one of the day's transactions
+    private Double minBalance;
+    private Double maxBalance;
+
+    // Constructor
+    public DailyActivityDTO(LocalDate date, long transactionCount, Double totalIn, Double totalOut,
+                            Double minBalance, Double maxBalance) {
+        this.date = date;
+        this.transactionCount = transactionCount;
+        this.totalIn = totalIn;
+        this.totalOut = totalOut;
+        this.minBalance = minBalance;
+        this.maxBalance = maxBalance;
+    }
+
+    public static DailyActivityDTO fromActivity(DailyActivity activity) {
+        return new DailyActivityDTO(activity.date(), activity.transactionCount(),
+                Money.toDecimal(activity.totalInCents()), Money.toDecimal(activity.totalOutCents()),
+                Money.toDecimal(activity.minBalanceCents()), Money.toDecimal(activity.maxBalanceCents()));
+    }
+
+    // Getters
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public Double getTotalIn() {
+        return totalIn;
+    }
+
+    public Double getTotalOut() {
+        return totalOut;
+    }
+
+    public Double getMinBalance() {
+        return minBalance;
+    }
+
+    public Double getMaxBalance() {
+        return maxBalance;
+    }
+}
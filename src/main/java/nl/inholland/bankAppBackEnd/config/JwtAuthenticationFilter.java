@@ -35,15 +35,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String jwt = authHeader.substring(7);
-            if (jwtUtil.isTokenValid(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-
-                var userDetails = userService.loadUserByUsername(username);
-                var authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            JwtPrincipal claimed = jwtUtil.parsePrincipal(jwt);
+            if (claimed != null) {
+                // The claims themselves while their version is current; the user is only read when it is not
+                userService.resolvePrincipal(claimed).ifPresent(principal -> {
+                    var authToken = new UsernamePasswordAuthenticationToken(
+                            principal, null, principal.getAuthorities());
+
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                });
             }
         }
 
@@ -0,0 +1,44 @@
+package nl.inholland.bankAppBackEnd.config;
+
+import nl.inholland.bankAppBackEnd.models.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The authenticated user of a request, as carried in its access token (see JwtUtil#generateToken(User)).
+ * Controllers take the user from here instead of reading it from the database; tokenVersion is
+ * checked against the user's current one before the principal is trusted.
+ */
+public record JwtPrincipal(Long id, String username, User.Role role, boolean approved, long tokenVersion)
+        implements Principal {
+
+    public static JwtPrincipal of(User user) {
+        return new JwtPrincipal(user.getId(), user.getUsername(), user.getRole(), user.isApproved(),
+                user.getTokenVersion());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    /**
+     * A detached reference carrying the claimed fields only: enough for ownership and approval checks
+     * and for pointing new rows at the user, not for reading anything else
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        user.setApproved(approved);
+        return user;
+    }
+}
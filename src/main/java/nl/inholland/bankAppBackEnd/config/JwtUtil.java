@@ -2,55 +2,149 @@ package nl.inholland.bankAppBackEnd.config;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import nl.inholland.bankAppBackEnd.models.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Issues and verifies access tokens. One parser, built once, verifies every token (it is immutable and
+ * thread-safe), and each token is parsed once per request. Tokens verified recently are remembered by
+ * their SHA-256 hash until they expire, so a client sending the same token again skips the HMAC check
+ * and the claims parsing altogether; cache-size=0 turns that off.
+ */
 @Component
 public class JwtUtil {
 
     private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
     private final long EXPIRATION_MS = 86400000; // 24h
 
-    public String generateToken(String username, String role) {
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private final int cacheSize;
+    private final Map<ByteBuffer, VerifiedToken> verified;
+
+    private record VerifiedToken(JwtPrincipal principal, long expiresAtMillis) {
+    }
+
+    public JwtUtil(@Value("${bank.auth.verified-token-cache.size:10000}") int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerifiedToken> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // Everything JwtPrincipal needs, so requests are authenticated without reading the user
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(username)        // Username goes here
-                .claim("role", role)         // Role goes in claims
+                .setSubject(user.getUsername())        // Username goes here
+                .claim("uid", user.getId())
+                .claim("role", user.getRole().toString())
+                .claim("approved", user.isApproved())
+                .claim("tv", user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
                 .signWith(key)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    /**
+     * The token's principal, verified once and then served from the cache until the token expires;
+     * null when it is invalid, expired or was issued before tokens carried the user's claims
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        if (cacheSize <= 0) {
+            return verify(token);
+        }
+
+        ByteBuffer hash = hash(token);
+        synchronized (verified) {
+            VerifiedToken hit = verified.get(hash);
+            if (hit != null) {
+                if (System.currentTimeMillis() < hit.expiresAtMillis()) {
+                    return hit.principal();
+                }
+                verified.remove(hash);
+            }
+        }
+
+        Claims claims = parseClaims(token);
+        JwtPrincipal principal = claims == null ? null : toPrincipal(claims);
+        // Only well-formed principals with an expiry are kept; the rest are verified (and rejected) again
+        if (principal != null && claims.getExpiration() != null) {
+            synchronized (verified) {
+                verified.put(hash, new VerifiedToken(principal, claims.getExpiration().getTime()));
+            }
+        }
+        return principal;
     }
 
-    public String extractRole(String token) {
+    private JwtPrincipal verify(String token) {
+        Claims claims = parseClaims(token);
+        return claims == null ? null : toPrincipal(claims);
+    }
+
+    // One signature check and one parse for all claims; null when the token does not verify
+    private Claims parseClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .get("role", String.class);
-        } catch (JwtException e) {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
     }
 
-    public boolean isTokenValid(String token) {
+    private static JwtPrincipal toPrincipal(Claims claims) {
+        Number id = claims.get("uid", Number.class);
+        Number tokenVersion = claims.get("tv", Number.class);
+        String role = claims.get("role", String.class);
+        if (id == null || tokenVersion == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
         try {
-            extractUsername(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            return new JwtPrincipal(id.longValue(), claims.getSubject(), User.Role.valueOf(role),
+                    Boolean.TRUE.equals(claims.get("approved", Boolean.class)), tokenVersion.longValue());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Collision-resistant, so a cached entry can only be hit by the very token that was verified
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public String extractUsername(String token) {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    public String extractRole(String token) {
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.get("role", String.class);
+    }
+
+    public boolean isTokenValid(String token) {
+        return parseClaims(token) != null;
+    }
+
+    public int cachedTokens() {
+        synchronized (verified) {
+            return verified.size();
         }
     }
 }
@@ -0,0 +1,117 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Activity of one account on one day: number of transactions, money in and out, and the lowest and
+ * highest balance right after one of them. Kept current by every posting and rebuilt from the ledger
+ * by DailyAggregateService, so range reports read one row per day instead of every transaction.
+ *
+ * Credits to a hot account go to its stripe (balance slot + 1) rather than stripe 0, so concurrent
+ * credits update different rows just like their balance slots; a day is the sum of its stripes.
+ */
+@Entity
+@Table(name = "account_daily_aggregate")
+public class AccountDailyAggregate implements Persistable<AccountDailyAggregate.Key> {
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "account_id", nullable = false)
+        private Long accountId;
+
+        @Column(name = "activity_date", nullable = false)
+        private LocalDate date;
+
+        @Column(nullable = false)
+        private int stripe;
+
+        protected Key() {
+        }
+
+        public Key(Long accountId, LocalDate date, int stripe) {
+            this.accountId = accountId;
+            this.date = date;
+            this.stripe = stripe;
+        }
+
+        public Long getAccountId() { return accountId; }
+        public LocalDate getDate() { return date; }
+        public int getStripe() { return stripe; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && stripe == other.stripe
+                    && Objects.equals(accountId, other.accountId) && Objects.equals(date, other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, date, stripe);
+        }
+    }
+
+    @EmbeddedId
+    private Key key;
+
+    // Euro cents, see Money
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+    @Column(name = "total_in_cents", nullable = false)
+    private long totalIn;
+    @Column(name = "total_out_cents", nullable = false)
+    private long totalOut;
+    @Column(name = "min_balance_cents", nullable = false)
+    private long minBalance;
+    @Column(name = "max_balance_cents", nullable = false)
+    private long maxBalance;
+
+    // The key is assigned, so Spring Data cannot tell a new row from its id; without this save() would
+    // SELECT before every insert
+    @Transient
+    private boolean isNew = true;
+
+    protected AccountDailyAggregate() {
+    }
+
+    public AccountDailyAggregate(Key key) {
+        this.key = key;
+    }
+
+    // One transaction; balanceCents is the balance right after it
+    public void record(long inCents, long outCents, long balanceCents) {
+        if (transactionCount == 0) {
+            minBalance = balanceCents;
+            maxBalance = balanceCents;
+        } else {
+            minBalance = Math.min(minBalance, balanceCents);
+            maxBalance = Math.max(maxBalance, balanceCents);
+        }
+        transactionCount++;
+        totalIn += inCents;
+        totalOut += outCents;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public Key getId() { return key; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public long getTransactionCount() { return transactionCount; }
+    public long getTotalInCents() { return totalIn; }
+    public long getTotalOutCents() { return totalOut; }
+    public long getMinBalanceCents() { return minBalance; }
+    public long getMaxBalanceCents() { return maxBalance; }
+}
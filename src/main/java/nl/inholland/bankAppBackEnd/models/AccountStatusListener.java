@@ -0,0 +1,42 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import nl.inholland.bankAppBackEnd.services.ActiveAccountsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes an {@link ActiveAccountsChangedEvent} when an account is opened, closed, reopened or deleted,
+ * whichever code path saved it. Postings update accounts all the time but never their status, so they
+ * publish nothing. Created by Hibernate through Spring, which supplies the publisher.
+ */
+public class AccountStatusListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AccountStatusListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    void accountCreated(BankAccount account) {
+        if (account.isActive()) {
+            eventPublisher.publishEvent(new ActiveAccountsChangedEvent(1));
+        }
+    }
+
+    @PostUpdate
+    void accountUpdated(BankAccount account) {
+        if (account.isActive() != account.wasActive()) {
+            eventPublisher.publishEvent(new ActiveAccountsChangedEvent(account.isActive() ? 1 : -1));
+        }
+    }
+
+    @PostRemove
+    void accountRemoved(BankAccount account) {
+        if (account.wasActive()) {
+            eventPublisher.publishEvent(new ActiveAccountsChangedEvent(-1));
+        }
+    }
+}
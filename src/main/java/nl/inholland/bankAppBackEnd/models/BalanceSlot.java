@@ -0,0 +1,69 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stripe of the balance of a hot account (see {@link BankAccount#getBalanceSlots()}).
+ * Credits to a hot account land on one of its slots instead of its own row, so concurrent credits
+ * do not queue up behind a single row lock. The account balance is its own row plus all its slots.
+ */
+@Entity
+@Table(name = "balance_slot",
+        uniqueConstraints = @UniqueConstraint(name = "uk_balance_slot", columnNames = {"account_id", "slot"}))
+public class BalanceSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_slot_seq")
+    @SequenceGenerator(name = "balance_slot_seq", sequenceName = "balance_slot_seq", allocationSize = 50)
+    private Long id;
+
+    // Plain id rather than a relation: slots are only ever touched by account id
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    // Euro cents, see Money
+    @Column(name = "balance_cents", nullable = false)
+    private long balance;
+
+    // Activity of the credits on this slot since it was last moved into the account row, see BankAccount
+    @Column(name = "credit_count", nullable = false)
+    private long creditCount;
+
+    @Column(name = "credit_total_cents", nullable = false)
+    private long creditTotal;
+
+    @Column(name = "last_credit_at")
+    private LocalDateTime lastCreditAt;
+
+    public BalanceSlot() {
+    }
+
+    public BalanceSlot(Long accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+    }
+
+    public Long getId() { return id; }
+    public Long getAccountId() { return accountId; }
+    public int getSlot() { return slot; }
+
+    public long getBalanceCents() { return balance; }
+    public void setBalanceCents(long balance) { this.balance = balance; }
+
+    public long getCreditCount() { return creditCount; }
+    public long getCreditTotalCents() { return creditTotal; }
+    public LocalDateTime getLastCreditAt() { return lastCreditAt; }
+
+    // Empty the slot once its balance and activity are in the account row
+    public void clear() {
+        this.balance = 0;
+        this.creditCount = 0;
+        this.creditTotal = 0;
+        this.lastCreditAt = null;
+    }
+}
@@ -1,17 +1,41 @@
 package nl.inholland.bankAppBackEnd.models;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Formula;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Entity
+@EntityListeners(AccountStatusListener.class)
 public class BankAccount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_account_seq")
+    @SequenceGenerator(name = "bank_account_seq", sequenceName = "bank_account_seq", allocationSize = 50)
     private Long id;
 
     private String iban;
 
-    private Double balance;
+    // All money columns hold euro cents, see Money
+    @Column(name = "balance_cents", nullable = false)
+    private long balance;
+
+    // Hot accounts spread their credits over this many BalanceSlot rows; 0 means not striped
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots = 0;
+
+    // Sum of the slots as of loading; read-only, credits to slots only add to it in memory
+    @Formula("(CASE WHEN balance_slots = 0 THEN 0 ELSE "
+            + "(SELECT COALESCE(SUM(s.balance_cents), 0) FROM balance_slot s WHERE s.account_id = id) END)")
+    private long slotBalance;
+
+    // Bumped on every update; guards against lost updates from concurrent postings. Left null on new
+    // accounts so Spring Data persists them instead of merging; Hibernate starts it at 0 on insert
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
 
     @Enumerated(EnumType.STRING)
     private AccountType type;
@@ -20,11 +44,36 @@ public class BankAccount {
     private User owner;
 
     // Transfer limits
-    private Double absoluteLimit = 0.0; // Minimum balance allowed
-    private Double dailyLimit = 1000.0; // Maximum daily transfer amount
-    private Double dailySpent = 0.0; // Amount spent today
+    @Column(name = "absolute_limit_cents", nullable = false)
+    private long absoluteLimit = 0; // Minimum balance allowed
+    @Column(name = "daily_limit_cents", nullable = false)
+    private long dailyLimit = 100_000; // Maximum daily transfer amount
+    @Column(name = "daily_spent_cents", nullable = false)
+    private long dailySpent = 0; // Amount spent today
     private LocalDate lastResetDate = LocalDate.now(); // Date when daily spent was last reset
 
+    // Activity counters, kept by every posting in the same transaction as the balance (see
+    // AccountActivityReconciler for the job that repairs drift). Both sides of a transaction count
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount = 0;
+    @Column(name = "total_in_cents", nullable = false)
+    private long totalIn = 0;
+    @Column(name = "total_out_cents", nullable = false)
+    private long totalOut = 0;
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    // Activity of credits still on the balance slots, as of loading; read-only like slotBalance
+    @Formula("(CASE WHEN balance_slots = 0 THEN 0 ELSE "
+            + "(SELECT COALESCE(SUM(s.credit_count), 0) FROM balance_slot s WHERE s.account_id = id) END)")
+    private long slotCreditCount;
+    @Formula("(CASE WHEN balance_slots = 0 THEN 0 ELSE "
+            + "(SELECT COALESCE(SUM(s.credit_total_cents), 0) FROM balance_slot s WHERE s.account_id = id) END)")
+    private long slotCreditTotal;
+    @Formula("(CASE WHEN balance_slots = 0 THEN NULL ELSE "
+            + "(SELECT MAX(s.last_credit_at) FROM balance_slot s WHERE s.account_id = id) END)")
+    private LocalDateTime slotLastCreditAt;
+
     public enum AccountType {
         CHECKING,
         SAVINGS
@@ -32,39 +81,134 @@ public class BankAccount {
 
     // Reset daily spending if date has changed
     public void resetDailySpentIfNewDay() {
-        LocalDate today = LocalDate.now();
+        resetDailySpentIfNewDay(LocalDate.now());
+    }
+
+    public void resetDailySpentIfNewDay(LocalDate today) {
         if (!today.equals(this.lastResetDate)) {
-            this.dailySpent = 0.0;
+            this.dailySpent = 0;
             this.lastResetDate = today;
         }
     }
 
     // Check if transaction amount would exceed daily limit
     public boolean wouldExceedDailyLimit(Double amount) {
-        resetDailySpentIfNewDay();
-        return (this.dailySpent + amount) > this.dailyLimit;
+        return wouldExceedDailyLimitCents(Money.toCents(amount), LocalDate.now());
+    }
+
+    // Posting hot path: plain long arithmetic, the caller resolves "today" once per posting
+    public boolean wouldExceedDailyLimitCents(long amountCents, LocalDate today) {
+        resetDailySpentIfNewDay(today);
+        return this.dailySpent + amountCents > this.dailyLimit;
     }
 
     // Check if transaction would violate absolute limit
     public boolean wouldViolateAbsoluteLimit(Double amount) {
-        return (this.balance - amount) < this.absoluteLimit;
+        return wouldViolateAbsoluteLimitCents(Money.toCents(amount));
+    }
+
+    public boolean wouldViolateAbsoluteLimitCents(long amountCents) {
+        return getBalanceCents() - amountCents < this.absoluteLimit;
     }
 
     // Add to daily spent amount
     public void addToDailySpent(Double amount) {
-        resetDailySpentIfNewDay();
-        this.dailySpent += amount;
+        addToDailySpentCents(Money.toCents(amount), LocalDate.now());
+    }
+
+    public void addToDailySpentCents(long amountCents, LocalDate today) {
+        resetDailySpentIfNewDay(today);
+        this.dailySpent += amountCents;
+    }
+
+    public void credit(long amountCents) {
+        this.balance += amountCents;
+    }
+
+    public void debit(long amountCents) {
+        this.balance -= amountCents;
+    }
+
+    // Count a posting on this account; at is the transaction's timestamp
+    public void recordDebit(long amountCents, LocalDateTime at) {
+        this.transactionCount++;
+        this.totalOut += amountCents;
+        this.lastActivityAt = latest(this.lastActivityAt, at);
+    }
+
+    public void recordCredit(long amountCents, LocalDateTime at) {
+        this.transactionCount++;
+        this.totalIn += amountCents;
+        this.lastActivityAt = latest(this.lastActivityAt, at);
+    }
+
+    // Record a credit that went to one of the balance slots (the slot row is updated separately)
+    public void creditSlot(long amountCents, LocalDateTime at) {
+        this.slotBalance += amountCents;
+        this.slotCreditCount++;
+        this.slotCreditTotal += amountCents;
+        this.slotLastCreditAt = latest(this.slotLastCreditAt, at);
+    }
+
+    // Move the balance and activity of the (locked) slots into the account row and empty them
+    public void consolidateSlots(Collection<BalanceSlot> slots) {
+        for (BalanceSlot slot : slots) {
+            this.balance += slot.getBalanceCents();
+            this.slotBalance -= slot.getBalanceCents();
+            this.transactionCount += slot.getCreditCount();
+            this.slotCreditCount -= slot.getCreditCount();
+            this.totalIn += slot.getCreditTotalCents();
+            this.slotCreditTotal -= slot.getCreditTotalCents();
+            this.lastActivityAt = latest(this.lastActivityAt, slot.getLastCreditAt());
+            slot.clear();
+        }
+        this.slotLastCreditAt = null;
+    }
+
+    // Overwrite the counters of the row; the slots must have been consolidated first
+    public void setActivity(long transactionCount, long totalInCents, long totalOutCents, LocalDateTime lastActivityAt) {
+        this.transactionCount = transactionCount;
+        this.totalIn = totalInCents;
+        this.totalOut = totalOutCents;
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
     }
 
     // Getters & Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getIban() { return iban; }
     public void setIban(String iban) { this.iban = iban; }
 
-    public Double getBalance() { return balance; }
-    public void setBalance(Double balance) { this.balance = balance; }
+    // Decimal accessors keep the JSON and service API in euros. Balances are consolidated:
+    // the account row plus its balance slots
+    public Double getBalance() { return Money.toDecimal(getBalanceCents()); }
+    public void setBalance(Double balance) { this.balance = Money.toCents(balance); }
+
+    @JsonIgnore
+    public long getBalanceCents() { return balance + slotBalance; }
+    public void setBalanceCents(long balance) { this.balance = balance; }
+
+    // The account row alone, without the slots
+    @JsonIgnore
+    public long getMainBalanceCents() { return balance; }
+
+    @JsonIgnore
+    public int getBalanceSlots() { return balanceSlots; }
+    public void setBalanceSlots(int balanceSlots) { this.balanceSlots = balanceSlots; }
+
+    @JsonIgnore
+    public boolean isStriped() { return balanceSlots > 0; }
 
     public User getOwner() { return owner; }
     public void setOwner(User owner) { this.owner = owner; }
@@ -72,31 +216,83 @@ public class BankAccount {
     public AccountType getType() { return type; }
     public void setType(AccountType type) { this.type = type; }
 
-    public Double getAbsoluteLimit() { return absoluteLimit; }
-    public void setAbsoluteLimit(Double absoluteLimit) { this.absoluteLimit = absoluteLimit; }
+    public Double getAbsoluteLimit() { return Money.toDecimal(absoluteLimit); }
+    public void setAbsoluteLimit(Double absoluteLimit) { this.absoluteLimit = Money.toCents(absoluteLimit); }
+
+    @JsonIgnore
+    public long getAbsoluteLimitCents() { return absoluteLimit; }
+    public void setAbsoluteLimitCents(long absoluteLimit) { this.absoluteLimit = absoluteLimit; }
+
+    public Double getDailyLimit() { return Money.toDecimal(dailyLimit); }
+    public void setDailyLimit(Double dailyLimit) { this.dailyLimit = Money.toCents(dailyLimit); }
 
-    public Double getDailyLimit() { return dailyLimit; }
-    public void setDailyLimit(Double dailyLimit) { this.dailyLimit = dailyLimit; }
+    @JsonIgnore
+    public long getDailyLimitCents() { return dailyLimit; }
+    public void setDailyLimitCents(long dailyLimit) { this.dailyLimit = dailyLimit; }
 
     public Double getDailySpent() {
         resetDailySpentIfNewDay();
-        return dailySpent;
+        return Money.toDecimal(dailySpent);
     }
-    public void setDailySpent(Double dailySpent) { this.dailySpent = dailySpent; }
+    public void setDailySpent(Double dailySpent) { this.dailySpent = Money.toCents(dailySpent); }
+
+    @JsonIgnore
+    public long getDailySpentCents() { return dailySpent; }
+    public void setDailySpentCents(long dailySpent) { this.dailySpent = dailySpent; }
 
     public LocalDate getLastResetDate() { return lastResetDate; }
     public void setLastResetDate(LocalDate lastResetDate) { this.lastResetDate = lastResetDate; }
 
+    // Activity including the credits still on the balance slots
+    public long getTransactionCount() { return transactionCount + slotCreditCount; }
+
+    public Double getTotalIn() { return Money.toDecimal(getTotalInCents()); }
+
+    @JsonIgnore
+    public long getTotalInCents() { return totalIn + slotCreditTotal; }
+
+    public Double getTotalOut() { return Money.toDecimal(totalOut); }
+
+    @JsonIgnore
+    public long getTotalOutCents() { return totalOut; }
+
+    public LocalDateTime getLastActivityAt() { return latest(lastActivityAt, slotLastCreditAt); }
+
     public Double getRemainingDailyLimit() {
-        resetDailySpentIfNewDay();
+        return Money.toDecimal(getRemainingDailyLimitCents(LocalDate.now()));
+    }
+
+    public long getRemainingDailyLimitCents(LocalDate today) {
+        resetDailySpentIfNewDay(today);
         return Math.max(0, this.dailyLimit - this.dailySpent);
     }
+
+    @JsonIgnore
+    public long getAvailableBalanceCents() {
+        return Math.max(0, getBalanceCents() - this.absoluteLimit);
+    }
+
     private Boolean active = true;
 
+    // Whether the row as last read or written counted as active; AccountStatusListener compares it with
+    // the new state to keep the dashboard counters current
+    @Transient
+    private boolean countedActive;
+
     public boolean isActive() {
         return active == null ? true : active;
     }
 
+    boolean wasActive() { return countedActive; }
+
+    // Entity listeners run before these, so AccountStatusListener still sees the previous state
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void markCounted() {
+        this.countedActive = isActive();
+    }
+
     public void setActive(Boolean active) {
         this.active = active;
     }
@@ -0,0 +1,83 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Response of a posting request, stored under its Idempotency-Key so a retried request
+ * gets the original answer instead of posting again. PENDING while the posting has committed
+ * but its response is not stored yet.
+ */
+@Entity
+@Table(name = "idempotency_key")
+public class IdempotencyRecord {
+
+    public enum State {
+        PENDING,
+        COMPLETED
+    }
+
+    // Client key scoped to the user that sent it: "<userId>:<Idempotency-Key>"
+    @Id
+    @Column(name = "idempotency_key", length = 300)
+    private String key;
+
+    // Endpoint the key was first used for; reusing it for another endpoint is rejected
+    @Column(nullable = false, length = 50)
+    private String operation;
+
+    // SHA-256 (hex) of the request body; null on keys stored before it was recorded
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private State state;
+
+    // Null while PENDING
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    // JSON body as returned to the client; null while PENDING
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String operation, String requestHash, State state,
+                             Integer statusCode, String responseBody) {
+        this.key = key;
+        this.operation = operation;
+        this.requestHash = requestHash;
+        this.state = state;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,54 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is stored and computed as a primitive {@code long} number of euro cents.
+ *
+ * Balances, limits and amounts never exist as floating point values inside the ledger, so limit checks
+ * are exact and the posting path does plain long arithmetic with no boxing. Decimal values only appear
+ * at the edges: parsing request amounts and rendering responses. Those conversions live here.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private Money() {
+    }
+
+    /**
+     * Decimal euro amount to cents, rounding half-even to whole cents
+     */
+    public static long toCents(double amount) {
+        return BigDecimal.valueOf(amount)
+                .setScale(SCALE, RoundingMode.HALF_EVEN)
+                .movePointRight(SCALE)
+                .longValueExact();
+    }
+
+    /**
+     * Null-tolerant variant for optional request parameters
+     */
+    public static Long toCentsOrNull(Double amount) {
+        return amount == null ? null : toCents(amount.doubleValue());
+    }
+
+    /**
+     * Parse a decimal amount as sent by clients, e.g. "12.5" or 12.50
+     */
+    public static long parse(Object amount) {
+        return new BigDecimal(amount.toString().trim())
+                .setScale(SCALE, RoundingMode.HALF_EVEN)
+                .movePointRight(SCALE)
+                .longValueExact();
+    }
+
+    /**
+     * Cents to a decimal euro amount for API responses
+     */
+    public static double toDecimal(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+}
@@ -1,15 +1,19 @@
 package nl.inholland.bankAppBackEnd.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
 
-    private Double amount;
+    // Euro cents, see Money
+    @Column(name = "amount_cents", nullable = false)
+    private long amount;
 
     @Column(name = "transaction_type", nullable = false, length = 20)
     private String transactionType;
@@ -39,10 +43,19 @@ public class Transaction {
     }
 
     public Double getAmount() {
-        return amount;
+        return Money.toDecimal(amount);
     }
 
     public void setAmount(Double amount) {
+        this.amount = Money.toCents(amount);
+    }
+
+    @JsonIgnore
+    public long getAmountCents() {
+        return amount;
+    }
+
+    public void setAmountCents(long amount) {
         this.amount = amount;
     }
 
@@ -1,9 +1,13 @@
 package nl.inholland.bankAppBackEnd.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.Objects;
+
 @Entity
 @Table(name = "app_user")
+@EntityListeners(UserChangeListener.class)
 public class User {
 
     @Id
@@ -35,6 +39,15 @@ public class User {
     @Column(name = "bsn_number", nullable = false, unique = true)
     private String bsnNumber;
 
+    // Goes up whenever a claim carried in access tokens changes (username, role, approval), see JwtPrincipal
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
+    // Whether the row as last read or written counts as a pending approval; UserChangeListener compares
+    // it with the new state to keep the dashboard counters current
+    @Transient
+    private boolean countedPending;
+
     public enum Role {
         ADMIN,
         USER,
@@ -67,8 +80,28 @@ public class User {
     }
 
     public void setApproved(boolean approved) {
+        if (this.isApproved != approved) {
+            tokenVersion++;
+        }
         this.isApproved = approved;
     }
+
+    @JsonIgnore
+    public long getTokenVersion() { return tokenVersion; }
+
+    // A customer waiting for an administrator to approve them
+    @JsonIgnore
+    public boolean isPendingApproval() { return !isApproved && role == Role.USER; }
+
+    boolean wasPendingApproval() { return countedPending; }
+
+    // Entity listeners run before these, so UserChangeListener still sees the previous state
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void markCounted() {
+        this.countedPending = isPendingApproval();
+    }
     public Long getId() { return id; }
 
     public void setId(Long id) { this.id = id; }
@@ -79,7 +112,12 @@ public class User {
 
     public String getUsername() { return username; }
 
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        if (!Objects.equals(this.username, username)) {
+            tokenVersion++;
+        }
+        this.username = username;
+    }
 
     public String getEmail() { return email; }
 
@@ -99,5 +137,10 @@ public class User {
 
     public Role getRole() { return role; }
 
-    public void setRole(Role role) { this.role = role; }
+    public void setRole(Role role) {
+        if (this.role != role) {
+            tokenVersion++;
+        }
+        this.role = role;
+    }
 }
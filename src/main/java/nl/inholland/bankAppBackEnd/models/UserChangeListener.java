@@ -0,0 +1,37 @@
+package nl.inholland.bankAppBackEnd.models;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import nl.inholland.bankAppBackEnd.services.UserChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link UserChangedEvent} for every created, updated or deleted user, whichever code path
+ * saved it, so copies of user state (token versions, dashboard counters) follow once it is committed.
+ * Created by Hibernate through Spring, which supplies the publisher.
+ */
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    void userCreated(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), 1, user.isPendingApproval() ? 1 : 0));
+    }
+
+    @PostUpdate
+    void userUpdated(User user) {
+        int pendingDelta = (user.isPendingApproval() ? 1 : 0) - (user.wasPendingApproval() ? 1 : 0);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), 0, pendingDelta));
+    }
+
+    @PostRemove
+    void userRemoved(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), -1, user.wasPendingApproval() ? -1 : 0));
+    }
+}
@@ -0,0 +1,25 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Activity of one account: transactions on it (either side), money in and out in cents and the time of
+ * the newest one. Read either from the counters on the account or aggregated from the ledger.
+ */
+public record AccountActivity(Long accountId, long transactionCount, long totalInCents, long totalOutCents,
+                              LocalDateTime lastActivityAt) {
+
+    public static AccountActivity none(Long accountId) {
+        return new AccountActivity(accountId, 0, 0, 0, null);
+    }
+
+    // The activity of both sides together, e.g. outgoing plus incoming
+    public AccountActivity plus(AccountActivity other) {
+        LocalDateTime last = lastActivityAt;
+        if (last == null || (other.lastActivityAt != null && other.lastActivityAt.isAfter(last))) {
+            last = other.lastActivityAt;
+        }
+        return new AccountActivity(accountId, transactionCount + other.transactionCount,
+                totalInCents + other.totalInCents, totalOutCents + other.totalOutCents, last);
+    }
+}
@@ -0,0 +1,75 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import jakarta.persistence.QueryHint;
+import nl.inholland.bankAppBackEnd.models.AccountDailyAggregate;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AccountDailyAggregateRepository extends JpaRepository<AccountDailyAggregate, AccountDailyAggregate.Key> {
+
+    // One row per day in the range, oldest first; the stripes of a day are added together
+    @Query("SELECT new nl.inholland.bankAppBackEnd.repository.DailyActivity(a.key.date, " +
+            "SUM(a.transactionCount), SUM(a.totalIn), SUM(a.totalOut), MIN(a.minBalance), MAX(a.maxBalance)) " +
+            "FROM AccountDailyAggregate a " +
+            "WHERE a.key.accountId = :accountId AND a.key.date BETWEEN :from AND :to " +
+            "GROUP BY a.key.date ORDER BY a.key.date")
+    List<DailyActivity> findDailyActivity(@Param("accountId") Long accountId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM AccountDailyAggregate a WHERE a.key.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+
+    // Upsert for posting paths that write the account row with SQL instead of through its entity: adds
+    // count and amounts to stripe 0 of the day and takes the balance from the (already updated, locked) row
+    @Modifying
+    @Query(nativeQuery = true, value = "MERGE INTO account_daily_aggregate a " +
+            "USING (SELECT id, balance_cents FROM bank_account WHERE id = :accountId) s " +
+            "ON a.account_id = s.id AND a.activity_date = :date AND a.stripe = 0 " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "transaction_count = a.transaction_count + :count, " +
+            "total_in_cents = a.total_in_cents + :inCents, " +
+            "total_out_cents = a.total_out_cents + :outCents, " +
+            "min_balance_cents = LEAST(a.min_balance_cents, s.balance_cents), " +
+            "max_balance_cents = GREATEST(a.max_balance_cents, s.balance_cents) " +
+            "WHEN NOT MATCHED THEN INSERT (account_id, activity_date, stripe, transaction_count, " +
+            "total_in_cents, total_out_cents, min_balance_cents, max_balance_cents) " +
+            "VALUES (s.id, :date, 0, :count, :inCents, :outCents, s.balance_cents, s.balance_cents)")
+    int addFromAccountRow(@Param("accountId") Long accountId,
+                          @Param("date") LocalDate date,
+                          @Param("count") long count,
+                          @Param("inCents") long inCents,
+                          @Param("outCents") long outCents);
+
+    // Upsert for postings through the account entity: adds one transaction to the stripe of the day,
+    // with the balance right after it. Only touches this table, so it does not flush the posting's
+    // pending account update and the posting still goes out in one flush
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_daily_aggregate"))
+    @Query(nativeQuery = true, value = "MERGE INTO account_daily_aggregate a " +
+            "USING (SELECT CAST(:accountId AS BIGINT) AS account_id, CAST(:balanceCents AS BIGINT) AS balance_cents) s " +
+            "ON a.account_id = s.account_id AND a.activity_date = :date AND a.stripe = :stripe " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "transaction_count = a.transaction_count + 1, " +
+            "total_in_cents = a.total_in_cents + :inCents, " +
+            "total_out_cents = a.total_out_cents + :outCents, " +
+            "min_balance_cents = LEAST(a.min_balance_cents, s.balance_cents), " +
+            "max_balance_cents = GREATEST(a.max_balance_cents, s.balance_cents) " +
+            "WHEN NOT MATCHED THEN INSERT (account_id, activity_date, stripe, transaction_count, " +
+            "total_in_cents, total_out_cents, min_balance_cents, max_balance_cents) " +
+            "VALUES (s.account_id, :date, :stripe, 1, :inCents, :outCents, s.balance_cents, s.balance_cents)")
+    int addPosting(@Param("accountId") Long accountId,
+                   @Param("date") LocalDate date,
+                   @Param("stripe") int stripe,
+                   @Param("inCents") long inCents,
+                   @Param("outCents") long outCents,
+                   @Param("balanceCents") long balanceCents);
+}
@@ -0,0 +1,32 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import jakarta.persistence.LockModeType;
+import nl.inholland.bankAppBackEnd.models.BalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BalanceSlotRepository extends JpaRepository<BalanceSlot, Long> {
+
+    // Credit one slot in place; only that slot row is locked, never the account row. Amount in cents.
+    // The credit is counted on the slot too, so the account's activity counters need no row lock either
+    @Modifying
+    @Query("UPDATE BalanceSlot s SET " +
+            "s.balance = s.balance + :amount, " +
+            "s.creditCount = s.creditCount + 1, " +
+            "s.creditTotal = s.creditTotal + :amount, " +
+            "s.lastCreditAt = CASE WHEN s.lastCreditAt IS NULL OR s.lastCreditAt < :at THEN :at ELSE s.lastCreditAt END " +
+            "WHERE s.accountId = :accountId AND s.slot = :slot")
+    int credit(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") long amount,
+               @Param("at") LocalDateTime at);
+
+    // Every slot of the account, locked in slot order, for moving them into the account row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BalanceSlot s WHERE s.accountId = :accountId ORDER BY s.slot")
+    List<BalanceSlot> findAllByAccountIdForUpdate(@Param("accountId") Long accountId);
+}
@@ -1,11 +1,18 @@
 package nl.inholland.bankAppBackEnd.repository;
 
+import jakarta.persistence.LockModeType;
 import nl.inholland.bankAppBackEnd.DTOs.AccountSearchResultDTO;
 import nl.inholland.bankAppBackEnd.models.BankAccount;
 import nl.inholland.bankAppBackEnd.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +22,80 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
     List<BankAccount> findAllByOwner(User owner);
     List<BankAccount> findByOwnerNameContainingIgnoreCase(String name);
     Optional<BankAccount> findByIban(String iban);
+    boolean existsByIban(String iban);
     List<BankAccount> findByIbanContainingIgnoreCase(String iban);
     List<AccountSearchResultDTO> findAccountDetailsByOwnerName(@Param("name") String name);
+
+    // Ids only, no lock: a posting resolves its accounts with this, then locks them by id
+    @Query("SELECT a.id FROM BankAccount a WHERE a.iban IN :ibans")
+    List<Long> findIdsByIbanIn(@Param("ibans") Collection<String> ibans);
+
+    // SELECT ... FOR UPDATE on every account a posting (or a bulk chunk) touches, in one query. H2 walks
+    // an IN list on the primary key in ascending order and locks each row as it reaches it, so rows are
+    // taken in id order and concurrent postings cannot deadlock on each other (ORDER BY only sorts the
+    // result). They stay locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id IN :ids ORDER BY a.id")
+    List<BankAccount> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Plain read, no lock: hot accounts are credited without locking their row
+    List<BankAccount> findAllByIbanIn(Collection<String> ibans);
+
+    // Accounts in hot account mode, see HotAccountService
+    @Query("SELECT a.iban FROM BankAccount a WHERE a.balanceSlots > 0")
+    List<String> findStripedIbans();
+
+    // Write-behind for the in-memory posting pipeline: applies accumulated deltas instead of
+    // overwriting the row, so postings committed through other paths are never clobbered. Deltas are in
+    // cents; lastActivityAt is null when the batch has no transaction on the account. A row with debits
+    // (outDelta > 0) is only updated while its balance, slots included, still covers the absolute limit
+    // and stays non-negative afterwards; 0 is returned otherwise
+    @Modifying
+    @Query("UPDATE BankAccount a SET " +
+            "a.balance = a.balance + :balanceDelta, " +
+            "a.dailySpent = CASE WHEN a.lastResetDate = :today THEN a.dailySpent + :spentDelta ELSE :spentDelta END, " +
+            "a.lastResetDate = :today, " +
+            "a.transactionCount = a.transactionCount + :countDelta, " +
+            "a.totalIn = a.totalIn + :inDelta, " +
+            "a.totalOut = a.totalOut + :outDelta, " +
+            "a.lastActivityAt = CASE WHEN :lastActivityAt IS NOT NULL " +
+            "AND (a.lastActivityAt IS NULL OR a.lastActivityAt < :lastActivityAt) " +
+            "THEN :lastActivityAt ELSE a.lastActivityAt END, " +
+            "a.version = a.version + 1 " +
+            "WHERE a.id = :id " +
+            "AND (:outDelta = 0 OR (a.balance + :balanceDelta " +
+            "+ (SELECT COALESCE(SUM(s.balance), 0) FROM BalanceSlot s WHERE s.accountId = a.id) " +
+            ">= CASE WHEN a.absoluteLimit > 0 THEN a.absoluteLimit ELSE 0 END))")
+    int applyPostingDelta(@Param("id") Long id,
+                          @Param("balanceDelta") long balanceDelta,
+                          @Param("spentDelta") long spentDelta,
+                          @Param("countDelta") long countDelta,
+                          @Param("inDelta") long inDelta,
+                          @Param("outDelta") long outDelta,
+                          @Param("lastActivityAt") LocalDateTime lastActivityAt,
+                          @Param("today") LocalDate today);
+
+    // Activity counters as stored: the row plus the credits still on its balance slots
+    @Query("SELECT new nl.inholland.bankAppBackEnd.repository.AccountActivity(a.id, " +
+            "a.transactionCount + a.slotCreditCount, a.totalIn + a.slotCreditTotal, a.totalOut, " +
+            "CASE WHEN a.slotLastCreditAt IS NOT NULL " +
+            "AND (a.lastActivityAt IS NULL OR a.lastActivityAt < a.slotLastCreditAt) " +
+            "THEN a.slotLastCreditAt ELSE a.lastActivityAt END) " +
+            "FROM BankAccount a")
+    List<AccountActivity> findAllActivity();
+
+    // Accounts without a status are active, as in BankAccount#isActive()
+    @Query("SELECT COUNT(a) FROM BankAccount a WHERE a.active IS NULL OR a.active = true")
+    long countActive();
+
+    @Query("SELECT a.id FROM BankAccount a ORDER BY a.id")
+    List<Long> findAllIds();
+
+    // Ids only, for the ETags of the owner's account and history views
+    @Query("SELECT a.id FROM BankAccount a WHERE a.owner.id = :ownerId ORDER BY a.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id = :id")
+    Optional<BankAccount> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import java.time.LocalDate;
+
+/**
+ * One day of an account's activity, read from its daily aggregates. Amounts and balances are in cents.
+ */
+public record DailyActivity(LocalDate date, long transactionCount, long totalInCents, long totalOutCents,
+                            long minBalanceCents, long maxBalanceCents) {
+}
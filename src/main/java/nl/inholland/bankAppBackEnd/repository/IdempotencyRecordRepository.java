@@ -0,0 +1,43 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import jakarta.persistence.QueryHint;
+import nl.inholland.bankAppBackEnd.models.IdempotencyRecord;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // A plain INSERT: save() would merge over a row another request stored first, this fails with a
+    // DataIntegrityViolationException instead. Joins the posting's transaction when there is one, and
+    // only touches this table, so the posting's pending writes still go out in their own flush
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_key"))
+    @Query(nativeQuery = true, value = "INSERT INTO idempotency_key " +
+            "(idempotency_key, operation, request_hash, state, status_code, response_body, created_at) " +
+            "VALUES (:key, :operation, :requestHash, :state, :statusCode, :responseBody, :createdAt)")
+    int insert(@Param("key") String key,
+               @Param("operation") String operation,
+               @Param("requestHash") String requestHash,
+               @Param("state") String state,
+               @Param("statusCode") Integer statusCode,
+               @Param("responseBody") String responseBody,
+               @Param("createdAt") LocalDateTime createdAt);
+
+    // Stores the response of a key inserted as PENDING by its posting
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.state = nl.inholland.bankAppBackEnd.models.IdempotencyRecord$State.COMPLETED, " +
+            "r.statusCode = :statusCode, r.responseBody = :responseBody " +
+            "WHERE r.key = :key AND r.state = nl.inholland.bankAppBackEnd.models.IdempotencyRecord$State.PENDING")
+    int complete(@Param("key") String key,
+                 @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody);
+}
@@ -0,0 +1,37 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * History reads built from {@link TransactionSpecifications}, always in (timestamp DESC, id DESC) order
+ */
+public interface TransactionHistoryRepository {
+
+    /**
+     * At most limit rows matching the specification, skipping the first offset; no COUNT query is issued
+     */
+    List<Transaction> findHistory(Specification<Transaction> specification, long offset, int limit);
+
+    /**
+     * {@link #findHistory} as listing rows: one SELECT joining the two accounts and the initiator, no entities
+     */
+    List<TransactionRow> findHistoryRows(Specification<Transaction> specification, long offset, int limit);
+
+    /**
+     * Every row matching the specification, read through a forward-only database cursor fetchSize rows at
+     * a time. Must be consumed and closed inside a transaction.
+     */
+    Stream<TransactionRow> streamHistoryRows(Specification<Transaction> specification, int fetchSize);
+
+    /**
+     * Hands every transaction of the account to sink, newest first, while reading it. The outgoing and
+     * incoming side are each scrolled with a database cursor in index order and merged, so memory use
+     * does not depend on how many transactions the account has. Must run inside a transaction.
+     */
+    void forEachAccountRow(Long accountId, int fetchSize, Consumer<TransactionRow> sink);
+}
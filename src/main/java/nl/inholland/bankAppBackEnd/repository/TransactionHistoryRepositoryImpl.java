@@ -0,0 +1,111 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static nl.inholland.bankAppBackEnd.repository.TransactionSpecifications.fromAccount;
+import static nl.inholland.bankAppBackEnd.repository.TransactionSpecifications.toAccount;
+
+// Picked up by Spring Data as the implementation of the TransactionHistoryRepository fragment
+class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    // The order of every history read: (timestamp DESC, id DESC)
+    private static final Comparator<TransactionRow> NEWEST_FIRST =
+            Comparator.comparing(TransactionRow::timestamp).thenComparing(TransactionRow::id).reversed();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Transaction> findHistory(Specification<Transaction> specification, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Transaction> query = cb.createQuery(Transaction.class);
+        Root<Transaction> t = query.from(Transaction.class);
+
+        whereInHistoryOrder(query, t, specification, cb);
+        return page(query, offset, limit);
+    }
+
+    @Override
+    public List<TransactionRow> findHistoryRows(Specification<Transaction> specification, long offset, int limit) {
+        return page(rowsQuery(specification), offset, limit);
+    }
+
+    @Override
+    public Stream<TransactionRow> streamHistoryRows(Specification<Transaction> specification, int fetchSize) {
+        // Projections are not managed entities, so nothing piles up in the persistence context while scrolling
+        return entityManager.createQuery(rowsQuery(specification))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    @Override
+    public void forEachAccountRow(Long accountId, int fetchSize, Consumer<TransactionRow> sink) {
+        try (Stream<TransactionRow> outgoingRows = streamHistoryRows(fromAccount(accountId), fetchSize);
+             Stream<TransactionRow> incomingRows = streamHistoryRows(toAccount(accountId), fetchSize)) {
+            Iterator<TransactionRow> outgoing = outgoingRows.iterator();
+            Iterator<TransactionRow> incoming = incomingRows.iterator();
+            TransactionRow nextOutgoing = outgoing.hasNext() ? outgoing.next() : null;
+            TransactionRow nextIncoming = incoming.hasNext() ? incoming.next() : null;
+
+            // An account cannot transfer to itself, so the two sides never hold the same row
+            while (nextOutgoing != null || nextIncoming != null) {
+                if (nextIncoming == null || (nextOutgoing != null && NEWEST_FIRST.compare(nextOutgoing, nextIncoming) <= 0)) {
+                    sink.accept(nextOutgoing);
+                    nextOutgoing = outgoing.hasNext() ? outgoing.next() : null;
+                } else {
+                    sink.accept(nextIncoming);
+                    nextIncoming = incoming.hasNext() ? incoming.next() : null;
+                }
+            }
+        }
+    }
+
+    private CriteriaQuery<TransactionRow> rowsQuery(Specification<Transaction> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionRow> query = cb.createQuery(TransactionRow.class);
+        Root<Transaction> t = query.from(Transaction.class);
+        Join<Transaction, BankAccount> from = t.join("fromAccount", JoinType.LEFT);
+        Join<Transaction, BankAccount> to = t.join("toAccount", JoinType.LEFT);
+        Join<Transaction, User> initiator = t.join("initiatedByUser", JoinType.LEFT);
+
+        query.select(cb.construct(TransactionRow.class,
+                t.get("id"), t.get("transactionType"), t.get("amount"), t.get("timestamp"),
+                from.get("iban"), to.get("iban"), initiator.get("username")));
+        whereInHistoryOrder(query, t, specification, cb);
+        return query;
+    }
+
+    private void whereInHistoryOrder(CriteriaQuery<?> query, Root<Transaction> t,
+                                     Specification<Transaction> specification, CriteriaBuilder cb) {
+        Predicate where = specification.toPredicate(t, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(cb.desc(t.get("timestamp")), cb.desc(t.get("id")));
+    }
+
+    private <T> List<T> page(CriteriaQuery<T> query, long offset, int limit) {
+        return entityManager.createQuery(query)
+                .setFirstResult((int) Math.min(offset, Integer.MAX_VALUE))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,30 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import nl.inholland.bankAppBackEnd.models.Money;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a transaction listing shows, selected in one query with the IBANs and the initiator's
+ * username joined in. Reading these instead of entities skips loading both accounts, their owners and
+ * the initiating user (password hash included) for every row.
+ */
+public record TransactionRow(Long id, String transactionType, long amountCents, LocalDateTime timestamp,
+                             String fromIban, String toIban, String initiatedBy) {
+
+    public static TransactionRow of(Transaction transaction) {
+        return new TransactionRow(
+                transaction.getId(),
+                transaction.getTransactionType(),
+                transaction.getAmountCents(),
+                transaction.getTimestamp(),
+                transaction.getFromAccount() != null ? transaction.getFromAccount().getIban() : null,
+                transaction.getToAccount() != null ? transaction.getToAccount().getIban() : null,
+                transaction.getInitiatedByUser() != null ? transaction.getInitiatedByUser().getUsername() : null);
+    }
+
+    public Double amount() {
+        return Money.toDecimal(amountCents);
+    }
+}
@@ -0,0 +1,86 @@
+package nl.inholland.bankAppBackEnd.repository;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Building blocks for transaction history queries. Callers combine only the filters that are actually
+ * set, so every query H2 plans is the exact shape it runs and can use the index for its leading filter
+ * (see V6__ledger_indexes.sql), instead of one catch-all query planned for the worst case.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> fromAccount(Long accountId) {
+        return (t, query, cb) -> cb.equal(t.get("fromAccount").get("id"), accountId);
+    }
+
+    public static Specification<Transaction> toAccount(Long accountId) {
+        return (t, query, cb) -> cb.equal(t.get("toAccount").get("id"), accountId);
+    }
+
+    public static Specification<Transaction> fromOrToAccount(Long accountId) {
+        return fromAccount(accountId).or(toAccount(accountId));
+    }
+
+    public static Specification<Transaction> fromAccountIn(Collection<Long> accountIds) {
+        return (t, query, cb) -> t.get("fromAccount").get("id").in(accountIds);
+    }
+
+    public static Specification<Transaction> toAccountIn(Collection<Long> accountIds) {
+        return (t, query, cb) -> t.get("toAccount").get("id").in(accountIds);
+    }
+
+    public static Specification<Transaction> amountAtLeast(long cents) {
+        return (t, query, cb) -> cb.greaterThanOrEqualTo(t.get("amount"), cents);
+    }
+
+    public static Specification<Transaction> amountAtMost(long cents) {
+        return (t, query, cb) -> cb.lessThanOrEqualTo(t.get("amount"), cents);
+    }
+
+    public static Specification<Transaction> amountEquals(long cents) {
+        return (t, query, cb) -> cb.equal(t.get("amount"), cents);
+    }
+
+    public static Specification<Transaction> onOrAfter(LocalDateTime start) {
+        return (t, query, cb) -> cb.greaterThanOrEqualTo(t.get("timestamp"), start);
+    }
+
+    public static Specification<Transaction> onOrBefore(LocalDateTime end) {
+        return (t, query, cb) -> cb.lessThanOrEqualTo(t.get("timestamp"), end);
+    }
+
+    public static Specification<Transaction> initiatedByUser(Long userId) {
+        return (t, query, cb) -> cb.equal(t.get("initiatedByUser").get("id"), userId);
+    }
+
+    // Compares the initiator's id with an uncorrelated subquery, so idx_transaction_initiated_by_time can be used
+    public static Specification<Transaction> initiatedBy(String username) {
+        return (t, query, cb) -> {
+            Subquery<Long> userId = query.subquery(Long.class);
+            Root<User> user = userId.from(User.class);
+            userId.select(user.get("id")).where(cb.equal(user.get("username"), username));
+            return cb.equal(t.get("initiatedByUser").get("id"), userId);
+        };
+    }
+
+    /**
+     * Keyset position: rows after (timestamp, id) in (timestamp DESC, id DESC) order. The redundant
+     * "timestamp <=" gives the time indexes a range to start from.
+     */
+    public static Specification<Transaction> before(LocalDateTime timestamp, long id) {
+        return (t, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(t.get("timestamp"), timestamp),
+                cb.or(cb.lessThan(t.get("timestamp"), timestamp),
+                        cb.and(cb.equal(t.get("timestamp"), timestamp), cb.lessThan(t.get("id"), id))));
+    }
+}
@@ -2,6 +2,8 @@ package nl.inholland.bankAppBackEnd.repository;
 
 import nl.inholland.bankAppBackEnd.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +14,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByNameContainingIgnoreCase(String name);
     Optional<User> findByBsnNumber(String bsnNumber);
 
+    @Query("SELECT COUNT(u) FROM User u WHERE u.isApproved = false AND u.role = :role")
+    long countUnapprovedByRole(@Param("role") User.Role role);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
 }
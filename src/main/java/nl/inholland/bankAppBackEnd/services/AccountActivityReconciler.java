@@ -0,0 +1,102 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.repository.AccountActivity;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks the activity counters on every account (see {@link BankAccount#getTransactionCount()})
+ * against the ledger and repairs the ones that drifted: rows written before the counters existed,
+ * transactions inserted or removed outside the posting paths.
+ *
+ * The check reads both sides without locks, so a posting committing in between can look like drift.
+ * An account that differs is therefore locked (its balance slots consolidated, when striped) and
+ * aggregated again; every posting path takes that lock, so the second look is exact.
+ */
+@Service
+public class AccountActivityReconciler {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final HotAccountService hotAccountService;
+    private final PostingExecutor postingExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AccountActivityReconciler(BankAccountRepository bankAccountRepository,
+                                     TransactionRepository transactionRepository,
+                                     HotAccountService hotAccountService,
+                                     PostingExecutor postingExecutor,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.hotAccountService = hotAccountService;
+        this.postingExecutor = postingExecutor;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(initialDelayString = "${bank.activity.reconcile.interval-minutes:60}",
+            fixedDelayString = "${bank.activity.reconcile.interval-minutes:60}",
+            timeUnit = TimeUnit.MINUTES)
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Check every account and repair the drifted ones; returns how many were repaired
+     */
+    public int reconcile() {
+        Map<Long, AccountActivity> ledger = new HashMap<>();
+        for (AccountActivity outgoing : transactionRepository.findOutgoingActivity()) {
+            ledger.put(outgoing.accountId(), outgoing);
+        }
+        for (AccountActivity incoming : transactionRepository.findIncomingActivity()) {
+            ledger.merge(incoming.accountId(), incoming, AccountActivity::plus);
+        }
+
+        int repaired = 0;
+        for (AccountActivity stored : bankAccountRepository.findAllActivity()) {
+            AccountActivity expected = ledger.getOrDefault(stored.accountId(), AccountActivity.none(stored.accountId()));
+            if (!expected.equals(stored) && repair(stored.accountId())) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    // Returns whether the account really had drifted
+    private boolean repair(Long accountId) {
+        return postingExecutor.execute(() -> {
+            BankAccount account = bankAccountRepository.findByIdForUpdate(accountId).orElse(null);
+            if (account == null) {
+                return false;
+            }
+            if (account.isStriped()) {
+                hotAccountService.consolidate(account);
+            }
+
+            AccountActivity expected = transactionRepository.findOutgoingActivity(accountId)
+                    .orElse(AccountActivity.none(accountId))
+                    .plus(transactionRepository.findIncomingActivity(accountId).orElse(AccountActivity.none(accountId)));
+            AccountActivity stored = new AccountActivity(accountId, account.getTransactionCount(),
+                    account.getTotalInCents(), account.getTotalOutCents(), account.getLastActivityAt());
+            if (expected.equals(stored)) {
+                return false;
+            }
+
+            account.setActivity(expected.transactionCount(), expected.totalInCents(), expected.totalOutCents(),
+                    expected.lastActivityAt());
+            bankAccountRepository.save(account);
+            eventPublisher.publishEvent(new AccountsChangedEvent(Set.of(accountId)));
+            return true;
+        });
+    }
+}
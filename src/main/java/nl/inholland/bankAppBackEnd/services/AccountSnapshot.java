@@ -0,0 +1,33 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only copy of the account fields shown by the limits and ATM summary views, as committed at
+ * version (the account row's optimistic-lock version). Amounts in euro cents, see Money.
+ */
+public record AccountSnapshot(Long id, String iban, Long ownerId, long balanceCents, long absoluteLimitCents,
+                              long dailyLimitCents, long dailySpentCents, LocalDate lastResetDate, Long version) {
+
+    public static AccountSnapshot of(BankAccount account) {
+        return new AccountSnapshot(account.getId(), account.getIban(),
+                account.getOwner() != null ? account.getOwner().getId() : null,
+                account.getBalanceCents(), account.getAbsoluteLimitCents(), account.getDailyLimitCents(),
+                account.getDailySpentCents(), account.getLastResetDate(), account.getVersion());
+    }
+
+    // Spending recorded on an earlier day no longer counts, as in BankAccount#resetDailySpentIfNewDay
+    public long dailySpentCents(LocalDate today) {
+        return today.equals(lastResetDate) ? dailySpentCents : 0;
+    }
+
+    public long remainingDailyLimitCents(LocalDate today) {
+        return Math.max(0, dailyLimitCents - dailySpentCents(today));
+    }
+
+    public long availableBalanceCents() {
+        return Math.max(0, balanceCents - absoluteLimitCents);
+    }
+}
@@ -0,0 +1,124 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Near-cache for the read-only account views (limits, ATM summary) keyed by IBAN.
+ *
+ * IBAN to id never changes, so that mapping is kept for as long as the LRU allows. Per id an
+ * {@link AccountSnapshot} is kept until a write on the account commits: postings and limit changes
+ * ({@link AccountsChangedEvent}) and the posting pipeline's write-behind ({@link TransactionPostedEvent}).
+ * A load that overlaps such a write may have read the state before it; it answers its own caller but is
+ * not kept, so the next read loads the committed state.
+ */
+@Service
+public class AccountSnapshotCache {
+
+    private final Map<String, Long> idsByIban;
+    private final Map<Long, AccountSnapshot> snapshots;
+    // Accounts being loaded; an eviction drops the entry, telling the loader not to keep what it read
+    private final Map<Long, Object> loads = new HashMap<>();
+
+    public AccountSnapshotCache(@Value("${bank.account.snapshot-cache.size:10000}") int cacheSize) {
+        this.idsByIban = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AccountSnapshot> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * The account's id; on a miss load(iban) reads the account (absent accounts are not remembered)
+     */
+    public Optional<Long> idOf(String iban, Function<String, Optional<BankAccount>> load) {
+        synchronized (this) {
+            Long id = idsByIban.get(iban);
+            if (id != null) {
+                return Optional.of(id);
+            }
+        }
+        return load.apply(iban).map(account -> {
+            remember(account);
+            return account.getId();
+        });
+    }
+
+    /**
+     * The account's committed read-only state; on a miss load(iban) reads the account
+     */
+    public Optional<AccountSnapshot> get(String iban, Function<String, Optional<BankAccount>> load) {
+        Object token = new Object();
+        Long id;
+        synchronized (this) {
+            id = idsByIban.get(iban);
+            if (id != null) {
+                AccountSnapshot cached = snapshots.get(id);
+                if (cached != null) {
+                    return Optional.of(cached);
+                }
+                // A second reader missing at the same time loads too; only the last one to start keeps its copy
+                loads.put(id, token);
+            }
+        }
+
+        Optional<BankAccount> account = load.apply(iban);
+        Optional<AccountSnapshot> snapshot = account.map(AccountSnapshot::of);
+        synchronized (this) {
+            if (id == null) {
+                // First sight of this IBAN: the load could not be registered under its id, so only the id is kept
+                account.ifPresent(this::remember);
+            } else if (loads.remove(id, token) && snapshot.isPresent()) {
+                snapshots.put(id, snapshot.get());
+            }
+        }
+        return snapshot;
+    }
+
+    private synchronized void remember(BankAccount account) {
+        idsByIban.put(account.getIban(), account.getId());
+    }
+
+    // Ahead of the other listeners, so AccountVersions never hands out a new version with an old snapshot
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAccountsChanged(AccountsChangedEvent event) {
+        for (Long accountId : event.getAccountIds()) {
+            evict(accountId);
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTransactionPosted(TransactionPostedEvent event) {
+        for (Long accountId : event.getAccountIds()) {
+            evict(accountId);
+        }
+    }
+
+    private void evict(Long accountId) {
+        snapshots.remove(accountId);
+        loads.remove(accountId);
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+}
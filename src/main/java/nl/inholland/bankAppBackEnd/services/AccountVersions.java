@@ -0,0 +1,85 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A change version per account, bumped once a posting, limit change or closure of it commits
+ * ({@link AccountsChangedEvent}, {@link TransactionPostedEvent}), and the ETags built from them, so the
+ * account and history polls can answer 304 Not Modified without reading accounts or transactions.
+ *
+ * The versions live in memory rather than on the account row: hot account credits and the posting
+ * pipeline change an account without writing its row through JPA. A random epoch taken at startup is
+ * part of every ETag, so tags handed out before a restart never match. The day is part of it too, since
+ * the daily spent and remaining limit reset at midnight without a posting. Rows written past the posting
+ * paths (hand-made SQL, imports) do not bump anything; clients see them once the account changes again.
+ */
+@Service
+public class AccountVersions {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final AccountSnapshotCache accountSnapshotCache;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    // Accounts never changed since startup are at version 0
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public AccountVersions(BankAccountRepository bankAccountRepository, AccountSnapshotCache accountSnapshotCache) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.accountSnapshotCache = accountSnapshotCache;
+    }
+
+    public long versionOf(Long accountId) {
+        return versions.getOrDefault(accountId, 0L);
+    }
+
+    /**
+     * ETag of a view of one account, or null when there is no such account (the view answers 404 then)
+     */
+    public String accountEtag(String view, String iban) {
+        Optional<Long> id = accountSnapshotCache.idOf(iban, bankAccountRepository::findByIban);
+        return id.map(accountId -> etag(view, List.of(accountId))).orElse(null);
+    }
+
+    /**
+     * ETag of a view over all accounts of one owner. Costs one id-only query; opening an account changes
+     * the ids and with them the tag
+     */
+    public String ownerEtag(String view, Long ownerId) {
+        return etag(view + ":" + ownerId, bankAccountRepository.findIdsByOwnerId(ownerId));
+    }
+
+    private String etag(String view, List<Long> accountIds) {
+        // Read before the view itself, so a change committing in between only costs one extra 200
+        StringBuilder tag = new StringBuilder("W/\"").append(epoch).append('-')
+                .append(LocalDate.now().toEpochDay()).append('-')
+                .append(Integer.toHexString(view.hashCode()));
+        for (Long accountId : accountIds) {
+            tag.append('-').append(Long.toString(accountId, 36)).append('.').append(Long.toString(versionOf(accountId), 36));
+        }
+        return tag.append('"').toString();
+    }
+
+    private void bump(Iterable<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            versions.merge(accountId, 1L, Long::sum);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountsChanged(AccountsChangedEvent event) {
+        bump(event.getAccountIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        bump(event.getAccountIds());
+    }
+}
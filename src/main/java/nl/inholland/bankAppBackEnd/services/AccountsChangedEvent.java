@@ -0,0 +1,20 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import java.util.Set;
+
+/**
+ * Published by TransactionService whenever a posting or limit change touches account rows.
+ * Listeners that keep copies of account state use it to drop them once the change is committed.
+ */
+public class AccountsChangedEvent {
+
+    private final Set<Long> accountIds;
+
+    public AccountsChangedEvent(Set<Long> accountIds) {
+        this.accountIds = Set.copyOf(accountIds);
+    }
+
+    public Set<Long> getAccountIds() {
+        return accountIds;
+    }
+}
@@ -0,0 +1,18 @@
+package nl.inholland.bankAppBackEnd.services;
+
+/**
+ * Published when accounts are opened, closed or deleted (see AccountStatusListener); delta is the
+ * change in the number of active accounts.
+ */
+public class ActiveAccountsChangedEvent {
+
+    private final int delta;
+
+    public ActiveAccountsChangedEvent(int delta) {
+        this.delta = delta;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+}
@@ -6,13 +6,16 @@ import nl.inholland.bankAppBackEnd.DTOs.BankAccountDTO;
 import nl.inholland.bankAppBackEnd.DTOs.DashboardStatsDTO;
 import nl.inholland.bankAppBackEnd.exceptions.ResourceNotFoundException;
 import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Money;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,15 +30,24 @@ public class BankAccountService {
 
 
     private final TransactionService transactionService;
+    private final AccountSnapshotCache accountSnapshotCache;
+    private final DashboardCounters dashboardCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public BankAccountService(
             BankAccountRepository bankAccountRepository,
             UserRepository userRepository,
-            TransactionService transactionService) { // Update constructor
+            TransactionService transactionService,
+            AccountSnapshotCache accountSnapshotCache,
+            DashboardCounters dashboardCounters,
+            ApplicationEventPublisher eventPublisher) { // Update constructor
         this.bankAccountRepository = bankAccountRepository;
         this.userRepository = userRepository;
         this.transactionService = transactionService; // Inject TransactionService
+        this.accountSnapshotCache = accountSnapshotCache;
+        this.dashboardCounters = dashboardCounters;
+        this.eventPublisher = eventPublisher;
     }
 
     public BankAccount createAccountForUser(User user) {
@@ -72,10 +84,7 @@ public class BankAccountService {
         savings.setDailyLimit(0.0); // Savings accounts typically don't allow transfers
 
 
-        bankAccountRepository.save(checking);
-        bankAccountRepository.save(savings);
-
-        return List.of(checking, savings);
+        return List.of(bankAccountRepository.save(checking), bankAccountRepository.save(savings));
     }
 
     private String generateIban() {
@@ -84,7 +93,7 @@ public class BankAccountService {
         do {
             iban = "NL" + String.format("%02d", new Random().nextInt(100)) +
                     "INHO" + String.format("%010d", new Random().nextInt(1000000000));
-        } while (bankAccountRepository.findByIban(iban).isPresent());
+        } while (bankAccountRepository.existsByIban(iban));
 
         return iban;
     }
@@ -94,7 +103,9 @@ public class BankAccountService {
     }
 
     public void save(BankAccount account) {
-        bankAccountRepository.save(account);
+        BankAccount saved = bankAccountRepository.save(account);
+        // Views of the account (snapshots, ETags) are dropped once the change commits
+        eventPublisher.publishEvent(new AccountsChangedEvent(Set.of(saved.getId())));
     }
 
     public List<BankAccount> getAllAccounts() {
@@ -108,29 +119,28 @@ public class BankAccountService {
 
 
     public int getActiveAccountsCount() {
-        return (int) bankAccountRepository.findAll()
-                .stream()
-                .filter(BankAccount::isActive)
-                .count();
+        return (int) bankAccountRepository.countActive();
     }
 
+    // Read-only, so served from the account snapshot cache
     public Map<String, Object> getLimitsForUser(String iban, User currentUser) {
-        BankAccount account = bankAccountRepository.findByIban(iban)
+        AccountSnapshot account = accountSnapshotCache.get(iban, bankAccountRepository::findByIban)
                 .orElseThrow(() -> new NoSuchElementException("❌ Account not found"));
 
         if (currentUser.getRole() == User.Role.USER &&
-                !account.getOwner().getId().equals(currentUser.getId())) {
+                !currentUser.getId().equals(account.ownerId())) {
             throw new SecurityException("❌ You can only view your own account limits");
         }
 
+        LocalDate today = LocalDate.now();
         Map<String, Object> limits = new HashMap<>();
-        limits.put("iban", account.getIban());
-        limits.put("absoluteLimit", account.getAbsoluteLimit());
-        limits.put("dailyLimit", account.getDailyLimit());
-        limits.put("dailySpent", account.getDailySpent());
-        limits.put("remainingDailyLimit", account.getRemainingDailyLimit());
-        limits.put("balance", account.getBalance());
-        limits.put("availableBalance", Math.max(0, account.getBalance() - account.getAbsoluteLimit()));
+        limits.put("iban", account.iban());
+        limits.put("absoluteLimit", Money.toDecimal(account.absoluteLimitCents()));
+        limits.put("dailyLimit", Money.toDecimal(account.dailyLimitCents()));
+        limits.put("dailySpent", Money.toDecimal(account.dailySpentCents(today)));
+        limits.put("remainingDailyLimit", Money.toDecimal(account.remainingDailyLimitCents(today)));
+        limits.put("balance", Money.toDecimal(account.balanceCents()));
+        limits.put("availableBalance", Money.toDecimal(account.availableBalanceCents()));
 
         return limits;
     }
@@ -216,24 +226,13 @@ public class BankAccountService {
 
         account.setActive(false);
         bankAccountRepository.save(account);
+        eventPublisher.publishEvent(new AccountsChangedEvent(Set.of(account.getId())));
     }
 
     /**
-     * Get dashboard statistics
+     * Get dashboard statistics, kept as counters (see DashboardCounters) instead of counted per poll
      */
     public DashboardStatsDTO getDashboardStats() {
-        int pendingApprovals = (int) userRepository.findAll()
-                .stream()
-                .filter(user -> !user.isApproved() && user.getRole() == User.Role.USER)
-                .count();
-
-        int totalUsers = (int) userRepository.count();
-        int activeAccounts = getActiveAccountsCount();
-        // Call the method on the instance, not statically
-        int todayTransactions = transactionService.getTodayTransactionsCount();
-
-        return new DashboardStatsDTO(pendingApprovals, totalUsers, activeAccounts, todayTransactions);
+        return dashboardCounters.getStats();
     }
 }
-
-
@@ -0,0 +1,105 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Posts large lists of transfers (payroll, settlement runs) through the same posting pipeline as
+ * {@link TransactionService#transferFunds}.
+ *
+ * Transfers are committed in chunks: every account a chunk references is locked with a single IN query
+ * (hot accounts that are only credited are read without a lock, see {@link HotAccountService}),
+ * the transfers are applied in request order on those locked rows, and the resulting updates and
+ * transaction rows go out as JDBC batches on commit. A chunk that fails as a whole (e.g. it keeps losing
+ * lock races) is reported per item; chunks committed before it stay committed. Amounts that cannot be
+ * expressed in cents are rejected per item before their chunk starts, so they never roll one back.
+ */
+@Service
+public class BulkTransferService {
+
+    private static final TransactionService.TransferResult INVALID_AMOUNT =
+            new TransactionService.TransferResult(false, "❌ Invalid transfer amount");
+
+    private final TransactionService transactionService;
+    private final PostingExecutor postingExecutor;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public BulkTransferService(TransactionService transactionService,
+                               PostingExecutor postingExecutor,
+                               @Value("${bank.transfer.batch.chunk-size:500}") int chunkSize,
+                               @Value("${bank.transfer.batch.max-items:10000}") int maxItems) {
+        this.transactionService = transactionService;
+        this.postingExecutor = postingExecutor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxItems = maxItems;
+    }
+
+    public record TransferItem(String fromIban, String toIban, Double amount) {
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * One result per item, in the order the items were given
+     */
+    public List<TransactionService.TransferResult> transferAll(List<TransferItem> items, User initiatedBy) {
+        List<TransactionService.TransferResult> results = new ArrayList<>(items.size());
+        for (int start = 0; start < items.size(); start += chunkSize) {
+            List<TransferItem> chunk = items.subList(start, Math.min(start + chunkSize, items.size()));
+            // Null where the amount cannot be posted
+            List<PostingCommand> commands = new ArrayList<>(chunk.size());
+            for (TransferItem item : chunk) {
+                commands.add(command(item, initiatedBy));
+            }
+            try {
+                results.addAll(postingExecutor.execute(() -> transferChunk(commands)));
+            } catch (RuntimeException e) {
+                // The chunk rolled back as a whole, so none of its transfers happened
+                TransactionService.TransferResult failed = new TransactionService.TransferResult(false,
+                        "❌ Transfer failed, batch chunk was rolled back: " + e.getMessage());
+                for (PostingCommand command : commands) {
+                    results.add(command == null ? INVALID_AMOUNT : failed);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static PostingCommand command(TransferItem item, User initiatedBy) {
+        try {
+            return PostingCommand.transfer(item.fromIban(), item.toIban(), item.amount(), initiatedBy);
+        } catch (ArithmeticException | NumberFormatException e) {
+            // Too large for cents, or not a finite number
+            return null;
+        }
+    }
+
+    private List<TransactionService.TransferResult> transferChunk(List<PostingCommand> commands) {
+        List<String> debited = new ArrayList<>(commands.size());
+        List<String> credited = new ArrayList<>(commands.size());
+        for (PostingCommand command : commands) {
+            if (command != null) {
+                debited.add(command.getFromIban());
+                credited.add(command.getToIban());
+            }
+        }
+        Map<String, BankAccount> accounts = transactionService.resolveAccounts(debited, credited);
+
+        LocalDate today = LocalDate.now();
+        List<TransactionService.TransferResult> results = new ArrayList<>(commands.size());
+        for (PostingCommand command : commands) {
+            results.add(command == null ? INVALID_AMOUNT : transactionService.postLocked(command, accounts, today));
+        }
+        return results;
+    }
+}
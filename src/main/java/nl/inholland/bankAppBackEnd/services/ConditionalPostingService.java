@@ -0,0 +1,175 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Money;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set-based fast path for transfers ({@code bank.posting.set-based.enabled=true}).
+ *
+ * Instead of locking the accounts, checking the rules in Java and writing the rows back, the debit and
+ * the credit are sent as conditional UPDATEs in one JDBC batch; the WHERE clause of the debit carries the
+ * transfer rules (checking account, owner, absolute limit, balance, daily limit with day rollover). Both
+ * rows are only locked for the duration of that batch and the ledger insert that follows at commit.
+ *
+ * An update count other than one means a rule did not hold (or an account is gone): the transaction is
+ * rolled back and the transfer is run again through {@link TransactionService#transferFunds}, whose full
+ * validation produces the rejection message (or posts it, if the accounts changed in between).
+ */
+@Service
+@ConditionalOnProperty(name = "bank.posting.set-based.enabled", havingValue = "true")
+public class ConditionalPostingService {
+
+    // One statement for both sides, so debit and credit go out as a single batch. Parameters:
+    // balance delta, today, spent delta, today, in, out, now, now, id, check rules, delta, delta, customer,
+    // owner id, today, spent delta
+    static final String CONDITIONAL_DELTA_SQL = "UPDATE bank_account SET "
+            + "balance_cents = balance_cents + ?, "
+            + "daily_spent_cents = CASE WHEN last_reset_date = ? THEN daily_spent_cents ELSE 0 END + ?, "
+            + "last_reset_date = ?, "
+            + "transaction_count = transaction_count + 1, "
+            + "total_in_cents = total_in_cents + ?, "
+            + "total_out_cents = total_out_cents + ?, "
+            + "last_activity_at = CASE WHEN last_activity_at IS NULL OR last_activity_at < ? THEN ? ELSE last_activity_at END, "
+            + "version = version + 1 "
+            + "WHERE id = ? "
+            + "AND (? = 0 OR (type = 'CHECKING' AND balance_cents + ? >= absolute_limit_cents AND balance_cents + ? >= 0)) "
+            + "AND (? = 0 OR (owner_id = ? AND CASE WHEN last_reset_date = ? THEN daily_spent_cents ELSE 0 END + ? <= daily_limit_cents))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private final PostingExecutor postingExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HotAccountService hotAccountService;
+    private final DailyAggregateService dailyAggregateService;
+
+    // IBAN, id, type and owner never change, so these reference copies are safe to share between threads.
+    // Their balances are never read; the database is the only place the amounts are checked.
+    private final ConcurrentHashMap<String, BankAccount> referencesByIban = new ConcurrentHashMap<>();
+
+    public ConditionalPostingService(JdbcTemplate jdbcTemplate,
+                                     BankAccountRepository bankAccountRepository,
+                                     TransactionRepository transactionRepository,
+                                     TransactionService transactionService,
+                                     PostingExecutor postingExecutor,
+                                     ApplicationEventPublisher eventPublisher,
+                                     HotAccountService hotAccountService,
+                                     DailyAggregateService dailyAggregateService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionService = transactionService;
+        this.postingExecutor = postingExecutor;
+        this.eventPublisher = eventPublisher;
+        this.hotAccountService = hotAccountService;
+        this.dailyAggregateService = dailyAggregateService;
+    }
+
+    // Thrown inside the posting transaction to roll it back when an update count shows a rule failed
+    private static final class Rejected extends RuntimeException {
+        Rejected() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Same contract as {@link TransactionService#transferFunds}
+     */
+    public TransactionService.TransferResult transfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        long cents = amount == null || amount <= 0 ? 0 : Money.toCents(amount);
+        // Anything the UPDATEs cannot decide on their own goes straight to the full pipeline; so do
+        // nested calls, which must not roll back the caller's transaction, and credits to hot accounts,
+        // which go to balance slots rather than the account row
+        if (cents <= 0 || fromIban == null || fromIban.equals(toIban) || hotAccountService.isHot(toIban)
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionService.transferFunds(fromIban, toIban, amount, initiatedBy);
+        }
+
+        BankAccount from = resolve(fromIban);
+        BankAccount to = resolve(toIban);
+        if (from == null || to == null) {
+            return transactionService.transferFunds(fromIban, toIban, amount, initiatedBy);
+        }
+
+        try {
+            Transaction transaction = postingExecutor.execute(() -> post(from, to, cents, initiatedBy));
+            return new TransactionService.TransferResult(true,
+                    String.format("✅ Successfully transferred €%.2f from %s to %s", Money.toDecimal(cents), fromIban, toIban),
+                    transaction);
+        } catch (Rejected e) {
+            // Forget the references in case one of the accounts no longer exists
+            referencesByIban.remove(fromIban);
+            referencesByIban.remove(toIban);
+            return transactionService.transferFunds(fromIban, toIban, amount, initiatedBy);
+        }
+    }
+
+    private Transaction post(BankAccount from, BankAccount to, long cents, User initiatedBy) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        boolean customer = initiatedBy.getRole() == User.Role.USER;
+
+        Object[] debit = {-cents, today, cents, today, 0L, cents, now, now, from.getId(),
+                1, -cents, -cents,
+                customer ? 1 : 0, initiatedBy.getId(), today, cents};
+        Object[] credit = {cents, today, 0L, today, cents, 0L, now, now, to.getId(),
+                0, 0L, 0L,
+                0, 0L, today, 0L};
+
+        // Rows in id order, like every other posting path, so opposite transfers cannot deadlock
+        List<Object[]> rows = new ArrayList<>(2);
+        boolean debitFirst = from.getId() < to.getId();
+        rows.add(debitFirst ? debit : credit);
+        rows.add(debitFirst ? credit : debit);
+
+        int[] counts = jdbcTemplate.batchUpdate(CONDITIONAL_DELTA_SQL, rows);
+        if (counts.length != 2 || counts[0] != 1 || counts[1] != 1) {
+            throw new Rejected();
+        }
+        // Both account rows are locked by the updates now, which also covers their daily aggregates
+        dailyAggregateService.addFromAccountRow(from.getId(), now.toLocalDate(), 1, 0, cents);
+        dailyAggregateService.addFromAccountRow(to.getId(), now.toLocalDate(), 1, cents, 0);
+
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmountCents(cents);
+        transaction.setTransactionType("TRANSFER");
+        transaction.setTimestamp(now);
+        transaction.setInitiatedByUser(initiatedBy);
+
+        eventPublisher.publishEvent(new AccountsChangedEvent(Set.of(from.getId(), to.getId())));
+        // The references are detached, so the flush at commit only inserts this row
+        Transaction saved = transactionRepository.save(transaction);
+        eventPublisher.publishEvent(new TransactionPostedEvent(transaction));
+        return saved;
+    }
+
+    private BankAccount resolve(String iban) {
+        BankAccount reference = referencesByIban.get(iban);
+        if (reference == null) {
+            reference = bankAccountRepository.findByIban(iban).orElse(null);
+            if (reference != null) {
+                referencesByIban.putIfAbsent(iban, reference);
+            }
+        }
+        return reference;
+    }
+}
@@ -0,0 +1,132 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.DTOs.DailyActivityDTO;
+import nl.inholland.bankAppBackEnd.models.AccountDailyAggregate;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.repository.AccountDailyAggregateRepository;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily aggregates per account ({@link AccountDailyAggregate}).
+ *
+ * Postings record themselves in the row of their account and day, in the posting's transaction and
+ * under the lock it already holds: the account row, or for credits to a hot account the balance slot,
+ * whose stripe row only that slot's credits touch. Each side of a posting is one MERGE on its row, so
+ * recording needs no read of the aggregate.
+ * {@link #rebuild()} recomputes every account from the ledger, for history from before the table existed
+ * or after transactions were changed by hand.
+ */
+@Service
+public class DailyAggregateService {
+
+    // Rows per round trip when scrolling an account's history for a rebuild
+    private static final int REBUILD_FETCH_SIZE = 500;
+
+    public record RebuildResult(int accounts, int days) {
+    }
+
+    private final AccountDailyAggregateRepository aggregateRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final HotAccountService hotAccountService;
+    private final PostingExecutor postingExecutor;
+
+    public DailyAggregateService(AccountDailyAggregateRepository aggregateRepository,
+                                 BankAccountRepository bankAccountRepository,
+                                 TransactionRepository transactionRepository,
+                                 HotAccountService hotAccountService,
+                                 PostingExecutor postingExecutor) {
+        this.aggregateRepository = aggregateRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.hotAccountService = hotAccountService;
+        this.postingExecutor = postingExecutor;
+    }
+
+    /**
+     * A debit posted on the locked account; its balance is already the balance after the debit
+     */
+    public void recordDebit(BankAccount account, LocalDate date, long amountCents) {
+        aggregateRepository.addPosting(account.getId(), date, 0, 0, amountCents, account.getBalanceCents());
+    }
+
+    /**
+     * A credit posted on the account; slot is the balance slot it went to, or -1 for the account row
+     */
+    public void recordCredit(BankAccount account, LocalDate date, long amountCents, int slot) {
+        aggregateRepository.addPosting(account.getId(), date, slot + 1, amountCents, 0, account.getBalanceCents());
+    }
+
+    /**
+     * For posting paths that update the account row with SQL: count transactions and amounts on the
+     * account's day, taking the balance from the row as updated so far in this transaction
+     */
+    public void addFromAccountRow(Long accountId, LocalDate date, long transactionCount, long inCents, long outCents) {
+        aggregateRepository.addFromAccountRow(accountId, date, transactionCount, inCents, outCents);
+    }
+
+    /**
+     * One row per day with activity between from and to (inclusive), oldest first
+     */
+    public List<DailyActivityDTO> getDailyActivity(Long accountId, LocalDate from, LocalDate to) {
+        return aggregateRepository.findDailyActivity(accountId, from, to).stream()
+                .map(DailyActivityDTO::fromActivity)
+                .toList();
+    }
+
+    /**
+     * Recompute the aggregates of every account from the ledger. Each account is rebuilt in its own
+     * transaction with its row (and slots) locked, so postings can carry on for the other accounts.
+     */
+    public RebuildResult rebuild() {
+        int accounts = 0;
+        int days = 0;
+        for (Long accountId : bankAccountRepository.findAllIds()) {
+            days += rebuildAccount(accountId);
+            accounts++;
+        }
+        return new RebuildResult(accounts, days);
+    }
+
+    // Walks the history newest first, starting from the current balance and undoing one transaction at
+    // a time, so every transaction's balance-after is known without a stored opening balance
+    private int rebuildAccount(Long accountId) {
+        return postingExecutor.execute(() -> {
+            BankAccount account = bankAccountRepository.findByIdForUpdate(accountId).orElse(null);
+            if (account == null) {
+                return 0;
+            }
+            if (account.isStriped()) {
+                hotAccountService.consolidate(account);
+            }
+
+            Map<LocalDate, AccountDailyAggregate> byDay = new HashMap<>();
+            long[] balance = {account.getBalanceCents()};
+            transactionRepository.forEachAccountRow(accountId, REBUILD_FETCH_SIZE, row -> {
+                LocalDate date = row.timestamp().toLocalDate();
+                AccountDailyAggregate aggregate = byDay.computeIfAbsent(date,
+                        day -> new AccountDailyAggregate(new AccountDailyAggregate.Key(accountId, day, 0)));
+                boolean outgoing = account.getIban().equals(row.fromIban());
+                if (outgoing) {
+                    aggregate.record(0, row.amountCents(), balance[0]);
+                    balance[0] += row.amountCents();
+                } else {
+                    aggregate.record(row.amountCents(), 0, balance[0]);
+                    balance[0] -= row.amountCents();
+                }
+            });
+
+            aggregateRepository.deleteByAccountId(accountId);
+            aggregateRepository.saveAll(new ArrayList<>(byDay.values()));
+            return byDay.size();
+        });
+    }
+}
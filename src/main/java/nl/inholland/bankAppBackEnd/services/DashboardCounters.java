@@ -0,0 +1,212 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.DTOs.DashboardStatsDTO;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The admin dashboard statistics as counters, so a dashboard poll reads four numbers instead of every
+ * user and account.
+ *
+ * The counters are counted once from the database (four COUNT queries) and from then on follow the
+ * committed changes: users created, approved or deleted ({@link UserChangedEvent}), accounts opened or
+ * closed ({@link ActiveAccountsChangedEvent}) and transactions posted ({@link TransactionPostedEvent}).
+ * A change that commits while the counts run may or may not be in them, so it is not replayed on top:
+ * the new counts replace the counters as they are and can be off by such a change until the periodic
+ * recount, which also picks up rows written past JPA (hand-made SQL, imports). Polls arriving while a
+ * count runs wait for that count instead of starting their own.
+ */
+@Service
+public class DashboardCounters {
+
+    private final UserRepository userRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+
+    // null until the first count
+    private Counts counts;
+    // The count in flight, shared by every poll waiting for it
+    private CompletableFuture<Counts> counting;
+
+    public DashboardCounters(UserRepository userRepository,
+                             BankAccountRepository bankAccountRepository,
+                             TransactionRepository transactionRepository) {
+        this.userRepository = userRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public DashboardStatsDTO getStats() {
+        synchronized (this) {
+            if (counts != null) {
+                return counts.toDto(LocalDate.now());
+            }
+        }
+        return recount().toDto(LocalDate.now());
+    }
+
+    @Scheduled(initialDelayString = "${bank.dashboard.reconcile.interval-minutes:15}",
+            fixedDelayString = "${bank.dashboard.reconcile.interval-minutes:15}",
+            timeUnit = TimeUnit.MINUTES)
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Count everything again and replace the counters; returns whether they had drifted
+     */
+    public boolean reconcile() {
+        Counts before;
+        synchronized (this) {
+            before = counts != null ? counts.copy() : null;
+        }
+        Counts after = recount();
+        return before != null && !before.sameAs(after);
+    }
+
+    // Starts a count, or joins the one already running
+    private Counts recount() {
+        CompletableFuture<Counts> flight;
+        boolean counter = false;
+        synchronized (this) {
+            if (counting == null) {
+                counting = new CompletableFuture<>();
+                counter = true;
+            }
+            flight = counting;
+        }
+        if (!counter) {
+            return await(flight);
+        }
+
+        try {
+            Counts counted = countFromDatabase();
+            Counts result;
+            synchronized (this) {
+                counts = counted;
+                result = counted.copy();
+                counting = null;
+            }
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                counting = null;
+            }
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Counts await(CompletableFuture<Counts> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counts countFromDatabase() {
+        LocalDate today = LocalDate.now();
+        Counts counted = new Counts(today);
+        counted.pendingApprovals = userRepository.countUnapprovedByRole(User.Role.USER);
+        counted.totalUsers = userRepository.count();
+        counted.activeAccounts = bankAccountRepository.countActive();
+        counted.todayTransactions = transactionRepository.countTransactionsByDate(today.atStartOfDay(),
+                today.atTime(LocalTime.MAX));
+        return counted;
+    }
+
+    // Applied to the live counters; before the first count there is nothing to move
+    private synchronized void apply(Consumer<Counts> change) {
+        if (counts != null) {
+            change.accept(counts);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUsersDelta() != 0 || event.getPendingApprovalsDelta() != 0) {
+            apply(counted -> {
+                counted.totalUsers += event.getUsersDelta();
+                counted.pendingApprovals += event.getPendingApprovalsDelta();
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActiveAccountsChanged(ActiveAccountsChangedEvent event) {
+        apply(counted -> counted.activeAccounts += event.getDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        if (event.getDate() != null) {
+            apply(counted -> counted.countTransaction(event.getDate()));
+        }
+    }
+
+    // Guarded by the enclosing instance
+    private static final class Counts {
+        private long pendingApprovals;
+        private long totalUsers;
+        private long activeAccounts;
+        private long todayTransactions;
+        // The day todayTransactions counts
+        private LocalDate day;
+
+        Counts(LocalDate day) {
+            this.day = day;
+        }
+
+        void countTransaction(LocalDate date) {
+            if (date.isAfter(day)) {
+                day = date;
+                todayTransactions = 0;
+            }
+            if (date.equals(day)) {
+                todayTransactions++;
+            }
+        }
+
+        long todayTransactions(LocalDate today) {
+            return today.equals(day) ? todayTransactions : 0;
+        }
+
+        Counts copy() {
+            Counts copy = new Counts(day);
+            copy.pendingApprovals = pendingApprovals;
+            copy.totalUsers = totalUsers;
+            copy.activeAccounts = activeAccounts;
+            copy.todayTransactions = todayTransactions;
+            return copy;
+        }
+
+        boolean sameAs(Counts other) {
+            LocalDate today = LocalDate.now();
+            return pendingApprovals == other.pendingApprovals && totalUsers == other.totalUsers
+                    && activeAccounts == other.activeAccounts
+                    && todayTransactions(today) == other.todayTransactions(today);
+        }
+
+        DashboardStatsDTO toDto(LocalDate today) {
+            return new DashboardStatsDTO((int) pendingApprovals, (int) totalUsers, (int) activeAccounts,
+                    (int) todayTransactions(today));
+        }
+    }
+}
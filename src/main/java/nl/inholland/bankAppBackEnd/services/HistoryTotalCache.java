@@ -0,0 +1,128 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate totals for paged transaction history, so the pages after the first do not each run the
+ * COUNT again.
+ *
+ * A total is cached per (user, normalized filter) together with the accounts it was counted over, and
+ * dropped once a posting on one of those accounts commits ({@link AccountsChangedEvent}). Totals over
+ * every account (admin history) are dropped on any posting. Writers that do not publish the event (the
+ * posting pipeline's write-behind) and counts racing a commit can leave a total stale, which is why
+ * every entry also expires after a fixed time.
+ */
+@Service
+public class HistoryTotalCache {
+
+    private record Key(Long userId, String filter) {
+    }
+
+    // accountIds == null: counted over every account
+    private record Entry(long total, Set<Long> accountIds, long expiresAtMillis) {
+    }
+
+    private final long ttlMillis;
+    private final Map<Key, Entry> totals;
+    private final Map<Long, Set<Key>> keysByAccount = new HashMap<>();
+    private final Set<Key> keysOverAllAccounts = new HashSet<>();
+
+    public HistoryTotalCache(@Value("${bank.history.total-cache.size:10000}") int cacheSize,
+                             @Value("${bank.history.total-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.totals = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > cacheSize) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached total, or count's result (cached for next time). accountIds are the accounts the total
+     * depends on, null for all of them.
+     */
+    public long total(Long userId, String filter, Collection<Long> accountIds, LongSupplier count) {
+        Key key = new Key(userId, filter);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry cached = totals.get(key);
+            if (cached != null && cached.expiresAtMillis() > now) {
+                return cached.total();
+            }
+        }
+
+        // Counted outside the lock; two callers missing at once simply both count
+        long total = count.getAsLong();
+        Entry entry = new Entry(total, accountIds == null ? null : Set.copyOf(accountIds), now + ttlMillis);
+        synchronized (this) {
+            Entry previous = totals.put(key, entry);
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            if (entry.accountIds() == null) {
+                keysOverAllAccounts.add(key);
+            } else {
+                for (Long accountId : entry.accountIds()) {
+                    keysByAccount.computeIfAbsent(accountId, id -> new HashSet<>()).add(key);
+                }
+            }
+        }
+        return total;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAccountsChanged(AccountsChangedEvent event) {
+        for (Key key : keysOverAllAccounts) {
+            totals.remove(key);
+        }
+        keysOverAllAccounts.clear();
+
+        for (Long accountId : event.getAccountIds()) {
+            Set<Key> keys = keysByAccount.remove(accountId);
+            if (keys == null) {
+                continue;
+            }
+            for (Key key : keys) {
+                Entry entry = totals.remove(key);
+                if (entry != null) {
+                    unindex(key, entry);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return totals.size();
+    }
+
+    private void unindex(Key key, Entry entry) {
+        if (entry.accountIds() == null) {
+            keysOverAllAccounts.remove(key);
+            return;
+        }
+        for (Long accountId : entry.accountIds()) {
+            Set<Key> keys = keysByAccount.get(accountId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByAccount.remove(accountId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import jakarta.annotation.PostConstruct;
+import nl.inholland.bankAppBackEnd.models.BalanceSlot;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BalanceSlotRepository;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in "hot account" mode for accounts that receive a constant flood of credits (merchant and
+ * collection accounts).
+ *
+ * A hot account has N {@link BalanceSlot} rows. Credits are added to one slot, picked by hashing the
+ * posting thread, and never lock the account row, so concurrent credits spread over N rows instead of
+ * queueing on one. Debits still lock the account row; they check the consolidated balance (row plus
+ * slots, see {@link BankAccount#getBalanceCents()}) and move the slots into the row when the row alone
+ * cannot cover the amount. Slots only ever grow between those moves, so a consolidated balance read
+ * without locking the slots can be too low but never too high.
+ */
+@Service
+public class HotAccountService {
+
+    static final int MAX_SLOTS = 64;
+
+    private final BalanceSlotRepository balanceSlotRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final PostingExecutor postingExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // IBANs of striped accounts; TransactionService leaves these out of its row locks when crediting
+    private final Set<String> hotIbans = ConcurrentHashMap.newKeySet();
+
+    public HotAccountService(BalanceSlotRepository balanceSlotRepository,
+                             BankAccountRepository bankAccountRepository,
+                             PostingExecutor postingExecutor,
+                             ApplicationEventPublisher eventPublisher) {
+        this.balanceSlotRepository = balanceSlotRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.postingExecutor = postingExecutor;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void loadHotAccounts() {
+        hotIbans.addAll(bankAccountRepository.findStripedIbans());
+    }
+
+    public boolean isHot(String iban) {
+        return iban != null && hotIbans.contains(iban);
+    }
+
+    /**
+     * Credit a striped account through one of its slots. The account does not need to be locked.
+     * at is the timestamp of the posting, for the account's activity counters. Returns the slot credited.
+     */
+    public int creditSlot(BankAccount account, long amountCents, LocalDateTime at) {
+        int slot = slotFor(account.getBalanceSlots());
+        if (balanceSlotRepository.credit(account.getId(), slot, amountCents, at) != 1) {
+            // Slot count changed since the account was read; the posting is retried from the start
+            throw new OptimisticLockingFailureException("Balance slots of account " + account.getIban() + " changed");
+        }
+        account.creditSlot(amountCents, at);
+        return slot;
+    }
+
+    /**
+     * Move every slot of a locked striped account into the account row. The consolidated balance
+     * and activity counters do not change.
+     */
+    public void consolidate(BankAccount lockedAccount) {
+        consolidateSlots(lockedAccount);
+    }
+
+    // Returns the slots, now locked and empty
+    private List<BalanceSlot> consolidateSlots(BankAccount lockedAccount) {
+        List<BalanceSlot> slots = balanceSlotRepository.findAllByAccountIdForUpdate(lockedAccount.getId());
+        lockedAccount.consolidateSlots(slots);
+        bankAccountRepository.save(lockedAccount);
+        return slots;
+    }
+
+    /**
+     * Turn hot account mode on with the given number of slots, change the number of slots, or turn it
+     * off with 0. Existing slots are consolidated into the account row first.
+     */
+    public TransactionService.TransferResult setBalanceSlots(String iban, int slots, User initiatedBy) {
+        if (initiatedBy.getRole() != User.Role.ADMIN) {
+            return new TransactionService.TransferResult(false, "❌ Only administrators can change hot account mode");
+        }
+        if (slots < 0 || slots > MAX_SLOTS) {
+            return new TransactionService.TransferResult(false,
+                    String.format("❌ Number of balance slots must be between 0 and %d", MAX_SLOTS));
+        }
+
+        return postingExecutor.execute(() -> {
+            List<Long> ids = bankAccountRepository.findIdsByIbanIn(List.of(iban));
+            BankAccount account = ids.isEmpty() ? null
+                    : bankAccountRepository.findByIdForUpdate(ids.get(0)).orElse(null);
+            if (account == null) {
+                return new TransactionService.TransferResult(false, "❌ Account not found");
+            }
+
+            // Keep the (now empty) slots that still fit and only create the missing ones; inserts are
+            // flushed before deletes, so re-creating a slot number would hit the unique key
+            Set<Integer> kept = new HashSet<>();
+            if (account.isStriped()) {
+                for (BalanceSlot slot : consolidateSlots(account)) {
+                    if (slot.getSlot() < slots) {
+                        kept.add(slot.getSlot());
+                    } else {
+                        balanceSlotRepository.delete(slot);
+                    }
+                }
+            }
+            List<BalanceSlot> created = new ArrayList<>();
+            for (int i = 0; i < slots; i++) {
+                if (!kept.contains(i)) {
+                    created.add(new BalanceSlot(account.getId(), i));
+                }
+            }
+            balanceSlotRepository.saveAll(created);
+            account.setBalanceSlots(slots);
+            bankAccountRepository.save(account);
+
+            if (slots > 0) {
+                hotIbans.add(iban);
+            } else {
+                hotIbans.remove(iban);
+            }
+            eventPublisher.publishEvent(new AccountsChangedEvent(Set.of(account.getId())));
+
+            return new TransactionService.TransferResult(true, slots > 0
+                    ? String.format("✅ Account %s now spreads credits over %d balance slots", iban, slots)
+                    : String.format("✅ Hot account mode turned off for account %s", iban));
+        });
+    }
+
+    // Concurrent postings run on different threads, so hashing the thread spreads them over the slots
+    private static int slotFor(int slots) {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return Math.floorMod((int) (h ^ (h >>> 32)), slots);
+    }
+}
@@ -0,0 +1,284 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nl.inholland.bankAppBackEnd.models.IdempotencyRecord;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for posting endpoints.
+ *
+ * The first request with a key runs the posting and stores its response; repeats get that stored
+ * response back without the posting (or any account row) being touched again. Recent keys are served
+ * from a bounded in-memory LRU, older ones from the idempotency_key table. A duplicate that arrives
+ * while the first request is still running waits for it instead of racing it.
+ *
+ * The key is inserted as PENDING inside the transaction of the first posting the request commits
+ * (on {@link TransactionPostedEvent}, before commit), and completed with the response afterwards. If the
+ * response is never stored (crash, serialization or database failure), a retry finds the PENDING key
+ * and gets 409 instead of posting again; if another instance holds the key, the posting rolls back.
+ * For a batch that is the first chunk that commits. Requests that posted nothing (rejections) and
+ * postings written behind on other threads (posting pipeline, async submissions) store their key right
+ * after the response, and only responses below 500 are stored then, so they can be retried for real.
+ *
+ * The request body is stored as a hash; a key reused with another body or endpoint answers 422.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final long WAIT_TIMEOUT_SECONDS = 30;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    // Map keys sorted, so the same body always hashes the same whatever order its fields came in
+    private final ObjectWriter canonicalWriter;
+    private final Map<String, IdempotencyRecord> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    // Key of the request this thread is running the posting for
+    private final ThreadLocal<Claim> claims = new ThreadLocal<>();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${bank.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    private static final class Claim {
+        final String key;
+        final String operation;
+        final String requestHash;
+        // Inserted by a posting transaction that has not rolled back
+        volatile boolean inserted;
+        // The insert found the key taken by another request
+        volatile boolean taken;
+
+        Claim(String key, String operation, String requestHash) {
+            this.key = key;
+            this.operation = operation;
+            this.requestHash = requestHash;
+        }
+    }
+
+    /**
+     * Run the posting once per (user, key); without a key it simply runs
+     */
+    public ResponseEntity<?> execute(String idempotencyKey, User user, String operation, Object request,
+                                     Supplier<ResponseEntity<?>> posting) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return posting.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "❌ " + HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = user.getId() + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        while (true) {
+            IdempotencyRecord cached = getRecent(key);
+            if (cached != null) {
+                return replay(cached, operation, requestHash);
+            }
+
+            CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                IdempotencyRecord first;
+                try {
+                    first = running.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    return error(HttpStatus.CONFLICT, "❌ A request with this " + HEADER + " is still being processed");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for duplicate request", e);
+                } catch (ExecutionException e) {
+                    first = null;
+                }
+                if (first != null) {
+                    return replay(first, operation, requestHash);
+                }
+                // The first request left nothing to replay; try to run it ourselves
+                continue;
+            }
+
+            IdempotencyRecord stored = null;
+            try {
+                stored = idempotencyRecordRepository.findById(key).orElse(null);
+                if (stored != null) {
+                    remember(stored);
+                    return replay(stored, operation, requestHash);
+                }
+
+                Claim claim = new Claim(key, operation, requestHash);
+                ResponseEntity<?> response;
+                claims.set(claim);
+                try {
+                    response = posting.get();
+                } finally {
+                    claims.remove();
+                }
+                if (claim.taken) {
+                    // Another request committed this key first; our posting was rolled back
+                    stored = idempotencyRecordRepository.findById(key).orElse(null);
+                    return stored != null ? replay(stored, operation, requestHash) : error(HttpStatus.CONFLICT,
+                            "❌ A request with this " + HEADER + " is still being processed");
+                }
+                stored = store(claim, response);
+                return response;
+            } finally {
+                mine.complete(stored);
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    /**
+     * Inserts the key of the request this thread is posting for, inside the posting's transaction
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransactionPosted(TransactionPostedEvent event) {
+        Claim claim = claims.get();
+        if (claim == null || claim.inserted) {
+            return;
+        }
+        try {
+            idempotencyRecordRepository.insert(claim.key, claim.operation, claim.requestHash,
+                    IdempotencyRecord.State.PENDING.name(), null, null, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            claim.taken = true;
+            throw e;
+        }
+        claim.inserted = true;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // Rolled back with its posting; a later posting of the same request inserts it
+                        claim.inserted = false;
+                    }
+                }
+            });
+        }
+    }
+
+    private IdempotencyRecord store(Claim claim, ResponseEntity<?> response) {
+        IdempotencyRecord pending = new IdempotencyRecord(claim.key, claim.operation, claim.requestHash,
+                IdempotencyRecord.State.PENDING, null, null);
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException e) {
+            // A committed posting keeps its PENDING key, so a retry still cannot post again
+            return claim.inserted ? pending : null;
+        }
+        IdempotencyRecord record = new IdempotencyRecord(claim.key, claim.operation, claim.requestHash,
+                IdempotencyRecord.State.COMPLETED, response.getStatusCode().value(), body);
+
+        if (claim.inserted) {
+            // The posting committed, so whatever it answered is the answer, 5xx included
+            try {
+                idempotencyRecordRepository.complete(claim.key, record.getStatusCode(), body);
+            } catch (RuntimeException e) {
+                return pending;
+            }
+        } else {
+            if (response.getStatusCode().is5xxServerError()) {
+                return null;
+            }
+            try {
+                idempotencyRecordRepository.insert(claim.key, claim.operation, claim.requestHash,
+                        IdempotencyRecord.State.COMPLETED.name(), record.getStatusCode(), body, record.getCreatedAt());
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored this key first; its response is the one that counts
+                return idempotencyRecordRepository.findById(claim.key).orElse(null);
+            }
+        }
+        remember(record);
+        return record;
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String operation, String requestHash) {
+        if (!record.getOperation().equals(operation)
+                || (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash))) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "❌ This " + HEADER + " was already used for a different request");
+        }
+        if (record.getState() == IdempotencyRecord.State.PENDING) {
+            boolean recent = record.getCreatedAt().isAfter(LocalDateTime.now().minusSeconds(WAIT_TIMEOUT_SECONDS));
+            return error(HttpStatus.CONFLICT, recent
+                    ? "❌ A request with this " + HEADER + " is still being processed"
+                    : "❌ A request with this " + HEADER + " was already processed; its response is not available");
+        }
+        try {
+            return ResponseEntity.status(record.getStatusCode())
+                    .header("Idempotent-Replayed", "true")
+                    .body(objectMapper.readTree(record.getResponseBody()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key is not valid JSON", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = canonicalWriter.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash request body for " + HEADER, e);
+        }
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("success", false, "message", message));
+    }
+
+    private IdempotencyRecord getRecent(String key) {
+        synchronized (recent) {
+            return recent.get(key);
+        }
+    }
+
+    // Only completed keys are kept in memory; a PENDING one is read again until it completes
+    private void remember(IdempotencyRecord record) {
+        if (record.getState() != IdempotencyRecord.State.COMPLETED) {
+            return;
+        }
+        synchronized (recent) {
+            recent.put(record.getKey(), record);
+        }
+    }
+}
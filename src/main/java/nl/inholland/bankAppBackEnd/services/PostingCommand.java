@@ -0,0 +1,94 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.Money;
+import nl.inholland.bankAppBackEnd.models.User;
+
+/**
+ * One money-moving request as it goes through the posting pipeline in {@link TransactionService}:
+ * resolve → authorize → validate limits → apply → record.
+ *
+ * Every posting operation (transfers, deposits, withdrawals, their ATM variants) is a PostingCommand;
+ * what differs between them is described by the {@link Operation}, not by separate code paths.
+ */
+public final class PostingCommand {
+
+    public enum Operation {
+        TRANSFER("TRANSFER", true, true),
+        INTERNAL_TRANSFER("INTERNAL_TRANSFER", true, true),
+        DEPOSIT("DEPOSIT", false, true),
+        WITHDRAWAL("WITHDRAWAL", true, false),
+        ATM_TRANSFER("TRANSFER", true, true),
+        ATM_DEPOSIT("DEPOSIT", false, true),
+        ATM_WITHDRAWAL("WITHDRAWAL", true, false);
+
+        private final String transactionType;
+        private final boolean debits;
+        private final boolean credits;
+
+        Operation(String transactionType, boolean debits, boolean credits) {
+            this.transactionType = transactionType;
+            this.debits = debits;
+            this.credits = credits;
+        }
+
+        // Type stored on the Transaction row
+        public String getTransactionType() { return transactionType; }
+        // Has a source account that is debited
+        public boolean debits() { return debits; }
+        // Has a destination account that is credited
+        public boolean credits() { return credits; }
+
+        public boolean isAtm() {
+            return this == ATM_TRANSFER || this == ATM_DEPOSIT || this == ATM_WITHDRAWAL;
+        }
+    }
+
+    private final Operation operation;
+    private final String fromIban;
+    private final String toIban;
+    private final long amountCents;
+    private final User initiatedBy;
+
+    private PostingCommand(Operation operation, String fromIban, String toIban, Double amount, User initiatedBy) {
+        this.operation = operation;
+        this.fromIban = fromIban;
+        this.toIban = toIban;
+        // 0 when missing, not positive or below one cent; rejected by the pipeline
+        this.amountCents = amount == null || amount <= 0 ? 0 : Money.toCents(amount);
+        this.initiatedBy = initiatedBy;
+    }
+
+    public static PostingCommand transfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.TRANSFER, fromIban, toIban, amount, initiatedBy);
+    }
+
+    public static PostingCommand internalTransfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.INTERNAL_TRANSFER, fromIban, toIban, amount, initiatedBy);
+    }
+
+    public static PostingCommand deposit(String iban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.DEPOSIT, null, iban, amount, initiatedBy);
+    }
+
+    public static PostingCommand withdrawal(String iban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.WITHDRAWAL, iban, null, amount, initiatedBy);
+    }
+
+    public static PostingCommand atmTransfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.ATM_TRANSFER, fromIban, toIban, amount, initiatedBy);
+    }
+
+    public static PostingCommand atmDeposit(String iban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.ATM_DEPOSIT, null, iban, amount, initiatedBy);
+    }
+
+    public static PostingCommand atmWithdrawal(String iban, Double amount, User initiatedBy) {
+        return new PostingCommand(Operation.ATM_WITHDRAWAL, iban, null, amount, initiatedBy);
+    }
+
+    public Operation getOperation() { return operation; }
+    public String getFromIban() { return fromIban; }
+    public String getToIban() { return toIban; }
+    public long getAmountCents() { return amountCents; }
+    public User getInitiatedBy() { return initiatedBy; }
+}
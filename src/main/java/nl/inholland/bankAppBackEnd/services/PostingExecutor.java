@@ -0,0 +1,58 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a posting in its own transaction and retries it when it loses a race for an account row
+ * (lock timeout, deadlock victim or stale @Version). Retries use a short, jittered exponential backoff
+ * and give up after {@link #MAX_ATTEMPTS}.
+ */
+@Component
+public class PostingExecutor {
+
+    static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MS = 5;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PostingExecutor(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(Supplier<T> posting) {
+        // Nested postings (e.g. atmTransfer -> transferFunds) join the caller's transaction;
+        // only the outermost call can roll back and retry as a whole
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return posting.get();
+        }
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> posting.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt++);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long maxDelay = BASE_BACKOFF_MS << attempt;
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MS, maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying posting", e);
+        }
+    }
+}
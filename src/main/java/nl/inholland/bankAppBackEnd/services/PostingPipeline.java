@@ -0,0 +1,490 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Money;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Optional high-throughput mode for customer transfers ({@code bank.posting.pipeline.enabled=true}).
+ *
+ * Accounts are partitioned by id over N single-writer partitions. Each partition owns the in-memory
+ * state of its accounts and is the only thread that reads or changes it, so validation and posting
+ * need no locks. A transfer is queued on the partition of its source account; that partition
+ * validates and debits, then forwards the credit to the partition of the destination account.
+ * Each partition writes its changes behind to the database in micro-batches (one transaction per
+ * batch) and only answers a request once the batch holding its debit is committed.
+ *
+ * Trade-off: the debit and the credit of a cross-partition transfer are committed in separate
+ * batches. Postings made outside the pipeline (ATM, deposits, admin tools) are committed as usual
+ * and evict the affected accounts here through {@link AccountsChangedEvent}. Until that eviction
+ * arrives a partition may validate against an older balance, so the write-behind checks again that
+ * every debited row still covers its batch ({@link BankAccountRepository#applyPostingDelta}) and fails
+ * the whole batch if not; its accounts are reloaded for the next one. The daily limit is only checked
+ * against the partition's own state.
+ */
+@Service
+@ConditionalOnProperty(name = "bank.posting.pipeline.enabled", havingValue = "true")
+public class PostingPipeline {
+
+    private static final long RESPONSE_TIMEOUT_SECONDS = 30;
+
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DailyAggregateService dailyAggregateService;
+    // IBAN to id only; the account state itself is only ever held by the owning partition
+    private final AccountSnapshotCache accountSnapshotCache;
+
+    private final Partition[] partitions;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    public PostingPipeline(BankAccountRepository bankAccountRepository,
+                           TransactionRepository transactionRepository,
+                           TransactionService transactionService,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           DailyAggregateService dailyAggregateService,
+                           AccountSnapshotCache accountSnapshotCache,
+                           @Value("${bank.posting.pipeline.partitions:0}") int partitionCount,
+                           @Value("${bank.posting.pipeline.ring-size:4096}") int ringSize,
+                           @Value("${bank.posting.pipeline.batch-size:256}") int batchSize,
+                           @Value("${bank.posting.pipeline.flush-interval-ms:2}") long flushIntervalMs) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionService = transactionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.dailyAggregateService = dailyAggregateService;
+        this.accountSnapshotCache = accountSnapshotCache;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(i, ringSize);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Partition partition : partitions) {
+            partition.writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Partition partition : partitions) {
+            partition.running = false;
+            partition.wake();
+        }
+        for (Partition partition : partitions) {
+            partition.writer.join(TimeUnit.SECONDS.toMillis(RESPONSE_TIMEOUT_SECONDS));
+        }
+    }
+
+    /**
+     * Same contract as {@link TransactionService#transferFunds}, but posted through the pipeline
+     */
+    public TransactionService.TransferResult transfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        long cents = amount == null || amount <= 0 ? 0 : Money.toCents(amount);
+        if (cents <= 0) {
+            return new TransactionService.TransferResult(false, "❌ Transfer amount must be greater than zero");
+        }
+
+        Long fromId = resolve(fromIban);
+        if (fromId == null) {
+            return new TransactionService.TransferResult(false, "❌ Source account not found");
+        }
+        Long toId = resolve(toIban);
+        if (toId == null) {
+            return new TransactionService.TransferResult(false, "❌ Destination account not found");
+        }
+
+        TransferEvent event = new TransferEvent(fromId, toId, toIban, cents, initiatedBy);
+        try {
+            partitionOf(fromId).ring.put(event);
+            return event.reply.get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for posting", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Posting failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Posting timed out", e);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onAccountsChanged(AccountsChangedEvent event) {
+        for (Long accountId : event.getAccountIds()) {
+            partitionOf(accountId).inbox(new EvictEvent(accountId));
+        }
+    }
+
+    private Long resolve(String iban) {
+        return accountSnapshotCache.idOf(iban, bankAccountRepository::findByIban).orElse(null);
+    }
+
+    private Partition partitionOf(Long accountId) {
+        return partitions[(int) Math.floorMod(accountId, (long) partitions.length)];
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    // ===================== EVENTS =====================
+
+    private interface Event {
+    }
+
+    private static final class TransferEvent implements Event {
+        final Long fromId;
+        final Long toId;
+        final String toIban;
+        final long amount;
+        final User initiatedBy;
+        final CompletableFuture<TransactionService.TransferResult> reply = new CompletableFuture<>();
+
+        TransferEvent(Long fromId, Long toId, String toIban, long amount, User initiatedBy) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.toIban = toIban;
+            this.amount = amount;
+            this.initiatedBy = initiatedBy;
+        }
+    }
+
+    // Forwarded credit; a negative amount reverses a credit whose debit could not be written
+    private record CreditEvent(Long accountId, long amount) implements Event {
+    }
+
+    private record EvictEvent(Long accountId) implements Event {
+    }
+
+    private static final Event WAKE_UP = new Event() {
+    };
+
+    // ===================== PARTITION =====================
+
+    private final class Partition {
+
+        // External submissions go through the bounded ring (back-pressure on request threads).
+        // Traffic between partitions uses an unbounded inbox so two writers can never block on each other.
+        final ArrayBlockingQueue<Event> ring;
+        final ConcurrentLinkedQueue<Event> inbox = new ConcurrentLinkedQueue<>();
+        final Thread writer;
+        volatile boolean running = true;
+
+        // Owned by the writer thread only
+        private final Map<Long, BankAccount> accounts = new HashMap<>();
+        private final Map<Long, long[]> pendingDeltas = new HashMap<>();
+        // Credits forwarded by other partitions; their debits are already committed, so these are
+        // kept and retried when a batch fails instead of being dropped
+        private final Map<Long, Long> pendingCredits = new HashMap<>();
+        private final List<Transaction> pendingTransactions = new ArrayList<>();
+        private final List<TransferEvent> pendingReplies = new ArrayList<>();
+        private final List<Event> drained = new ArrayList<>();
+
+        Partition(int index, int ringSize) {
+            this.ring = new ArrayBlockingQueue<>(ringSize);
+            this.writer = new Thread(this::run, "posting-writer-" + index);
+            this.writer.setDaemon(true);
+        }
+
+        void inbox(Event event) {
+            inbox.add(event);
+            wake();
+        }
+
+        void wake() {
+            ring.offer(WAKE_UP);
+        }
+
+        private void run() {
+            while (running || !ring.isEmpty() || !inbox.isEmpty()) {
+                try {
+                    Event first = ring.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        drained.add(first);
+                        ring.drainTo(drained, batchSize - 1);
+                    }
+                    Event internal;
+                    while ((internal = inbox.poll()) != null) {
+                        handle(internal);
+                    }
+                    for (Event event : drained) {
+                        handle(event);
+                    }
+
+                    // Flush when the batch is full or the ring has gone quiet
+                    if (pendingReplies.size() >= batchSize || ring.isEmpty()) {
+                        flush();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                } catch (RuntimeException e) {
+                    failPending(e);
+                    // Transfers of this round not posted yet; completing an answered reply again does nothing
+                    for (Event event : drained) {
+                        if (event instanceof TransferEvent transfer) {
+                            transfer.reply.completeExceptionally(e);
+                        }
+                    }
+                } finally {
+                    // Every drained event is handled exactly once, whatever happened to the round
+                    drained.clear();
+                }
+            }
+            flush();
+        }
+
+        private void handle(Event event) {
+            if (event instanceof TransferEvent transfer) {
+                try {
+                    post(transfer);
+                } catch (RuntimeException e) {
+                    // post() reads everything it needs before it changes anything, so only this transfer fails
+                    transfer.reply.completeExceptionally(e);
+                }
+            } else if (event instanceof CreditEvent credit) {
+                // Its debit is committed, so the credit is kept without reading the account; account()
+                // adds pending credits when it loads the account later
+                BankAccount account = accounts.get(credit.accountId());
+                if (account != null) {
+                    account.credit(credit.amount());
+                }
+                pendingCredits.merge(credit.accountId(), credit.amount(), Long::sum);
+            } else if (event instanceof EvictEvent evict) {
+                // Write our own pending changes first so the reload sees them
+                if (pendingDeltas.containsKey(evict.accountId()) || pendingCredits.containsKey(evict.accountId())) {
+                    flush();
+                }
+                accounts.remove(evict.accountId());
+            }
+        }
+
+        private void post(TransferEvent event) {
+            BankAccount from = account(event.fromId);
+            if (from == null) {
+                event.reply.complete(new TransactionService.TransferResult(false, "❌ Source account not found"));
+                return;
+            }
+
+            LocalDate today = LocalDate.now();
+            TransactionService.TransferResult rejection = validate(from, event, today);
+            if (rejection != null) {
+                event.reply.complete(rejection);
+                return;
+            }
+
+            // A destination on another partition is loaded with the batch that writes this debit
+            Partition target = partitionOf(event.toId);
+            BankAccount to = target == this ? account(event.toId) : null;
+            if (target == this && to == null) {
+                event.reply.complete(new TransactionService.TransferResult(false, "❌ Destination account not found"));
+                return;
+            }
+
+            from.debit(event.amount);
+            from.addToDailySpentCents(event.amount, today);
+            delta(from.getId(), -event.amount, event.amount);
+            if (to != null) {
+                to.credit(event.amount);
+                delta(to.getId(), event.amount, 0);
+            } else {
+                target.inbox(new CreditEvent(event.toId, event.amount));
+            }
+
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount(from);
+            transaction.setToAccount(to);
+            transaction.setAmountCents(event.amount);
+            transaction.setTransactionType("TRANSFER");
+            transaction.setTimestamp(LocalDateTime.now());
+            transaction.setInitiatedByUser(event.initiatedBy);
+            pendingTransactions.add(transaction);
+            pendingReplies.add(event);
+        }
+
+        private TransactionService.TransferResult validate(BankAccount from, TransferEvent event, LocalDate today) {
+            if (from.getType() != BankAccount.AccountType.CHECKING) {
+                return new TransactionService.TransferResult(false, "❌ Transfers can only be made from checking accounts");
+            }
+            if (event.initiatedBy.getRole() == User.Role.USER
+                    && !from.getOwner().getId().equals(event.initiatedBy.getId())) {
+                return new TransactionService.TransferResult(false, "❌ You can only transfer from your own accounts");
+            }
+            if (from.getId().equals(event.toId)) {
+                return new TransactionService.TransferResult(false, "❌ Cannot transfer to the same account");
+            }
+            TransactionService.TransferResult limits =
+                    transactionService.validateTransferLimits(from, event.amount, event.initiatedBy, today);
+            return limits.isSuccess() ? null : limits;
+        }
+
+        private BankAccount account(Long accountId) {
+            BankAccount account = accounts.get(accountId);
+            if (account == null) {
+                account = bankAccountRepository.findById(accountId).orElse(null);
+                if (account != null) {
+                    // Credits still waiting to be written are part of the balance already
+                    account.credit(pendingCredits.getOrDefault(accountId, 0L));
+                    accounts.put(accountId, account);
+                }
+            }
+            return account;
+        }
+
+        private void delta(Long accountId, long balanceDelta, long spentDelta) {
+            long[] delta = pendingDeltas.computeIfAbsent(accountId, id -> new long[2]);
+            delta[0] += balanceDelta;
+            delta[1] += spentDelta;
+        }
+
+        private void flush() {
+            if (pendingDeltas.isEmpty() && pendingCredits.isEmpty() && pendingTransactions.isEmpty()) {
+                return;
+            }
+            try {
+                LocalDate today = LocalDate.now();
+                // Per account: balance, spent, transaction count, total in, total out
+                Map<Long, long[]> batch = new HashMap<>();
+                pendingDeltas.forEach((id, delta) -> batch.put(id, new long[]{delta[0], delta[1], 0, 0, 0}));
+                pendingCredits.forEach((id, amount) -> batch.computeIfAbsent(id, k -> new long[5])[0] += amount);
+                // Activity is counted from the transaction rows of this batch, so it commits with them even
+                // for credits whose balance another partition writes
+                Map<Long, LocalDateTime> lastActivity = new HashMap<>();
+                // Per account and day: transaction count, total in, total out
+                Map<Long, Map<LocalDate, long[]>> daily = new HashMap<>();
+                for (int i = 0; i < pendingTransactions.size(); i++) {
+                    Transaction transaction = pendingTransactions.get(i);
+                    Long fromId = transaction.getFromAccount().getId();
+                    Long toId = pendingReplies.get(i).toId;
+                    long amount = transaction.getAmountCents();
+                    LocalDate date = transaction.getTimestamp().toLocalDate();
+                    long[] out = batch.computeIfAbsent(fromId, k -> new long[5]);
+                    out[2]++;
+                    out[4] += amount;
+                    long[] in = batch.computeIfAbsent(toId, k -> new long[5]);
+                    in[2]++;
+                    in[3] += amount;
+                    lastActivity.merge(fromId, transaction.getTimestamp(), PostingPipeline::latest);
+                    lastActivity.merge(toId, transaction.getTimestamp(), PostingPipeline::latest);
+                    long[] outOnDay = daily.computeIfAbsent(fromId, k -> new HashMap<>()).computeIfAbsent(date, k -> new long[3]);
+                    outOnDay[0]++;
+                    outOnDay[2] += amount;
+                    long[] inOnDay = daily.computeIfAbsent(toId, k -> new HashMap<>()).computeIfAbsent(date, k -> new long[3]);
+                    inOnDay[0]++;
+                    inOnDay[1] += amount;
+                }
+
+                // Group commit: every transaction row of the batch goes out in one JDBC batch
+                transactionTemplate.executeWithoutResult(status -> {
+                    batch.forEach((id, delta) -> {
+                        int updated = bankAccountRepository.applyPostingDelta(id, delta[0], delta[1],
+                                delta[2], delta[3], delta[4], lastActivity.get(id), today);
+                        if (updated != 1 && delta[4] > 0) {
+                            throw new IllegalStateException("Account " + id
+                                    + " no longer covers its debits; it changed outside the posting pipeline");
+                        }
+                    });
+                    loadDestinations();
+                    // Every one of these rows is locked by its delta above. The balances seen are the rows as of
+                    // this batch, so daily min/max only reflect the balance at each write-behind
+                    daily.forEach((id, days) -> days.forEach((date, day) ->
+                            dailyAggregateService.addFromAccountRow(id, date, day[0], day[1], day[2])));
+                    transactionRepository.saveAll(pendingTransactions);
+                    // Recent-activity views only; the pipeline's own account state needs no AccountsChangedEvent
+                    pendingTransactions.forEach(tx -> eventPublisher.publishEvent(new TransactionPostedEvent(tx)));
+                });
+                pendingCredits.clear();
+                for (int i = 0; i < pendingReplies.size(); i++) {
+                    TransferEvent event = pendingReplies.get(i);
+                    event.reply.complete(new TransactionService.TransferResult(true,
+                            String.format("✅ Successfully transferred €%.2f from %s to %s",
+                                    Money.toDecimal(event.amount), pendingTransactions.get(i).getFromAccount().getIban(),
+                                    event.toIban),
+                            pendingTransactions.get(i)));
+                }
+                clearPending();
+            } catch (RuntimeException e) {
+                failPending(e);
+            }
+        }
+
+        /**
+         * Destinations owned by other partitions, read in one query inside the batch transaction so the
+         * transaction rows reference (and the replies show) the accounts as committed with it
+         */
+        private void loadDestinations() {
+            Set<Long> missing = new HashSet<>();
+            for (int i = 0; i < pendingTransactions.size(); i++) {
+                if (pendingTransactions.get(i).getToAccount() == null) {
+                    missing.add(pendingReplies.get(i).toId);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            Map<Long, BankAccount> loaded = new HashMap<>();
+            bankAccountRepository.findAllById(missing).forEach(account -> loaded.put(account.getId(), account));
+            for (int i = 0; i < pendingTransactions.size(); i++) {
+                if (pendingTransactions.get(i).getToAccount() == null) {
+                    pendingTransactions.get(i).setToAccount(loaded.get(pendingReplies.get(i).toId));
+                }
+            }
+        }
+
+        /**
+         * The batch did not reach the database: forget the in-memory state it touched (it is reloaded
+         * on next use), undo credits already forwarded to other partitions and fail the callers.
+         */
+        private void failPending(RuntimeException cause) {
+            for (Long accountId : pendingDeltas.keySet()) {
+                accounts.remove(accountId);
+            }
+            for (Long accountId : pendingCredits.keySet()) {
+                accounts.remove(accountId);
+            }
+            for (int i = 0; i < pendingReplies.size(); i++) {
+                TransferEvent event = pendingReplies.get(i);
+                Partition target = partitionOf(event.toId);
+                if (target != this) {
+                    target.inbox(new CreditEvent(event.toId, -event.amount));
+                }
+                event.reply.completeExceptionally(cause);
+            }
+            clearPending();
+        }
+
+        private void clearPending() {
+            pendingDeltas.clear();
+            pendingTransactions.clear();
+            pendingReplies.clear();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Ids of each user's most recent own transactions (initiated by them, on one of their accounts),
+ * newest first, for the ATM "recent transactions" screen.
+ *
+ * A user's ring is loaded from the database on first use, holding up to capacity ids, and from then
+ * on every committed posting by that user is pushed onto it ({@link TransactionPostedEvent}), dropping
+ * the oldest. Postings that commit while a ring is being loaded are kept aside and pushed once the
+ * load completes, so they are not lost between the query and the seeding.
+ */
+@Service
+public class RecentTransactionCache {
+
+    private final int capacity;
+    private final Map<Long, Ring> rings;
+    // Users whose ring is being loaded, with the postings committed meanwhile
+    private final Map<Long, List<Long>> loading = new HashMap<>();
+
+    public RecentTransactionCache(@Value("${bank.atm.recent.capacity:20}") int capacity,
+                                  @Value("${bank.atm.recent.cache-size:10000}") int cacheSize) {
+        this.capacity = capacity;
+        this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Ring> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Up to limit (at most capacity) ids, newest first. On a miss, load(capacity) must return the
+     * user's newest ids from the database, newest first; they seed the ring.
+     */
+    public List<Long> recentIds(Long userId, int limit, IntFunction<List<Long>> load) {
+        boolean seeding;
+        synchronized (this) {
+            Ring ring = rings.get(userId);
+            if (ring != null) {
+                return ring.newest(limit);
+            }
+            // A second reader missing at the same time loads too, but only the first one seeds
+            seeding = loading.putIfAbsent(userId, new ArrayList<>()) == null;
+        }
+
+        List<Long> loaded;
+        try {
+            loaded = load.apply(capacity);
+        } catch (RuntimeException e) {
+            if (seeding) {
+                synchronized (this) {
+                    loading.remove(userId);
+                }
+            }
+            throw e;
+        }
+
+        if (seeding) {
+            synchronized (this) {
+                Ring ring = new Ring(capacity);
+                for (int i = Math.min(loaded.size(), capacity) - 1; i >= 0; i--) {
+                    ring.push(loaded.get(i));
+                }
+                for (Long postedMeanwhile : loading.remove(userId)) {
+                    ring.push(postedMeanwhile);
+                }
+                rings.put(userId, ring);
+                return ring.newest(limit);
+            }
+        }
+        return loaded.subList(0, Math.min(limit, loaded.size()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTransactionPosted(TransactionPostedEvent event) {
+        if (!event.isOwnAccount() || event.getTransactionId() == null) {
+            return;
+        }
+        Ring ring = rings.get(event.getInitiatedByUserId());
+        if (ring != null) {
+            ring.push(event.getTransactionId());
+            return;
+        }
+        List<Long> pending = loading.get(event.getInitiatedByUserId());
+        if (pending != null) {
+            pending.add(event.getTransactionId());
+        }
+    }
+
+    public synchronized int size() {
+        return rings.size();
+    }
+
+    // Fixed-size ring of ids; next is where the newest id goes
+    private static final class Ring {
+        private final long[] ids;
+        private int next;
+        private int size;
+
+        Ring(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        void push(long id) {
+            if (ids.length == 0 || contains(id)) {
+                return;
+            }
+            ids[next] = id;
+            next = (next + 1) % ids.length;
+            size = Math.min(size + 1, ids.length);
+        }
+
+        private boolean contains(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[(next - 1 - i + ids.length) % ids.length] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<Long> newest(int limit) {
+            int count = Math.min(limit, size);
+            List<Long> newest = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                newest.add(ids[(next - 1 - i + ids.length) % ids.length]);
+            }
+            return newest;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Current token version per user (see User#getTokenVersion()), so checking an access token does not
+ * read the user on every request.
+ *
+ * A version is loaded on first use and kept until the user changes ({@link UserChangedEvent}, after
+ * commit). A load that overlaps such a change may have read the old version; it answers its own check
+ * but is not kept, so the next check reads the committed one.
+ */
+@Service
+public class TokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Long> versions;
+    // Bumped on every eviction, to tell whether one happened while a version was being loaded
+    private long evictions;
+
+    public TokenVersionCache(UserRepository userRepository,
+                             @Value("${bank.auth.token-version.cache-size:10000}") int cacheSize) {
+        this.userRepository = userRepository;
+        this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Whether a token issued with tokenVersion is still current; false for a user that no longer exists
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        Long current;
+        long evictionsBefore;
+        synchronized (this) {
+            current = versions.get(userId);
+            evictionsBefore = evictions;
+        }
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId).orElse(null);
+            if (current == null) {
+                return false;
+            }
+            synchronized (this) {
+                if (evictions == evictionsBefore) {
+                    versions.put(userId, current);
+                }
+            }
+        }
+        return current == tokenVersion;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        versions.remove(event.getUserId());
+        evictions++;
+    }
+
+    public synchronized int size() {
+        return versions.size();
+    }
+}
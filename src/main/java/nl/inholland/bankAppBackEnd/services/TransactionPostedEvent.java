@@ -0,0 +1,67 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Published for every transaction row a posting writes, once its id is assigned. Listeners that keep
+ * per-user views of recent activity use it to add the transaction once it is committed; copies of
+ * account state use it to drop the accounts it touched, and the dashboard to count it.
+ */
+public class TransactionPostedEvent {
+
+    private final Long transactionId;
+    private final Long initiatedByUserId;
+    private final boolean ownAccount;
+    private final Set<Long> accountIds;
+    private final LocalDate date;
+
+    public TransactionPostedEvent(Transaction transaction) {
+        this.transactionId = transaction.getId();
+        this.initiatedByUserId = transaction.getInitiatedByUser() != null ? transaction.getInitiatedByUser().getId() : null;
+        this.ownAccount = initiatedByUserId != null
+                && (ownedBy(transaction.getFromAccount(), initiatedByUserId) || ownedBy(transaction.getToAccount(), initiatedByUserId));
+        Set<Long> ids = new HashSet<>();
+        addId(ids, transaction.getFromAccount());
+        addId(ids, transaction.getToAccount());
+        this.accountIds = Set.copyOf(ids);
+        this.date = transaction.getTimestamp() != null ? transaction.getTimestamp().toLocalDate() : null;
+    }
+
+    private static void addId(Set<Long> ids, BankAccount account) {
+        if (account != null && account.getId() != null) {
+            ids.add(account.getId());
+        }
+    }
+
+    private static boolean ownedBy(BankAccount account, Long userId) {
+        return account != null && account.getOwner() != null && userId.equals(account.getOwner().getId());
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public Long getInitiatedByUserId() {
+        return initiatedByUserId;
+    }
+
+    // The accounts debited or credited (one for ATM postings)
+    public Set<Long> getAccountIds() {
+        return accountIds;
+    }
+
+    // The day the transaction was posted on
+    public LocalDate getDate() {
+        return date;
+    }
+
+    // Whether the initiator posted on one of their own accounts (not an employee acting for a customer)
+    public boolean isOwnAccount() {
+        return ownAccount;
+    }
+}
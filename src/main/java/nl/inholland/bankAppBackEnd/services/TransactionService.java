@@ -2,14 +2,23 @@ package nl.inholland.bankAppBackEnd.services;
 
 import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
 import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Money;
 import nl.inholland.bankAppBackEnd.models.Transaction;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionHistoryRepository;
 import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRow;
+import nl.inholland.bankAppBackEnd.repository.TransactionSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,19 +27,44 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static nl.inholland.bankAppBackEnd.repository.TransactionSpecifications.*;
+
 @Service
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final BankAccountRepository bankAccountRepository;
+    private final PostingExecutor postingExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HotAccountService hotAccountService;
+    private final HistoryTotalCache historyTotalCache;
+    private final RecentTransactionCache recentTransactionCache;
+    private final DailyAggregateService dailyAggregateService;
+    private final AccountSnapshotCache accountSnapshotCache;
 
     @Autowired
     public TransactionService(TransactionRepository transactionRepository,
-                              BankAccountRepository bankAccountRepository) {
+                              BankAccountRepository bankAccountRepository,
+                              PostingExecutor postingExecutor,
+                              ApplicationEventPublisher eventPublisher,
+                              HotAccountService hotAccountService,
+                              HistoryTotalCache historyTotalCache,
+                              RecentTransactionCache recentTransactionCache,
+                              DailyAggregateService dailyAggregateService,
+                              AccountSnapshotCache accountSnapshotCache) {
         this.transactionRepository = transactionRepository;
         this.bankAccountRepository = bankAccountRepository;
+        this.postingExecutor = postingExecutor;
+        this.eventPublisher = eventPublisher;
+        this.hotAccountService = hotAccountService;
+        this.historyTotalCache = historyTotalCache;
+        this.recentTransactionCache = recentTransactionCache;
+        this.dailyAggregateService = dailyAggregateService;
+        this.accountSnapshotCache = accountSnapshotCache;
     }
 
     // Basic CRUD operations
@@ -50,19 +84,17 @@ public class TransactionService {
         return transactionRepository.findById(id);
     }
 
-    private String determineDirection(Transaction tx, List<String> userIbans) {
-        boolean isFromUserAccount = tx.getFromAccount() != null &&
-                userIbans.contains(tx.getFromAccount().getIban());
-        boolean isToUserAccount = tx.getToAccount() != null &&
-                userIbans.contains(tx.getToAccount().getIban());
+    private String determineDirection(TransactionRow tx, List<String> userIbans) {
+        boolean isFromUserAccount = tx.fromIban() != null && userIbans.contains(tx.fromIban());
+        boolean isToUserAccount = tx.toIban() != null && userIbans.contains(tx.toIban());
 
         // Handle deposit cases - fromAccount is null
-        if (tx.getFromAccount() == null && tx.getToAccount() != null && userIbans.contains(tx.getToAccount().getIban())) {
+        if (tx.fromIban() == null && isToUserAccount) {
             return "Incoming";
         }
 
         // Handle withdrawal cases - toAccount is null
-        if (tx.getToAccount() == null && tx.getFromAccount() != null && userIbans.contains(tx.getFromAccount().getIban())) {
+        if (tx.toIban() == null && isFromUserAccount) {
             return "Outgoing";
         }
 
@@ -83,77 +115,57 @@ public class TransactionService {
 
     // Convert Transaction to TransactionDTO
     private TransactionDTO convertToDTO(Transaction transaction, List<String> userIbans) {
-        TransactionDTO dto = new TransactionDTO();
+        return convertToDTO(TransactionRow.of(transaction), userIbans);
+    }
 
-        dto.setId(transaction.getId());
-        dto.setAmount(transaction.getAmount());
+    private TransactionDTO convertToDTO(TransactionRow row, List<String> userIbans) {
+        TransactionDTO dto = new TransactionDTO();
 
-        // Simplify ATM transaction types for user display
-        String description = transaction.getTransactionType();
-        if (description.equals("WITHDRAWAL")) {
-            description = "Withdrawal";
-        } else if (description.equals("DEPOSIT")) {
-            description = "Deposit";
-        } else if (description.equals("TRANSFER")) {
-            description = "Transfer";
-        }
-        dto.setDescription(description);
+        dto.setId(row.id());
+        dto.setAmount(row.amount());
+        dto.setDescription(displayType(row.transactionType()));
 
-        // Set IBANs, handle null values properly
-        dto.setFromIban(transaction.getFromAccount() != null ? transaction.getFromAccount().getIban() : null);
-        dto.setToIban(transaction.getToAccount() != null ? transaction.getToAccount().getIban() : null);
+        // Set IBANs, null for the cash side of deposits and withdrawals
+        dto.setFromIban(row.fromIban());
+        dto.setToIban(row.toIban());
 
         // Set timestamp with both date and time
-        dto.setDate(transaction.getTimestamp() != null ?
-                transaction.getTimestamp().format(DateTimeFormatter.ISO_DATE_TIME) : null);
-
-        // Set initiated by
-        dto.setInitiatedBy(transaction.getInitiatedByUser() != null ?
-                transaction.getInitiatedByUser().getUsername() : null);
+        dto.setDate(row.timestamp() != null ? row.timestamp().format(DateTimeFormatter.ISO_DATE_TIME) : null);
+        dto.setInitiatedBy(row.initiatedBy());
 
         // Add direction information
-        String direction = determineDirection(transaction, userIbans);
+        String direction = determineDirection(row, userIbans);
         dto.setDirection(direction);
 
         // Add signed amount
-        Double signedAmount = determineSignedAmount(direction, transaction.getAmount());
-        dto.setSignedAmount(signedAmount);
+        dto.setSignedAmount(determineSignedAmount(direction, row.amount()));
 
         return dto;
     }
 
     // Convert Transaction to TransactionDTO for admin view (all transactions)
     public TransactionDTO convertToAdminDTO(Transaction transaction) {
-        TransactionDTO dto = new TransactionDTO();
-
-        dto.setId(transaction.getId());
-        dto.setAmount(transaction.getAmount());
+        return convertToAdminDTO(TransactionRow.of(transaction));
+    }
 
-        // Simplify ATM transaction types for admin display
-        String description = transaction.getTransactionType();
-        if (description.equals("WITHDRAWAL")) {
-            description = "Withdrawal";
-        } else if (description.equals("DEPOSIT")) {
-            description = "Deposit";
-        } else if (description.equals("TRANSFER")) {
-            description = "Transfer";
-        }
-        dto.setDescription(description);
+    public TransactionDTO convertToAdminDTO(TransactionRow row) {
+        TransactionDTO dto = new TransactionDTO();
 
-        dto.setFromIban(transaction.getFromAccount() != null ? transaction.getFromAccount().getIban() : null);
-        dto.setToIban(transaction.getToAccount() != null ? transaction.getToAccount().getIban() : null);
-        dto.setDate(transaction.getTimestamp() != null ?
-                transaction.getTimestamp().format(DateTimeFormatter.ISO_DATE_TIME) : null);
-        dto.setInitiatedBy(transaction.getInitiatedByUser() != null ?
-                transaction.getInitiatedByUser().getUsername() : null);
+        dto.setId(row.id());
+        dto.setAmount(row.amount());
+        dto.setDescription(displayType(row.transactionType()));
+        dto.setFromIban(row.fromIban());
+        dto.setToIban(row.toIban());
+        dto.setDate(row.timestamp() != null ? row.timestamp().format(DateTimeFormatter.ISO_DATE_TIME) : null);
+        dto.setInitiatedBy(row.initiatedBy());
 
         // For admin view, determine transaction direction based on transaction type
         String direction;
-        if (transaction.getFromAccount() == null && transaction.getToAccount() != null) {
+        if (row.fromIban() == null && row.toIban() != null) {
             direction = "Deposit";
-        } else if (transaction.getToAccount() == null && transaction.getFromAccount() != null) {
+        } else if (row.toIban() == null && row.fromIban() != null) {
             direction = "Withdrawal";
-        } else if (transaction.getFromAccount() != null && transaction.getToAccount() != null) {
+        } else if (row.fromIban() != null && row.toIban() != null) {
             direction = "Transfer";
         } else {
             direction = "Unknown";
@@ -163,14 +175,24 @@ public class TransactionService {
 
         // For admin, show actual amount (positive for deposits, negative for withdrawals)
         if (direction.equals("Withdrawal")) {
-            dto.setSignedAmount(-transaction.getAmount());
+            dto.setSignedAmount(-row.amount());
         } else {
-            dto.setSignedAmount(transaction.getAmount());
+            dto.setSignedAmount(row.amount());
         }
 
         return dto;
     }
 
+    // Simplify ATM transaction types for display
+    private String displayType(String transactionType) {
+        return switch (transactionType) {
+            case "WITHDRAWAL" -> "Withdrawal";
+            case "DEPOSIT" -> "Deposit";
+            case "TRANSFER" -> "Transfer";
+            default -> transactionType;
+        };
+    }
+
     /**
      * Get filtered transactions with direction information for a user with pagination
      */
@@ -178,38 +200,11 @@ public class TransactionService {
             User user, String iban, String ibanType, Double amount, String comparator,
             String start, String end, Pageable pageable) {
 
-        List<String> userIbans = getUserIbans(user);
-
-        // Parse filter parameters
-        Double minAmount = null, maxAmount = null, exactAmount = null;
-        if (amount != null && comparator != null) {
-            switch (comparator) {
-                case ">": minAmount = amount; break;
-                case "<": maxAmount = amount; break;
-                case "=": exactAmount = amount; break;
-            }
-        }
-
-        // Parse dates
-        LocalDateTime startDate = null, endDate = null;
-        if (start != null && !start.isEmpty()) {
-            startDate = LocalDate.parse(start, DateTimeFormatter.ISO_DATE).atStartOfDay();
-        }
-        if (end != null && !end.isEmpty()) {
-            endDate = LocalDate.parse(end, DateTimeFormatter.ISO_DATE).atTime(LocalTime.MAX);
-        }
-
-        // Get filtered transactions from repository
-        Page<Transaction> transactionsPage = transactionRepository.findFilteredByUser(
-                user, iban, ibanType, minAmount, maxAmount, exactAmount, startDate, endDate, pageable);
-
-        // Convert to DTOs with direction info
-        List<TransactionDTO> dtoList = new ArrayList<>();
-        for (Transaction tx : transactionsPage.getContent()) {
-            dtoList.add(convertToDTO(tx, userIbans));
-        }
-
-        return new PageImpl<>(dtoList, pageable, transactionsPage.getTotalElements());
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, null);
+        return ownerHistoryPage(user, accounts, filter, pageable, HistoryReader.ROWS)
+                .map(row -> convertToDTO(row, userIbans));
     }
 
     // Non-paginated version for backward compatibility
@@ -235,15 +230,10 @@ public class TransactionService {
 
     // Get user transactions with direction info (paginated)
     public Page<TransactionDTO> getTransactionsWithDirectionByUser(User user, Pageable pageable) {
-        List<String> userIbans = getUserIbans(user);
-        Page<Transaction> transactionsPage = transactionRepository.findByAccountOwner(user, pageable);
-
-        List<TransactionDTO> transactionDTOs = new ArrayList<>();
-        for (Transaction tx : transactionsPage.getContent()) {
-            transactionDTOs.add(convertToDTO(tx, userIbans));
-        }
-
-        return new PageImpl<>(transactionDTOs, pageable, transactionsPage.getTotalElements());
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        return ownerHistoryPage(user, accounts, HistoryFilter.ALL, pageable, HistoryReader.ROWS)
+                .map(row -> convertToDTO(row, userIbans));
     }
 
     // Non-paginated version for backward compatibility
@@ -270,27 +260,327 @@ public class TransactionService {
             String iban, String ibanType, Double amount, String comparator,
             String start, String end, String initiatedBy, Pageable pageable) {
 
-        // Parse filter parameters
-        Double minAmount = null, maxAmount = null, exactAmount = null;
-        if (amount != null && comparator != null) {
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, initiatedBy);
+        return historyPage(filter, pageable, HistoryReader.ENTITIES);
+    }
+
+    /**
+     * The admin listing of {@link #getFilteredTransactions(String, String, Double, String, String, String, String, Pageable)},
+     * read as rows instead of entities
+     */
+    public Page<TransactionDTO> getFilteredTransactionDTOs(
+            String iban, String ibanType, Double amount, String comparator,
+            String start, String end, String initiatedBy, Pageable pageable) {
+
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, initiatedBy);
+        return historyPage(filter, pageable, HistoryReader.ROWS).map(this::convertToAdminDTO);
+    }
+
+    private <T> Page<T> historyPage(HistoryFilter filter, Pageable pageable, HistoryReader<T> reader) {
+        if (filter.matchesNothing()) {
+            return Page.empty(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(reader.find(transactionRepository, filter.specification(), 0, Integer.MAX_VALUE));
+        }
+        List<T> content = reader.find(transactionRepository, filter.specification(), pageable.getOffset(), pageable.getPageSize());
+        // Admin totals span every account, so any posting drops them
+        return PageableExecutionUtils.getPage(content, pageable, () -> historyTotalCache.total(
+                null, filter.key(), null, () -> transactionRepository.count(filter.specification())));
+    }
+
+    // ===================== SLICES (NO TOTALS) =====================
+
+    /**
+     * {@link #getFilteredTransactionsWithDirection(User, String, String, Double, String, String, String, Pageable)}
+     * without the total: one extra row tells whether there is a next page, and no COUNT runs
+     */
+    public Slice<TransactionDTO> getFilteredTransactionsWithDirectionSlice(
+            User user, String iban, String ibanType, Double amount, String comparator,
+            String start, String end, Pageable pageable) {
+
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, null);
+        return ownerHistorySlice(accounts, filter, pageable, HistoryReader.ROWS).map(row -> convertToDTO(row, userIbans));
+    }
+
+    public Slice<TransactionDTO> getTransactionsWithDirectionByUserSlice(User user, Pageable pageable) {
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        return ownerHistorySlice(accounts, HistoryFilter.ALL, pageable, HistoryReader.ROWS)
+                .map(row -> convertToDTO(row, userIbans));
+    }
+
+    public Slice<TransactionDTO> getFilteredTransactionsSlice(
+            String iban, String ibanType, Double amount, String comparator,
+            String start, String end, String initiatedBy, Pageable pageable) {
+
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, initiatedBy);
+        if (filter.matchesNothing() || pageable.isUnpaged()) {
+            return historyPage(filter, pageable, HistoryReader.ROWS).map(this::convertToAdminDTO);
+        }
+        List<TransactionRow> rows = transactionRepository.findHistoryRows(
+                filter.specification(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext)
+                .map(this::convertToAdminDTO);
+    }
+
+    // ===================== KEYSET PAGINATION =====================
+
+    /**
+     * One page of history in (timestamp DESC, id DESC) order; nextCursor is null on the last page
+     */
+    public record CursorPage<T>(List<T> content, String nextCursor) {
+    }
+
+    /**
+     * Keyset version of {@link #getFilteredTransactionsWithDirection(User, String, String, Double, String, String, String, Pageable)}
+     */
+    public CursorPage<TransactionDTO> getFilteredTransactionsWithDirection(
+            User user, String iban, String ibanType, Double amount, String comparator,
+            String start, String end, TransactionCursor cursor, int size) {
+
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, null);
+        List<TransactionRow> rows = filter.matchesNothing()
+                ? List.of()
+                : ownerHistory(accounts, filter, cursor, size + 1, HistoryReader.ROWS);
+        return toCursorPage(rows, size, row -> convertToDTO(row, userIbans));
+    }
+
+    /**
+     * Keyset version of {@link #getTransactionsWithDirectionByUser(User, Pageable)}
+     */
+    public CursorPage<TransactionDTO> getTransactionsWithDirectionByUser(User user, TransactionCursor cursor, int size) {
+        List<BankAccount> accounts = bankAccountRepository.findAllByOwner(user);
+        List<String> userIbans = accounts.stream().map(BankAccount::getIban).toList();
+        List<TransactionRow> rows = ownerHistory(accounts, HistoryFilter.ALL, cursor, size + 1, HistoryReader.ROWS);
+        return toCursorPage(rows, size, row -> convertToDTO(row, userIbans));
+    }
+
+    /**
+     * Keyset version of the admin {@link #getFilteredTransactions(String, String, Double, String, String, String, String, Pageable)}
+     */
+    public CursorPage<TransactionDTO> getFilteredTransactions(
+            String iban, String ibanType, Double amount, String comparator,
+            String start, String end, String initiatedBy, TransactionCursor cursor, int size) {
+
+        HistoryFilter filter = historyFilter(iban, ibanType, amount, comparator, start, end, initiatedBy);
+        List<TransactionRow> rows = filter.matchesNothing() ? List.of() : transactionRepository.findHistoryRows(
+                filter.specification().and(before(cursor.timestamp(), cursor.id())), 0, size + 1);
+        return toCursorPage(rows, size, this::convertToAdminDTO);
+    }
+
+    // rows holds up to size + 1 transactions; the extra one only tells whether there is a next page
+    private <T> CursorPage<T> toCursorPage(List<TransactionRow> rows, int size, Function<TransactionRow, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<TransactionRow> page = hasNext ? rows.subList(0, size) : rows;
+
+        List<T> content = new ArrayList<>(page.size());
+        for (TransactionRow row : page) {
+            content.add(mapper.apply(row));
+        }
+        String nextCursor = hasNext ? TransactionCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    // ===================== OWNER HISTORY =====================
+
+    // Offset paging over the merged owner history: the first offset + size + 1 rows are merged and the
+    // page is cut from their tail. Deep pages cost more, as with any OFFSET; the cursor version does not
+    private <T> Slice<T> ownerHistorySlice(List<BankAccount> accounts, HistoryFilter filter, Pageable pageable,
+                                           HistoryReader<T> reader) {
+        if (accounts.isEmpty() || filter.matchesNothing()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(ownerHistory(accounts, filter, TransactionCursor.FIRST, Integer.MAX_VALUE, reader));
+        }
+        long end = pageable.getOffset() + pageable.getPageSize();
+        List<T> rows = ownerHistory(accounts, filter, TransactionCursor.FIRST, (int) Math.min(end + 1, Integer.MAX_VALUE), reader);
+        List<T> content = pageable.getOffset() >= rows.size()
+                ? List.of()
+                : rows.subList((int) pageable.getOffset(), (int) Math.min(end, rows.size()));
+        return new SliceImpl<>(content, pageable, rows.size() > end);
+    }
+
+    private <T> Page<T> ownerHistoryPage(User user, List<BankAccount> accounts, HistoryFilter filter, Pageable pageable,
+                                         HistoryReader<T> reader) {
+        Slice<T> slice = ownerHistorySlice(accounts, filter, pageable, reader);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(slice.getContent());
+        }
+        if (accounts.isEmpty() || filter.matchesNothing()) {
+            return Page.empty(pageable);
+        }
+
+        // Outgoing + incoming - transfers between the owner's own accounts, each count served by an IN on an
+        // index; cached until a posting on one of the accounts commits
+        List<Long> accountIds = accounts.stream().map(BankAccount::getId).toList();
+        Specification<Transaction> matching = filter.specification();
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable, () -> historyTotalCache.total(
+                user.getId(), filter.key(), accountIds, () ->
+                        transactionRepository.count(fromAccountIn(accountIds).and(matching))
+                                + transactionRepository.count(toAccountIn(accountIds).and(matching))
+                                - transactionRepository.count(fromAccountIn(accountIds).and(toAccountIn(accountIds)).and(matching))));
+    }
+
+    /**
+     * Up to limit transactions touching any of the accounts that match the filter, after the cursor, in
+     * (timestamp DESC, id DESC) order. Instead of one query with "from owned OR to owned", which no index can serve, every account
+     * contributes an outgoing and an incoming stream, each an ordered range scan of at most limit rows,
+     * and the streams are merged until limit rows are taken. A transfer between two of the owner's own
+     * accounts shows up in two streams with the same position, so it is taken once.
+     */
+    private <T> List<T> ownerHistory(List<BankAccount> accounts, HistoryFilter filter,
+                                     TransactionCursor after, int limit, HistoryReader<T> reader) {
+        Specification<Transaction> matching = filter.specification().and(before(after.timestamp(), after.id()));
+        Comparator<T> newestFirst = reader.newestFirst();
+        PriorityQueue<HistoryStream<T>> heads = new PriorityQueue<>(
+                Math.max(1, accounts.size() * 2), (a, b) -> newestFirst.compare(a.head(), b.head()));
+        for (BankAccount account : accounts) {
+            HistoryStream<T> outgoing = new HistoryStream<>(reader.find(
+                    transactionRepository, fromAccount(account.getId()).and(matching), 0, limit));
+            HistoryStream<T> incoming = new HistoryStream<>(reader.find(
+                    transactionRepository, toAccount(account.getId()).and(matching), 0, limit));
+            if (outgoing.hasHead()) {
+                heads.add(outgoing);
+            }
+            if (incoming.hasHead()) {
+                heads.add(incoming);
+            }
+        }
+
+        List<T> merged = new ArrayList<>(Math.min(limit, 64));
+        Long lastId = null;
+        while (merged.size() < limit && !heads.isEmpty()) {
+            HistoryStream<T> newest = heads.poll();
+            T row = newest.take();
+            Long id = reader.id().apply(row);
+            if (!id.equals(lastId)) {
+                merged.add(row);
+                lastId = id;
+            }
+            if (newest.hasHead()) {
+                heads.add(newest);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * What a history read returns: entities, for callers that need them, or the rows a listing shows. Both
+     * come from the same specification and order, so the merge and the paging work on either.
+     */
+    private record HistoryReader<T>(HistoryQuery<T> query,
+                                     Function<T, LocalDateTime> timestamp,
+                                     Function<T, Long> id) {
+
+        static final HistoryReader<Transaction> ENTITIES = new HistoryReader<>(
+                TransactionHistoryRepository::findHistory, Transaction::getTimestamp, Transaction::getId);
+        static final HistoryReader<TransactionRow> ROWS = new HistoryReader<>(
+                TransactionHistoryRepository::findHistoryRows, TransactionRow::timestamp, TransactionRow::id);
+
+        List<T> find(TransactionHistoryRepository repository, Specification<Transaction> specification,
+                     long offset, int limit) {
+            return query.find(repository, specification, offset, limit);
+        }
+
+        // Same order as the history queries: timestamp DESC, id DESC
+        Comparator<T> newestFirst() {
+            return Comparator.comparing(timestamp).thenComparing(id).reversed();
+        }
+    }
+
+    @FunctionalInterface
+    private interface HistoryQuery<T> {
+        List<T> find(TransactionHistoryRepository repository, Specification<Transaction> specification,
+                     long offset, int limit);
+    }
+
+    // Rows of one range scan, already in newest-first order
+    private static final class HistoryStream<T> {
+        private final List<T> rows;
+        private int position;
+
+        HistoryStream(List<T> rows) {
+            this.rows = rows;
+        }
+
+        boolean hasHead() {
+            return position < rows.size();
+        }
+
+        T head() {
+            return rows.get(position);
+        }
+
+        T take() {
+            return rows.get(position++);
+        }
+    }
+
+    // The history filters that are actually set, as one specification; matchesNothing when a filter
+    // refers to an account that does not exist or to an unknown IBAN type. key is the normalized filter
+    // (resolved ids, cents, dates), so equivalent requests share a cached total
+    private record HistoryFilter(Specification<Transaction> specification, boolean matchesNothing, String key) {
+
+        static final HistoryFilter ALL = new HistoryFilter(Specification.allOf(), false, "");
+        static final HistoryFilter NOTHING = new HistoryFilter(Specification.allOf(), true, "none");
+    }
+
+    private HistoryFilter historyFilter(String iban, String ibanType, Double amount, String comparator,
+                                        String start, String end, String initiatedBy) {
+        List<Specification<Transaction>> filters = new ArrayList<>();
+        StringJoiner key = new StringJoiner(";");
+
+        // The IBAN is resolved to its account id up front, so the filter is a plain indexed column
+        if (iban != null && ibanType != null) {
+            Optional<Long> accountId = accountSnapshotCache.idOf(iban, bankAccountRepository::findByIban);
+            if (accountId.isEmpty()) {
+                return HistoryFilter.NOTHING;
+            }
+            switch (ibanType) {
+                case "from": filters.add(fromAccount(accountId.get())); break;
+                case "to": filters.add(toAccount(accountId.get())); break;
+                case "both": filters.add(fromOrToAccount(accountId.get())); break;
+                default: return HistoryFilter.NOTHING;
+            }
+            key.add(ibanType + "=" + accountId.get());
+        }
+
+        // Exact cents, so "=" is a reliable equality match
+        Long cents = amount != null && comparator != null ? Money.toCentsOrNull(amount) : null;
+        if (cents != null) {
             switch (comparator) {
-                case ">": minAmount = amount; break;
-                case "<": maxAmount = amount; break;
-                case "=": exactAmount = amount; break;
+                case ">": filters.add(amountAtLeast(cents)); break;
+                case "<": filters.add(amountAtMost(cents)); break;
+                case "=": filters.add(amountEquals(cents)); break;
+                default: cents = null;
+            }
+            if (cents != null) {
+                key.add(comparator + cents);
             }
         }
 
-        // Parse dates
-        LocalDateTime startDate = null, endDate = null;
         if (start != null && !start.isEmpty()) {
-            startDate = LocalDate.parse(start, DateTimeFormatter.ISO_DATE).atStartOfDay();
+            LocalDate startDate = LocalDate.parse(start, DateTimeFormatter.ISO_DATE);
+            filters.add(onOrAfter(startDate.atStartOfDay()));
+            key.add("start=" + startDate);
         }
         if (end != null && !end.isEmpty()) {
-            endDate = LocalDate.parse(end, DateTimeFormatter.ISO_DATE).atTime(LocalTime.MAX);
+            LocalDate endDate = LocalDate.parse(end, DateTimeFormatter.ISO_DATE);
+            filters.add(onOrBefore(endDate.atTime(LocalTime.MAX)));
+            key.add("end=" + endDate);
         }
-
-        return transactionRepository.findFiltered(
-                iban, ibanType, minAmount, maxAmount, exactAmount, startDate, endDate, initiatedBy, pageable);
+        if (initiatedBy != null) {
+            filters.add(TransactionSpecifications.initiatedBy(initiatedBy));
+            key.add("by=" + initiatedBy);
+        }
+        return new HistoryFilter(Specification.allOf(filters), false, key.toString());
     }
 
     // Legacy methods maintained for backward compatibility
@@ -317,7 +607,8 @@ public class TransactionService {
 
     // Get transactions for a specific user with pagination
     public Page<Transaction> getTransactionsByUser(User user, Pageable pageable) {
-        return transactionRepository.findByAccountOwner(user, pageable);
+        return ownerHistoryPage(user, bankAccountRepository.findAllByOwner(user), HistoryFilter.ALL, pageable,
+                HistoryReader.ENTITIES);
     }
 
     // Get transactions for a user
@@ -360,272 +651,428 @@ public class TransactionService {
         public Transaction getTransaction() { return transaction; }
     }
 
-    /**
-     * Helper method to validate account access for a user
-     */
-    private TransferResult validateAccountAccess(BankAccount account, User user, String action) {
-        if (account == null) {
-            return new TransferResult(false, "❌ Account not found");
+    // Outcome of the posting pipeline: a rejection message, or the posted accounts and transaction
+    private record Posting(String rejection, BankAccount from, BankAccount to, Transaction transaction) {
+        static Posting rejected(String message) {
+            return new Posting(message, null, null, null);
         }
 
-        // Regular users can only access their own accounts
-        if (user.getRole() == User.Role.USER && !account.getOwner().getId().equals(user.getId())) {
-            return new TransferResult(false, "❌ You can only " + action + " your own accounts");
+        boolean isSuccess() {
+            return rejection == null;
         }
-
-        return new TransferResult(true, "Access validated");
     }
 
+    private static final long ATM_MAX_DEPOSIT_CENTS = 200_000;
+    private static final long ATM_MAX_TRANSFER_CENTS = 100_000;
+
+    // Rows per round trip when scrolling an account's full history
+    private static final int STREAM_FETCH_SIZE = 500;
+
     /**
-     * Create and save a transaction record
+     * The posting pipeline every money-moving operation goes through:
+     * resolve → authorize → validate limits → apply → record.
+     *
+     * Accounts are read exactly once, by the single locking query in resolve, and never re-read.
+     * The saves in apply only hand back rows that are already managed (no SQL); the account updates
+     * and the transaction insert go out together in the one flush at commit.
      */
-    private Transaction createTransactionRecord(BankAccount fromAccount, BankAccount toAccount,
-                                                Double amount, String transactionType, User initiatedBy) {
-        Transaction transaction = new Transaction();
-        transaction.setFromAccount(fromAccount);
-        transaction.setToAccount(toAccount);
-        transaction.setAmount(amount);
-        transaction.setTransactionType(transactionType);
-        transaction.setTimestamp(LocalDateTime.now());
-        transaction.setInitiatedByUser(initiatedBy);
-
-        return transactionRepository.save(transaction);
+    private Posting post(PostingCommand command) {
+        String rejection = validateAmount(command);
+        if (rejection != null) {
+            return Posting.rejected(rejection);
+        }
+
+        // Resolve
+        PostingCommand.Operation operation = command.getOperation();
+        Map<String, BankAccount> accounts = resolveAccounts(
+                operation.debits() ? Collections.singletonList(command.getFromIban()) : List.of(),
+                operation.credits() ? Collections.singletonList(command.getToIban()) : List.of());
+        return process(command, accounts, LocalDate.now());
     }
 
-    @Transactional
-    public TransferResult transferFunds(String fromIban, String toIban, Double amount, User initiatedBy) {
-        // Validate inputs
-        if (amount == null || amount <= 0) {
-            return new TransferResult(false, "❌ Transfer amount must be greater than zero");
-        }
+    /**
+     * Pipeline without the resolve step, for callers that locked the accounts themselves
+     * ({@link BulkTransferService} locks a whole chunk at once)
+     */
+    TransferResult postLocked(PostingCommand command, Map<String, BankAccount> lockedAccounts, LocalDate today) {
+        String rejection = validateAmount(command);
+        Posting posting = rejection != null ? Posting.rejected(rejection) : process(command, lockedAccounts, today);
+        return toTransferResult(command, posting);
+    }
 
-        // Find accounts
-        Optional<BankAccount> fromAccountOpt = bankAccountRepository.findByIban(fromIban);
-        Optional<BankAccount> toAccountOpt = bankAccountRepository.findByIban(toIban);
+    private Posting process(PostingCommand command, Map<String, BankAccount> accounts, LocalDate today) {
+        PostingCommand.Operation operation = command.getOperation();
+        BankAccount from = operation.debits() ? accounts.get(command.getFromIban()) : null;
+        BankAccount to = operation.credits() ? accounts.get(command.getToIban()) : null;
 
-        if (fromAccountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Source account not found");
+        String rejection = checkResolved(operation, from, to);
+        if (rejection == null) {
+            rejection = authorize(command, from, to);
         }
-        if (toAccountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Destination account not found");
+        if (rejection == null) {
+            rejection = validateLimits(command, from, today);
         }
-
-        BankAccount fromAccount = fromAccountOpt.get();
-        BankAccount toAccount = toAccountOpt.get();
-
-        // Validate account types - can only transfer from checking accounts
-        if (fromAccount.getType() != BankAccount.AccountType.CHECKING) {
-            return new TransferResult(false, "❌ Transfers can only be made from checking accounts");
+        if (rejection != null) {
+            return Posting.rejected(rejection);
         }
 
-        // For customer transfers, verify ownership
-        if (initiatedBy.getRole() == User.Role.USER) {
-            TransferResult accessResult = validateAccountAccess(fromAccount, initiatedBy, "transfer from");
-            if (!accessResult.isSuccess()) {
-                return accessResult;
+        // Apply
+        long cents = command.getAmountCents();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = now.toLocalDate();
+        if (from != null) {
+            // A hot account row may not cover the debit on its own; move its slots in first
+            if (from.isStriped() && from.getMainBalanceCents() < cents) {
+                hotAccountService.consolidate(from);
+            }
+            from.debit(cents);
+            from.recordDebit(cents, now);
+            // Moving money between your own accounts does not count towards the daily limit
+            if (operation != PostingCommand.Operation.INTERNAL_TRANSFER) {
+                from.addToDailySpentCents(cents, today);
+            }
+            bankAccountRepository.save(from);
+            dailyAggregateService.recordDebit(from, date, cents);
+        }
+        if (to != null) {
+            if (to.isStriped()) {
+                // Hot account: the credit goes to a balance slot, the account row stays untouched
+                int slot = hotAccountService.creditSlot(to, cents, now);
+                dailyAggregateService.recordCredit(to, date, cents, slot);
+            } else {
+                to.credit(cents);
+                to.recordCredit(cents, now);
+                bankAccountRepository.save(to);
+                dailyAggregateService.recordCredit(to, date, cents, -1);
             }
         }
 
-        // Check if same account
-        if (fromAccount.getId().equals(toAccount.getId())) {
-            return new TransferResult(false, "❌ Cannot transfer to the same account");
-        }
+        // Record
+        Transaction transaction = createTransactionRecord(from, to, cents,
+                operation.getTransactionType(), command.getInitiatedBy(), now);
+        return new Posting(null, from, to, transaction);
+    }
 
-        // Validate transfer limits
-        TransferResult validationResult = validateTransferLimits(fromAccount, amount, initiatedBy);
-        if (!validationResult.isSuccess()) {
-            return validationResult;
+    private String validateAmount(PostingCommand command) {
+        if (command.getAmountCents() <= 0) {
+            return switch (command.getOperation()) {
+                case TRANSFER, INTERNAL_TRANSFER -> "❌ Transfer amount must be greater than zero";
+                case DEPOSIT -> "❌ Deposit amount must be greater than zero";
+                case WITHDRAWAL -> "❌ Withdrawal amount must be greater than zero";
+                case ATM_TRANSFER -> "❌ Invalid transfer amount";
+                case ATM_DEPOSIT -> "❌ Invalid deposit amount";
+                case ATM_WITHDRAWAL -> "❌ Invalid withdrawal amount";
+            };
         }
 
-        // Execute the transfer
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        toAccount.setBalance(toAccount.getBalance() + amount);
-
-        // Update daily spent amount for source account
-        fromAccount.addToDailySpent(amount);
-
-        // Save accounts
-        bankAccountRepository.save(fromAccount);
-        bankAccountRepository.save(toAccount);
-
-        // Create transaction record
-        Transaction transaction = createTransactionRecord(fromAccount, toAccount, amount, "TRANSFER", initiatedBy);
-
-        return new TransferResult(true,
-                String.format("✅ Successfully transferred €%.2f from %s to %s",
-                        amount, fromIban, toIban), transaction);
+        // ATM cash handling limits
+        if (command.getOperation() == PostingCommand.Operation.ATM_DEPOSIT
+                && command.getAmountCents() > ATM_MAX_DEPOSIT_CENTS) {
+            return "❌ ATM deposit limit is €2000 per transaction";
+        }
+        if (command.getOperation() == PostingCommand.Operation.ATM_TRANSFER
+                && command.getAmountCents() > ATM_MAX_TRANSFER_CENTS) {
+            return "❌ ATM transfer limit is €1,000 per transaction";
+        }
+        return null;
     }
 
-    private TransferResult validateTransferLimits(BankAccount fromAccount, Double amount, User initiatedBy) {
-        // Check absolute limit (minimum balance)
-        if (fromAccount.wouldViolateAbsoluteLimit(amount)) {
-            double availableAmount = fromAccount.getBalance() - fromAccount.getAbsoluteLimit();
-            return new TransferResult(false,
-                    String.format("❌ Transfer would exceed absolute limit. Available amount: €%.2f",
-                            Math.max(0, availableAmount)));
+    private String checkResolved(PostingCommand.Operation operation, BankAccount from, BankAccount to) {
+        boolean twoAccounts = operation.debits() && operation.credits();
+        if (operation.debits() && from == null) {
+            return twoAccounts ? "❌ Source account not found" : "❌ Account not found";
+        }
+        if (operation.credits() && to == null) {
+            return twoAccounts ? "❌ Destination account not found" : "❌ Account not found";
         }
+        return null;
+    }
 
-        // Check daily limit (only for customer transfers, admins can override)
-        if (initiatedBy.getRole() == User.Role.USER && fromAccount.wouldExceedDailyLimit(amount)) {
-            double remainingLimit = fromAccount.getRemainingDailyLimit();
-            return new TransferResult(false,
-                    String.format("❌ Transfer would exceed daily limit. Remaining daily limit: €%.2f",
-                            remainingLimit));
+    private String authorize(PostingCommand command, BankAccount from, BankAccount to) {
+        User user = command.getInitiatedBy();
+        boolean customer = user.getRole() == User.Role.USER;
+
+        switch (command.getOperation()) {
+            case TRANSFER -> {
+                // Can only transfer from checking accounts; customers only from their own
+                if (from.getType() != BankAccount.AccountType.CHECKING) {
+                    return "❌ Transfers can only be made from checking accounts";
+                }
+                if (customer && !isOwner(from, user)) {
+                    return "❌ You can only transfer from your own accounts";
+                }
+            }
+            case ATM_TRANSFER -> {
+                if (!isOwner(from, user)) {
+                    return "❌ Unauthorized access to account";
+                }
+                if (from.getType() != BankAccount.AccountType.CHECKING) {
+                    return "❌ ATM transfers only allowed from checking accounts";
+                }
+            }
+            case INTERNAL_TRANSFER -> {
+                if (!isOwner(from, user) || !isOwner(to, user)) {
+                    return "❌ Internal transfers can only be made between your own accounts";
+                }
+            }
+            case DEPOSIT -> {
+                if (customer && !isOwner(to, user)) {
+                    return "❌ You can only deposit to your own accounts";
+                }
+            }
+            case WITHDRAWAL -> {
+                if (customer && !isOwner(from, user)) {
+                    return "❌ You can only withdraw from your own accounts";
+                }
+            }
+            case ATM_DEPOSIT -> {
+                if (!isOwner(to, user)) {
+                    return "❌ Unauthorized access to account";
+                }
+                if (!to.isActive() || !to.getOwner().isApproved()) {
+                    return "❌ Account is not active for ATM transactions";
+                }
+            }
+            case ATM_WITHDRAWAL -> {
+                if (!isOwner(from, user)) {
+                    return "❌ Unauthorized access to account";
+                }
+            }
         }
 
-        // Check sufficient balance
-        if (fromAccount.getBalance() < amount) {
-            return new TransferResult(false, "❌ Insufficient balance");
+        if (from != null && to != null && from.getId().equals(to.getId())) {
+            return "❌ Cannot transfer to the same account";
         }
+        return null;
+    }
 
-        return new TransferResult(true, "Validation passed");
+    private boolean isOwner(BankAccount account, User user) {
+        return account.getOwner().getId().equals(user.getId());
     }
 
-    @Transactional
-    public TransferResult deposit(String iban, Double amount, User initiatedBy) {
-        if (amount == null || amount <= 0) {
-            return new TransferResult(false, "❌ Deposit amount must be greater than zero");
+    private String validateLimits(PostingCommand command, BankAccount from, LocalDate today) {
+        if (from == null) {
+            return null;
         }
+        long cents = command.getAmountCents();
 
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Account not found");
+        if (command.getOperation() == PostingCommand.Operation.INTERNAL_TRANSFER) {
+            // No daily limit between own accounts, only absolute limit and balance
+            if (from.wouldViolateAbsoluteLimitCents(cents)) {
+                return String.format("❌ Transfer would exceed absolute limit. Available amount: €%.2f",
+                        Money.toDecimal(from.getAvailableBalanceCents()));
+            }
+            if (from.getBalanceCents() < cents) {
+                return "❌ Insufficient balance";
+            }
+            return null;
         }
 
-        BankAccount account = accountOpt.get();
+        TransferResult limits = validateTransferLimits(from, cents, command.getInitiatedBy(), today);
+        return limits.isSuccess() ? null : limits.getMessage();
+    }
 
-        // For customer deposits, verify ownership
-        if (initiatedBy.getRole() == User.Role.USER) {
-            TransferResult accessResult = validateAccountAccess(account, initiatedBy, "deposit to");
-            if (!accessResult.isSuccess()) {
-                return accessResult;
-            }
+    private TransferResult toTransferResult(PostingCommand command, Posting posting) {
+        if (!posting.isSuccess()) {
+            return new TransferResult(false, posting.rejection());
         }
+        return new TransferResult(true, successMessage(command, posting), posting.transaction());
+    }
 
-        account.setBalance(account.getBalance() + amount);
-        bankAccountRepository.save(account);
+    private ATMResult toATMResult(PostingCommand command, Posting posting) {
+        if (!posting.isSuccess()) {
+            return new ATMResult(false, posting.rejection());
+        }
+        BankAccount account = posting.from() != null ? posting.from() : posting.to();
+        return new ATMResult(true, successMessage(command, posting), account, posting.transaction());
+    }
 
-        // Create transaction record
-        Transaction transaction = createTransactionRecord(null, account, amount, "DEPOSIT", initiatedBy);
+    private String successMessage(PostingCommand command, Posting posting) {
+        double amount = Money.toDecimal(command.getAmountCents());
+        BankAccount from = posting.from();
+        BankAccount to = posting.to();
+        return switch (command.getOperation()) {
+            case TRANSFER, ATM_TRANSFER -> String.format("✅ Successfully transferred €%.2f from %s to %s",
+                    amount, from.getIban(), to.getIban());
+            case INTERNAL_TRANSFER -> String.format("✅ Successfully transferred €%.2f between your accounts (%s → %s)",
+                    amount, from.getIban(), to.getIban());
+            case DEPOSIT -> String.format("✅ Successfully deposited €%.2f to %s. New balance: €%.2f",
+                    amount, to.getIban(), to.getBalance());
+            case WITHDRAWAL -> String.format("✅ Successfully withdrew €%.2f from %s, please collect your cash! New balance: €%.2f",
+                    amount, from.getIban(), from.getBalance());
+            case ATM_DEPOSIT -> String.format("✅ Successfully deposited €%.2f at ATM. New balance: €%.2f",
+                    amount, to.getBalance());
+            case ATM_WITHDRAWAL -> String.format("✅ Successfully withdrew €%.2f from ATM. New balance: €%.2f",
+                    amount, from.getBalance());
+        };
+    }
 
-        return new TransferResult(true,
-                String.format("✅ Successfully deposited €%.2f to %s. New balance: €%.2f",
-                        amount, iban, account.getBalance()), transaction);
+    /**
+     * Resolve and lock the given accounts for the rest of the current transaction: one unlocked query
+     * for their ids, then one locking query by id. Rows are locked in ascending id order whatever order
+     * the IBANs come in, so two postings on the same accounts can never deadlock. Unknown (and null)
+     * IBANs are left out.
+     */
+    private Map<String, BankAccount> lockAccounts(String... ibans) {
+        return resolveAccounts(Arrays.asList(ibans), List.of());
     }
 
-    @Transactional
-    public TransferResult withdraw(String iban, Double amount, User initiatedBy) {
-        if (amount == null || amount <= 0) {
-            return new TransferResult(false, "❌ Withdrawal amount must be greater than zero");
+    /**
+     * Resolve every account a posting (or a bulk chunk) touches. Accounts that are debited are locked
+     * as in {@link #lockAccounts}; accounts that are only credited are locked too, except hot accounts
+     * (see {@link HotAccountService}), whose credits go to balance slots and need no lock on the row.
+     */
+    Map<String, BankAccount> resolveAccounts(Collection<String> debited, Collection<String> credited) {
+        Set<String> locking = new HashSet<>();
+        for (String iban : debited) {
+            if (iban != null) {
+                locking.add(iban);
+            }
         }
-
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Account not found");
+        Set<String> hot = new HashSet<>();
+        for (String iban : credited) {
+            if (iban == null || locking.contains(iban)) {
+                continue;
+            }
+            if (hotAccountService.isHot(iban)) {
+                hot.add(iban);
+            } else {
+                locking.add(iban);
+            }
         }
 
-        BankAccount account = accountOpt.get();
-
-        // For customer withdrawals, verify ownership
-        if (initiatedBy.getRole() == User.Role.USER) {
-            TransferResult accessResult = validateAccountAccess(account, initiatedBy, "withdraw from");
-            if (!accessResult.isSuccess()) {
-                return accessResult;
+        Map<String, BankAccount> resolved = new HashMap<>();
+        if (!locking.isEmpty()) {
+            for (BankAccount account : lockByIban(locking)) {
+                resolved.put(account.getIban(), account);
             }
         }
-
-        // Validate withdrawal limits
-        TransferResult validationResult = validateTransferLimits(account, amount, initiatedBy);
-        if (!validationResult.isSuccess()) {
-            return validationResult;
+        if (!hot.isEmpty()) {
+            Set<String> noLongerHot = new HashSet<>();
+            for (BankAccount account : bankAccountRepository.findAllByIbanIn(hot)) {
+                if (account.isStriped()) {
+                    resolved.put(account.getIban(), account);
+                } else {
+                    noLongerHot.add(account.getIban());
+                }
+            }
+            // Hot account mode was just turned off; credit the row like any other, under its lock
+            if (!noLongerHot.isEmpty()) {
+                for (BankAccount account : lockByIban(noLongerHot)) {
+                    resolved.put(account.getIban(), account);
+                }
+            }
         }
-
-        account.setBalance(account.getBalance() - amount);
-        account.addToDailySpent(amount);
-        bankAccountRepository.save(account);
-
-        // Create transaction record
-        Transaction transaction = createTransactionRecord(account, null, amount, "WITHDRAWAL", initiatedBy);
-
-        return new TransferResult(true,
-                String.format("✅ Successfully withdrew €%.2f from %s, please collect your cash! New balance: €%.2f",
-                        amount, iban, account.getBalance()), transaction);
+        return resolved;
     }
 
-    @Transactional
-    public TransferResult internalTransfer(String fromIban, String toIban, Double amount, User initiatedBy) {
-        // Validate inputs
-        if (amount == null || amount <= 0) {
-            return new TransferResult(false, "❌ Transfer amount must be greater than zero");
+    // Locking by IBAN would take the rows in IBAN index order; resolve the ids first and lock by id
+    private List<BankAccount> lockByIban(Collection<String> ibans) {
+        List<Long> ids = bankAccountRepository.findIdsByIbanIn(ibans);
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return bankAccountRepository.findAllByIdInForUpdate(new TreeSet<>(ids));
+    }
 
-        // Find accounts
-        Optional<BankAccount> fromAccountOpt = bankAccountRepository.findByIban(fromIban);
-        Optional<BankAccount> toAccountOpt = bankAccountRepository.findByIban(toIban);
+    /**
+     * Create and save a transaction record
+     */
+    private Transaction createTransactionRecord(BankAccount fromAccount, BankAccount toAccount,
+                                                long amountCents, String transactionType, User initiatedBy,
+                                                LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(fromAccount);
+        transaction.setToAccount(toAccount);
+        transaction.setAmountCents(amountCents);
+        transaction.setTransactionType(transactionType);
+        transaction.setTimestamp(timestamp);
+        transaction.setInitiatedByUser(initiatedBy);
 
-        if (fromAccountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Source account not found");
+        publishAccountsChanged(fromAccount, toAccount);
+        // Sequence ids mean no immediate INSERT here; it is flushed at commit in one JDBC batch
+        // together with the account updates
+        Transaction saved = transactionRepository.save(transaction);
+        // persist() assigned the id to this instance
+        eventPublisher.publishEvent(new TransactionPostedEvent(transaction));
+        return saved;
+    }
+
+    /**
+     * Let listeners holding copies of account state know these rows change once this transaction commits
+     */
+    private void publishAccountsChanged(BankAccount... accounts) {
+        Set<Long> ids = new HashSet<>();
+        for (BankAccount account : accounts) {
+            if (account != null && account.getId() != null) {
+                ids.add(account.getId());
+            }
         }
-        if (toAccountOpt.isEmpty()) {
-            return new TransferResult(false, "❌ Destination account not found");
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(new AccountsChangedEvent(ids));
         }
+    }
 
-        BankAccount fromAccount = fromAccountOpt.get();
-        BankAccount toAccount = toAccountOpt.get();
-
-        // Verify both accounts belong to the same user
-        if (!fromAccount.getOwner().getId().equals(initiatedBy.getId()) ||
-                !toAccount.getOwner().getId().equals(initiatedBy.getId())) {
-            return new TransferResult(false, "❌ Internal transfers can only be made between your own accounts");
-        }
+    public TransferResult transferFunds(String fromIban, String toIban, Double amount, User initiatedBy) {
+        PostingCommand command = PostingCommand.transfer(fromIban, toIban, amount, initiatedBy);
+        return postingExecutor.execute(() -> toTransferResult(command, post(command)));
+    }
 
-        // Check if same account
-        if (fromAccount.getId().equals(toAccount.getId())) {
-            return new TransferResult(false, "❌ Cannot transfer to the same account");
+    // Package-private so the in-memory PostingPipeline applies exactly the same rules
+    // Pure long arithmetic on the happy path; decimals are only built for rejection messages
+    TransferResult validateTransferLimits(BankAccount fromAccount, long amountCents, User initiatedBy, LocalDate today) {
+        // Check absolute limit (minimum balance)
+        if (fromAccount.wouldViolateAbsoluteLimitCents(amountCents)) {
+            return new TransferResult(false,
+                    String.format("❌ Transfer would exceed absolute limit. Available amount: €%.2f",
+                            Money.toDecimal(fromAccount.getAvailableBalanceCents())));
         }
 
-        // Check absolute limit and balance
-        if (fromAccount.wouldViolateAbsoluteLimit(amount)) {
-            double availableAmount = fromAccount.getBalance() - fromAccount.getAbsoluteLimit();
+        // Check daily limit (only for customer transfers, admins can override)
+        if (initiatedBy.getRole() == User.Role.USER && fromAccount.wouldExceedDailyLimitCents(amountCents, today)) {
             return new TransferResult(false,
-                    String.format("❌ Transfer would exceed absolute limit. Available amount: €%.2f",
-                            Math.max(0, availableAmount)));
+                    String.format("❌ Transfer would exceed daily limit. Remaining daily limit: €%.2f",
+                            Money.toDecimal(fromAccount.getRemainingDailyLimitCents(today))));
         }
 
-        if (fromAccount.getBalance() < amount) {
+        // Check sufficient balance
+        if (fromAccount.getBalanceCents() < amountCents) {
             return new TransferResult(false, "❌ Insufficient balance");
         }
 
-        // Perform the transfer
-        fromAccount.setBalance(fromAccount.getBalance() - amount);
-        toAccount.setBalance(toAccount.getBalance() + amount);
+        return new TransferResult(true, "Validation passed");
+    }
 
-        // Save accounts
-        bankAccountRepository.save(fromAccount);
-        bankAccountRepository.save(toAccount);
+    public TransferResult deposit(String iban, Double amount, User initiatedBy) {
+        PostingCommand command = PostingCommand.deposit(iban, amount, initiatedBy);
+        return postingExecutor.execute(() -> toTransferResult(command, post(command)));
+    }
 
-        // Create transaction record
-        Transaction transaction = createTransactionRecord(fromAccount, toAccount, amount, "INTERNAL_TRANSFER", initiatedBy);
+    public TransferResult withdraw(String iban, Double amount, User initiatedBy) {
+        PostingCommand command = PostingCommand.withdrawal(iban, amount, initiatedBy);
+        return postingExecutor.execute(() -> toTransferResult(command, post(command)));
+    }
 
-        return new TransferResult(true,
-                String.format("✅ Successfully transferred €%.2f between your accounts (%s → %s)",
-                        amount, fromIban, toIban), transaction);
+    public TransferResult internalTransfer(String fromIban, String toIban, Double amount, User initiatedBy) {
+        PostingCommand command = PostingCommand.internalTransfer(fromIban, toIban, amount, initiatedBy);
+        return postingExecutor.execute(() -> toTransferResult(command, post(command)));
     }
 
-    @Transactional
     public TransferResult updateAccountLimits(String iban, Double absoluteLimit, Double dailyLimit, User initiatedBy) {
+        return postingExecutor.execute(() -> doUpdateAccountLimits(iban, absoluteLimit, dailyLimit, initiatedBy));
+    }
+
+    private TransferResult doUpdateAccountLimits(String iban, Double absoluteLimit, Double dailyLimit, User initiatedBy) {
         // Only admins can update limits
         if (initiatedBy.getRole() != User.Role.ADMIN) {
             return new TransferResult(false, "❌ Only administrators can update account limits");
         }
 
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
+        BankAccount account = lockAccounts(iban).get(iban);
+        if (account == null) {
             return new TransferResult(false, "❌ Account not found");
         }
 
-        BankAccount account = accountOpt.get();
-
         if (absoluteLimit != null) {
             if (absoluteLimit < 0) {
                 return new TransferResult(false, "❌ Absolute limit cannot be negative");
@@ -641,6 +1088,7 @@ public class TransactionService {
         }
 
         bankAccountRepository.save(account);
+        publishAccountsChanged(account);
 
         return new TransferResult(true,
                 String.format("✅ Successfully updated limits for account %s. Absolute limit: €%.2f, Daily limit: €%.2f",
@@ -671,6 +1119,14 @@ public class TransactionService {
             this.transaction = transaction;
         }
 
+        public ATMResult(boolean success, String message, AccountSnapshot account) {
+            this.success = success;
+            this.message = message;
+            this.newBalance = Money.toDecimal(account.balanceCents());
+            this.remainingDailyLimit = Money.toDecimal(account.remainingDailyLimitCents(LocalDate.now()));
+            this.availableBalance = Money.toDecimal(account.availableBalanceCents());
+        }
+
         // Getters
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
@@ -680,168 +1136,64 @@ public class TransactionService {
         public Transaction getTransaction() { return transaction; }
     }
 
-    @Transactional
     public ATMResult atmWithdraw(String iban, Double amount, User user) {
-        if (amount == null || amount <= 0) {
-            return new ATMResult(false, "❌ Invalid withdrawal amount");
-        }
-
-        // Validation checks...
-
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
-            return new ATMResult(false, "❌ Account not found");
-        }
-
-        BankAccount account = accountOpt.get();
-
-        // All validation checks...
-
-        // Instead of calling withdraw() and updating later,
-        // perform the withdrawal directly with proper transaction type
-
-        // Validate withdrawal limits
-        TransferResult validationResult = validateTransferLimits(account, amount, user);
-        if (!validationResult.isSuccess()) {
-            return new ATMResult(false, validationResult.getMessage());
-        }
-
-        account.setBalance(account.getBalance() - amount);
-        account.addToDailySpent(amount);
-        bankAccountRepository.save(account);
-
-        // Create transaction record with ATM_WITHDRAWAL directly
-        Transaction transaction = createTransactionRecord(account, null, amount, "WITHDRAWAL", user);
-
-        return new ATMResult(true,
-                String.format("✅ Successfully withdrew €%.2f from ATM. New balance: €%.2f",
-                        amount, account.getBalance()),
-                account,
-                transaction);
+        PostingCommand command = PostingCommand.atmWithdrawal(iban, amount, user);
+        return postingExecutor.execute(() -> toATMResult(command, post(command)));
     }
 
-    @Transactional
     public ATMResult atmDeposit(String iban, Double amount, User user) {
-        if (amount == null || amount <= 0) {
-            return new ATMResult(false, "❌ Invalid deposit amount");
-        }
-
-        // ATM deposit limits (simulate cash handling limits)
-        if (amount > 2000) {
-            return new ATMResult(false, "❌ ATM deposit limit is €2000 per transaction");
-        }
-
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
-        if (accountOpt.isEmpty()) {
-            return new ATMResult(false, "❌ Account not found");
-        }
-
-        BankAccount account = accountOpt.get();
-
-        // Verify account ownership
-        if (!account.getOwner().getId().equals(user.getId())) {
-            return new ATMResult(false, "❌ Unauthorized access to account");
-        }
-
-        // Check if account is active/approved
-        if (!account.isActive() || !account.getOwner().isApproved()) {
-            return new ATMResult(false, "❌ Account is not active for ATM transactions");
-        }
-
-        // Update account balance
-        account.setBalance(account.getBalance() + amount);
-        bankAccountRepository.save(account);
-
-        // Create transaction record with ATM_DEPOSIT type directly
-        Transaction transaction = createTransactionRecord(null, account, amount, "DEPOSIT", user);
-
-        return new ATMResult(true,
-                String.format("✅ Successfully deposited €%.2f at ATM. New balance: €%.2f",
-                        amount, account.getBalance()),
-                account,
-                transaction);
+        PostingCommand command = PostingCommand.atmDeposit(iban, amount, user);
+        return postingExecutor.execute(() -> toATMResult(command, post(command)));
     }
 
-    @Transactional
     public ATMResult atmTransfer(String fromIban, String toIban, Double amount, User user) {
-        // Enhanced ATM transfer with additional validations
-        if (amount == null || amount <= 0) {
-            return new ATMResult(false, "❌ Invalid transfer amount");
-        }
-
-        // ATM transfer limits
-        if (amount > 1000) {
-            return new ATMResult(false, "❌ ATM transfer limit is €1,000 per transaction");
-        }
-
-        Optional<BankAccount> fromAccountOpt = bankAccountRepository.findByIban(fromIban);
-        if (fromAccountOpt.isEmpty()) {
-            return new ATMResult(false, "❌ Source account not found");
-        }
-
-        BankAccount fromAccount = fromAccountOpt.get();
+        PostingCommand command = PostingCommand.atmTransfer(fromIban, toIban, amount, user);
+        return postingExecutor.execute(() -> toATMResult(command, post(command)));
+    }
 
-        // Verify account ownership
-        if (!fromAccount.getOwner().getId().equals(user.getId())) {
-            return new ATMResult(false, "❌ Unauthorized access to account");
+    /**
+     * The user's newest transactions that they initiated on one of their own accounts. Up to the
+     * cache's capacity this is served from the ids in {@link RecentTransactionCache} with one lookup by
+     * primary key; larger limits, and the first read per user, run the per-account history streams
+     * with LIMIT on the account/time indexes
+     */
+    public List<Transaction> getRecentATMTransactions(User user, int limit) {
+        if (limit < 1) {
+            return List.of();
         }
-
-        // Only allow transfers from checking accounts via ATM
-        if (fromAccount.getType() != BankAccount.AccountType.CHECKING) {
-            return new ATMResult(false, "❌ ATM transfers only allowed from checking accounts");
+        if (limit > recentTransactionCache.capacity()) {
+            return ownerHistory(bankAccountRepository.findAllByOwner(user), initiatedByOwner(user),
+                    TransactionCursor.FIRST, limit, HistoryReader.ENTITIES);
         }
 
-        // Use transfer service for consistent processing
-        TransferResult result = transferFunds(fromIban, toIban, amount, user);
-
-        if (result.isSuccess()) {
-            // Get the transaction created by the transfer method
-            Transaction transaction = result.getTransaction();
-
-            // Update the transaction type to ATM_TRANSFER
-            if (transaction != null) {
-                transaction.setTransactionType("TRANSFER");
-                transaction = transactionRepository.save(transaction);
-            }
-
-            // Refresh account data
-            fromAccount = bankAccountRepository.findByIban(fromIban).get();
-
-            return new ATMResult(true, result.getMessage(), fromAccount, transaction);
-        } else {
-            return new ATMResult(false, result.getMessage());
-        }
+        List<Long> ids = recentTransactionCache.recentIds(user.getId(), limit, capacity ->
+                ownerHistory(bankAccountRepository.findAllByOwner(user), initiatedByOwner(user),
+                        TransactionCursor.FIRST, capacity, HistoryReader.ROWS)
+                        .stream().map(TransactionRow::id).toList());
+        List<Transaction> transactions = new ArrayList<>(transactionRepository.findAllById(ids));
+        transactions.sort(HistoryReader.ENTITIES.newestFirst());
+        return transactions;
     }
 
-    public List<Transaction> getRecentATMTransactions(User user, int limit) {
-        // Get recent transactions for user's accounts
-        List<BankAccount> userAccounts = bankAccountRepository.findAllByOwner(user);
-
-        return transactionRepository.findAll().stream()
-                .filter(tx -> tx.getInitiatedByUser().getId().equals(user.getId()))
-                .filter(tx -> userAccounts.stream().anyMatch(acc ->
-                        (tx.getFromAccount() != null && tx.getFromAccount().getId().equals(acc.getId())) ||
-                                (tx.getToAccount() != null && tx.getToAccount().getId().equals(acc.getId()))
-                ))
-                .sorted((a, b) -> b.getTimestamp().compareTo(a.getTimestamp()))
-                .limit(limit)
-                .toList();
+    private HistoryFilter initiatedByOwner(User user) {
+        return new HistoryFilter(initiatedByUser(user.getId()), false, "initiator=" + user.getId());
     }
 
+    // Read-only, so served from the account snapshot cache
     public ATMResult getAccountSummary(String iban, User user) {
-        Optional<BankAccount> accountOpt = bankAccountRepository.findByIban(iban);
+        Optional<AccountSnapshot> accountOpt = accountSnapshotCache.get(iban, bankAccountRepository::findByIban);
         if (accountOpt.isEmpty()) {
             return new ATMResult(false, "❌ Account not found");
         }
 
-        BankAccount account = accountOpt.get();
+        AccountSnapshot account = accountOpt.get();
 
         // Verify account ownership
-        if (!account.getOwner().getId().equals(user.getId())) {
+        if (!user.getId().equals(account.ownerId())) {
             return new ATMResult(false, "❌ Unauthorized access to account");
         }
 
-        return new ATMResult(true, "Account information retrieved", account, null);
+        return new ATMResult(true, "Account information retrieved", account);
     }
 
     private boolean isValidATMDenomination(Double amount) {
@@ -867,6 +1219,25 @@ public class TransactionService {
         }
     }
 
+    /**
+     * Keyset page of an account's transactions for the admin view, newest first
+     */
+    public CursorPage<TransactionDTO> getAccountTransactionDTOs(Long accountId, TransactionCursor cursor, int size) {
+        // Only the id of the reference is read, so the account itself is never loaded
+        List<BankAccount> account = List.of(bankAccountRepository.getReferenceById(accountId));
+        List<TransactionRow> rows = ownerHistory(account, HistoryFilter.ALL, cursor, size + 1, HistoryReader.ROWS);
+        return toCursorPage(rows, size, this::convertToAdminDTO);
+    }
+
+    /**
+     * Hands every transaction of the account to sink, newest first, while reading it; memory use does
+     * not depend on how many transactions the account has
+     */
+    @Transactional(readOnly = true)
+    public void streamAccountTransactionDTOs(Long accountId, Consumer<TransactionDTO> sink) {
+        transactionRepository.forEachAccountRow(accountId, STREAM_FETCH_SIZE, row -> sink.accept(convertToAdminDTO(row)));
+    }
+
     /**
      * Get transaction DTOs for an account
      */
@@ -0,0 +1,183 @@
+package nl.inholland.bankAppBackEnd.services;
+
+import jakarta.annotation.PreDestroy;
+import nl.inholland.bankAppBackEnd.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs transfers submitted in async mode off the request thread.
+ *
+ * Every submission gets its own virtual thread, so a burst only costs a few parked virtual threads
+ * instead of Tomcat workers. A semaphore bounds how many postings run at once (they each hold a
+ * database connection), and the number of submissions waiting for a permit is capped; past that,
+ * submit returns null and the caller should answer 503.
+ *
+ * Outcomes are kept in memory for {@code bank.transfer.async.retention-minutes} after they finish.
+ */
+@Service
+public class TransferSubmissionService {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    public static final class Submission {
+        private final String id;
+        private final Long submittedBy;
+        private final boolean atm;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile Status status = Status.PENDING;
+        private volatile Object result;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        Submission(String id, Long submittedBy, boolean atm) {
+            this.id = id;
+            this.submittedBy = submittedBy;
+            this.atm = atm;
+        }
+
+        public String getId() { return id; }
+        public Long getSubmittedBy() { return submittedBy; }
+        public boolean isAtm() { return atm; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public Status getStatus() { return status; }
+        // TransferResult or ATMResult once COMPLETED
+        public Object getResult() { return result; }
+        public String getError() { return error; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+    }
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transfer-submission-", 0).factory());
+    private final ConcurrentHashMap<String, Submission> submissions = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Duration retention;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile long nextPruneNanos = System.nanoTime();
+
+    public TransferSubmissionService(@Value("${bank.transfer.async.concurrency:10}") int concurrency,
+                                     @Value("${bank.transfer.async.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${bank.transfer.async.retention-minutes:60}") long retentionMinutes) {
+        this.concurrency = Math.max(1, concurrency);
+        this.permits = new Semaphore(this.concurrency);
+        this.queueCapacity = queueCapacity;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    /**
+     * Queue the posting; null when the queue is full
+     */
+    public Submission submit(User initiatedBy, boolean atm, Supplier<?> posting) {
+        pruneExpired();
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        Submission submission = new Submission(UUID.randomUUID().toString(), initiatedBy.getId(), atm);
+        submissions.put(submission.id, submission);
+        executor.execute(() -> run(submission, posting));
+        return submission;
+    }
+
+    private void run(Submission submission, Supplier<?> posting) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            finish(submission, null, "Shutting down before the transfer was processed");
+            return;
+        }
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        submission.status = Status.RUNNING;
+        try {
+            finish(submission, posting.get(), null);
+        } catch (RuntimeException e) {
+            finish(submission, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void finish(Submission submission, Object result, String error) {
+        submission.result = result;
+        submission.error = error;
+        submission.completedAt = LocalDateTime.now();
+        // Status last: readers that see COMPLETED/FAILED also see the outcome
+        submission.status = error == null ? Status.COMPLETED : Status.FAILED;
+        (error == null ? completed : failed).incrementAndGet();
+    }
+
+    /**
+     * Only the submitter and admins can see a submission
+     */
+    public Optional<Submission> find(String id, User user) {
+        Submission submission = submissions.get(id);
+        if (submission == null) {
+            return Optional.empty();
+        }
+        if (user.getRole() != User.Role.ADMIN && !submission.submittedBy.equals(user.getId())) {
+            return Optional.empty();
+        }
+        return Optional.of(submission);
+    }
+
+    public Map<String, Object> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queued.get());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("running", running.get());
+        stats.put("concurrency", concurrency);
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("retained", submissions.size());
+        return stats;
+    }
+
+    // At most once a minute, drop outcomes older than the retention period
+    private void pruneExpired() {
+        long now = System.nanoTime();
+        if (now - nextPruneNanos < 0) {
+            return;
+        }
+        nextPruneNanos = now + TimeUnit.MINUTES.toNanos(1);
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        submissions.values().removeIf(submission ->
+                submission.completedAt != null && submission.completedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package nl.inholland.bankAppBackEnd.services;
+
+/**
+ * Published whenever a user row is created, updated or deleted (see UserChangeListener).
+ * Listeners that keep copies of user state use it to drop them once the change is committed; the
+ * deltas say how the number of users and of pending approvals changed.
+ */
+public class UserChangedEvent {
+
+    private final Long userId;
+    private final int usersDelta;
+    private final int pendingApprovalsDelta;
+
+    public UserChangedEvent(Long userId, int usersDelta, int pendingApprovalsDelta) {
+        this.userId = userId;
+        this.usersDelta = usersDelta;
+        this.pendingApprovalsDelta = pendingApprovalsDelta;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getUsersDelta() {
+        return usersDelta;
+    }
+
+    public int getPendingApprovalsDelta() {
+        return pendingApprovalsDelta;
+    }
+}
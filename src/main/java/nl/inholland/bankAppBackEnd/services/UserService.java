@@ -1,5 +1,6 @@
 package nl.inholland.bankAppBackEnd.services;
 
+import nl.inholland.bankAppBackEnd.config.JwtPrincipal;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     public User register(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword())); // ✅ Encrypt password
         user.setRole(User.Role.USER);
@@ -63,6 +67,18 @@ public class UserService implements UserDetailsService {
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
+
+    /**
+     * The principal to authenticate a request with: the token's claims while its version is current,
+     * otherwise the user as it is now (approved, role changed); empty once the user is gone
+     */
+    public Optional<JwtPrincipal> resolvePrincipal(JwtPrincipal claimed) {
+        if (tokenVersionCache.isCurrent(claimed.id(), claimed.tokenVersion())) {
+            return Optional.of(claimed);
+        }
+        return userRepository.findById(claimed.id()).map(JwtPrincipal::of);
+    }
+
     public void deleteUserByUsername(String username) {
         userRepository.findByUsername(username).ifPresent(userRepository::delete);
     }
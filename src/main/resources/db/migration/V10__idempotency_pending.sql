@@ -0,0 +1,9 @@
+-- An Idempotency-Key is now inserted as PENDING in the same transaction as the posting it guards, and
+-- completed with the response afterwards, so a crash in between can never let a retry post again.
+-- request_hash is the SHA-256 of the request body; reusing a key with another body is rejected.
+-- Existing rows were only ever written with their response.
+
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS state VARCHAR(10) DEFAULT 'COMPLETED' NOT NULL;
+ALTER TABLE idempotency_key ALTER COLUMN status_code SET NULL;
+ALTER TABLE idempotency_key ALTER COLUMN response_body SET NULL;
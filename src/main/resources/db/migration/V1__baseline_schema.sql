@@ -0,0 +1,46 @@
+-- Schema as Hibernate generated it before migrations were introduced.
+-- Existing databases are baselined at version 0, so every statement here must be a no-op on them.
+
+CREATE TABLE IF NOT EXISTS app_user (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    address VARCHAR(255) NOT NULL,
+    bsn_number VARCHAR(255) NOT NULL UNIQUE,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    is_approved BOOLEAN NOT NULL,
+    name VARCHAR(255),
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    username VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS bank_account (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    absolute_limit FLOAT(53),
+    active BOOLEAN,
+    balance FLOAT(53),
+    daily_limit FLOAT(53),
+    daily_spent FLOAT(53),
+    iban VARCHAR(255),
+    last_reset_date DATE,
+    type VARCHAR(255),
+    version BIGINT DEFAULT 0 NOT NULL,
+    owner_id BIGINT,
+    CONSTRAINT fk_bank_account_owner FOREIGN KEY (owner_id) REFERENCES app_user (id)
+);
+
+CREATE TABLE IF NOT EXISTS transaction (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    amount FLOAT(53),
+    timestamp TIMESTAMP(6),
+    transaction_type VARCHAR(20) NOT NULL,
+    from_account_id BIGINT,
+    to_account_id BIGINT,
+    initiated_by_user_id BIGINT NOT NULL,
+    CONSTRAINT fk_transaction_from_account FOREIGN KEY (from_account_id) REFERENCES bank_account (id),
+    CONSTRAINT fk_transaction_to_account FOREIGN KEY (to_account_id) REFERENCES bank_account (id),
+    CONSTRAINT fk_transaction_initiated_by FOREIGN KEY (initiated_by_user_id) REFERENCES app_user (id)
+);
+
+-- Databases created by Hibernate before the @Version column existed
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
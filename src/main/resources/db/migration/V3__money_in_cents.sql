@@ -0,0 +1,24 @@
+-- Money moves from FLOAT(53) euros to BIGINT cents (see Money).
+-- Existing values are rounded to the nearest cent; missing limits get the defaults the entity used.
+
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS balance_cents BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS absolute_limit_cents BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS daily_limit_cents BIGINT DEFAULT 100000 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS daily_spent_cents BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE bank_account SET
+    balance_cents = CAST(ROUND(COALESCE(balance, 0) * 100) AS BIGINT),
+    absolute_limit_cents = CAST(ROUND(COALESCE(absolute_limit, 0) * 100) AS BIGINT),
+    daily_limit_cents = CAST(ROUND(COALESCE(daily_limit, 1000) * 100) AS BIGINT),
+    daily_spent_cents = CAST(ROUND(COALESCE(daily_spent, 0) * 100) AS BIGINT);
+
+ALTER TABLE bank_account DROP COLUMN balance;
+ALTER TABLE bank_account DROP COLUMN absolute_limit;
+ALTER TABLE bank_account DROP COLUMN daily_limit;
+ALTER TABLE bank_account DROP COLUMN daily_spent;
+
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS amount_cents BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE transaction SET amount_cents = CAST(ROUND(COALESCE(amount, 0) * 100) AS BIGINT);
+
+ALTER TABLE transaction DROP COLUMN amount;
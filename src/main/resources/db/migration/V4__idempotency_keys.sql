@@ -0,0 +1,9 @@
+-- Stored responses of posting requests, keyed by "<userId>:<Idempotency-Key>" (see IdempotencyRecord)
+
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    idempotency_key VARCHAR(300) PRIMARY KEY,
+    operation VARCHAR(50) NOT NULL,
+    status_code INT NOT NULL,
+    response_body CLOB NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Hot accounts: credits are spread over balance_slots rows of balance_slot instead of the account row.
+-- balance_slots = 0 means the account is not striped and has no slot rows.
+
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS balance_slots INT DEFAULT 0 NOT NULL;
+
+CREATE SEQUENCE IF NOT EXISTS balance_slot_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS balance_slot (
+    id BIGINT PRIMARY KEY,
+    account_id BIGINT NOT NULL,
+    slot INT NOT NULL,
+    balance_cents BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_balance_slot UNIQUE (account_id, slot),
+    CONSTRAINT fk_balance_slot_account FOREIGN KEY (account_id) REFERENCES bank_account (id)
+);
@@ -0,0 +1,19 @@
+-- Indexes matched to the repository queries. H2 only indexes foreign keys on their own column, so
+-- history reads by account, by initiator or by time range had to sort (or scan) the whole ledger.
+-- Time-ordered indexes end in (timestamp DESC, id DESC): the order every history query returns.
+
+-- findByIban, findAllByIbanIn(ForUpdate); IBANs are not declared unique, existing data is not checked here
+CREATE INDEX IF NOT EXISTS idx_bank_account_iban ON bank_account (iban);
+
+-- findAllByOwner, findByOwnerAndType, owner joins from transaction history
+CREATE INDEX IF NOT EXISTS idx_bank_account_owner_type ON bank_account (owner_id, type);
+
+-- History of one account, per side of the transfer
+CREATE INDEX IF NOT EXISTS idx_transaction_from_account_time ON transaction (from_account_id, timestamp DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transaction_to_account_time ON transaction (to_account_id, timestamp DESC, id DESC);
+
+-- Admin listing, date ranges and daily counts
+CREATE INDEX IF NOT EXISTS idx_transaction_time ON transaction (timestamp DESC, id DESC);
+
+-- Transactions initiated by one user
+CREATE INDEX IF NOT EXISTS idx_transaction_initiated_by_time ON transaction (initiated_by_user_id, timestamp DESC, id DESC);
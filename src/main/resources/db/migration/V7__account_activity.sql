@@ -0,0 +1,13 @@
+-- Activity counters kept on the account row by every posting, so account listings can show them
+-- without reading the ledger. Credits to hot accounts are counted on their balance slot instead and
+-- moved into the row together with the slot balance. Existing rows start at zero; the activity
+-- reconciliation job (AccountActivityReconciler) fills them in from the transaction table.
+
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS transaction_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS total_in_cents BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS total_out_cents BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE bank_account ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP(6);
+
+ALTER TABLE balance_slot ADD COLUMN IF NOT EXISTS credit_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE balance_slot ADD COLUMN IF NOT EXISTS credit_total_cents BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE balance_slot ADD COLUMN IF NOT EXISTS last_credit_at TIMESTAMP(6);
@@ -0,0 +1,19 @@
+-- Per account and day: transactions, money in and out and the lowest and highest balance after a
+-- posting, in cents (see AccountDailyAggregate). Postings update the row of their day; range reports
+-- read one row per day instead of every transaction. Existing history is filled in by the rebuild
+-- (POST /api/admin/aggregates/daily/rebuild).
+-- stripe is 0 for everything but credits to hot accounts, which use slot + 1 so they do not all update
+-- one row; readers add the stripes of a day together.
+
+CREATE TABLE IF NOT EXISTS account_daily_aggregate (
+    account_id BIGINT NOT NULL,
+    activity_date DATE NOT NULL,
+    stripe INT NOT NULL,
+    transaction_count BIGINT DEFAULT 0 NOT NULL,
+    total_in_cents BIGINT DEFAULT 0 NOT NULL,
+    total_out_cents BIGINT DEFAULT 0 NOT NULL,
+    min_balance_cents BIGINT NOT NULL,
+    max_balance_cents BIGINT NOT NULL,
+    CONSTRAINT pk_account_daily_aggregate PRIMARY KEY (account_id, activity_date, stripe),
+    CONSTRAINT fk_account_daily_aggregate_account FOREIGN KEY (account_id) REFERENCES bank_account (id)
+);
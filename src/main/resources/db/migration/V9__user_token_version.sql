@@ -0,0 +1,5 @@
+-- Access tokens carry the user's id, role and approval state, so requests are authenticated without
+-- reading the user. token_version goes up whenever one of those claims changes; a token issued with
+-- an older version is no longer trusted and the user's current state is read instead.
+
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS token_version BIGINT DEFAULT 0 NOT NULL;
@@ -2,6 +2,7 @@ package nl.inholland.bankAppBackEnd.Controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.inholland.bankAppBackEnd.DTOs.BankAccountDTO;
+import nl.inholland.bankAppBackEnd.DTOs.DailyActivityDTO;
 import nl.inholland.bankAppBackEnd.DTOs.DashboardStatsDTO;
 import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
 import nl.inholland.bankAppBackEnd.config.JwtAuthenticationFilter;
@@ -10,6 +11,8 @@ import nl.inholland.bankAppBackEnd.exceptions.ResourceNotFoundException;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
 import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,16 +24,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -62,6 +69,9 @@ class AdminControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private DailyAggregateService dailyAggregateService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -222,6 +232,98 @@ class AdminControllerTest {
         verify(transactionService, never()).getTransactionDTOsByAccountId(anyLong());
     }
 
+    @Test
+    void getAccountTransactions_WithCursor_ReturnsOnePageAndNextCursor() throws Exception {
+        when(bankAccountService.accountExists(1L)).thenReturn(true);
+
+        TransactionDTO tx1 = new TransactionDTO();
+        tx1.setId(1L);
+        when(transactionService.getAccountTransactionDTOs(1L, TransactionCursor.FIRST, 1))
+                .thenReturn(new TransactionService.CursorPage<>(List.of(tx1), "next-token"));
+
+        mockMvc.perform(get("/api/admin/accounts/1/transactions")
+                        .param("cursor", "")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+
+        verify(transactionService, never()).getTransactionDTOsByAccountId(anyLong());
+    }
+
+    @Test
+    void getAccountTransactions_InvalidCursor_ReturnsBadRequest() throws Exception {
+        when(bankAccountService.accountExists(1L)).thenReturn(true);
+
+        mockMvc.perform(get("/api/admin/accounts/1/transactions")
+                        .param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAccountTransactions_WritesEveryRowAsOneArray() throws Exception {
+        when(bankAccountService.accountExists(1L)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<TransactionDTO> sink = invocation.getArgument(1);
+            for (long id = 1; id <= 3; id++) {
+                TransactionDTO dto = new TransactionDTO();
+                dto.setId(id);
+                sink.accept(dto);
+            }
+            return null;
+        }).when(transactionService).streamAccountTransactionDTOs(eq(1L), any());
+
+        MvcResult result = mockMvc.perform(get("/api/admin/accounts/1/transactions/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].id").value(3));
+    }
+
+    @Test
+    void getAccountDailyActivity_ReturnsOneEntryPerDay() throws Exception {
+        when(bankAccountService.accountExists(1L)).thenReturn(true);
+        when(dailyAggregateService.getDailyActivity(1L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31)))
+                .thenReturn(List.of(
+                        new DailyActivityDTO(LocalDate.of(2024, 1, 5), 3, 100.0, 20.0, 50.0, 130.0),
+                        new DailyActivityDTO(LocalDate.of(2024, 2, 9), 1, 0.0, 10.0, 120.0, 120.0)));
+
+        mockMvc.perform(get("/api/admin/accounts/1/daily-activity")
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].date").value("2024-01-05"))
+                .andExpect(jsonPath("$[0].transactionCount").value(3))
+                .andExpect(jsonPath("$[1].maxBalance").value(120.0));
+    }
+
+    @Test
+    void getAccountDailyActivity_RangeBackwards_ReturnsBadRequest() throws Exception {
+        when(bankAccountService.accountExists(1L)).thenReturn(true);
+
+        mockMvc.perform(get("/api/admin/accounts/1/daily-activity")
+                        .param("from", "2024-03-31")
+                        .param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(dailyAggregateService);
+    }
+
+    @Test
+    void rebuildDailyAggregates_ReportsWhatWasRebuilt() throws Exception {
+        when(dailyAggregateService.rebuild()).thenReturn(new DailyAggregateService.RebuildResult(4, 17));
+
+        mockMvc.perform(post("/api/admin/aggregates/daily/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts").value(4))
+                .andExpect(jsonPath("$.days").value(17));
+    }
+
     @Test
     void closeAccount_ShouldReturnSuccess_WhenClosed() throws Exception {
         // Use doNothing() for void methods
@@ -1,13 +1,16 @@
 package nl.inholland.bankAppBackEnd.Controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
 import nl.inholland.bankAppBackEnd.config.JwtAuthenticationFilter;
 import nl.inholland.bankAppBackEnd.config.JwtUtil;
 import nl.inholland.bankAppBackEnd.models.BankAccount;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
 import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.AccountVersions;
 import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import nl.inholland.bankAppBackEnd.models.Transaction;
@@ -25,6 +28,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,12 +53,18 @@ class BankAccountControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private HotAccountService hotAccountService;
+
     @MockBean
     private UserRepository userRepository;
 
     @MockBean
     private BankAccountRepository bankAccountRepository;
 
+    @MockBean
+    private AccountVersions accountVersions;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -184,6 +195,33 @@ class BankAccountControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void setHotMode_ShouldReturnOk_WhenSuccessful() throws Exception {
+        // Arrange
+        User adminUser = new User();
+        adminUser.setId(1L);
+        adminUser.setUsername("admin");
+        adminUser.setRole(User.Role.ADMIN);
+
+        when(userService.getUserByUsername(any())).thenReturn(Optional.of(adminUser));
+        // The JWT filter is a mock; let the request through to the controller
+        doAnswer(invocation -> {
+            invocation.<FilterChain>getArgument(2).doFilter(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(jwtAuthenticationFilter).doFilter(any(), any(), any());
+        when(hotAccountService.setBalanceSlots(anyString(), anyInt(), any()))
+                .thenReturn(new TransactionService.TransferResult(true, "Hot account mode on"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/accounts/hot-mode")
+                        .param("iban", "NL01BANK0000123456")
+                        .param("slots", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        verify(hotAccountService).setBalanceSlots("NL01BANK0000123456", 8, adminUser);
+    }
+
 
 
 
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
 import nl.inholland.bankAppBackEnd.models.Transaction;
 import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.services.AccountVersions;
+import nl.inholland.bankAppBackEnd.services.BulkTransferService;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
+import nl.inholland.bankAppBackEnd.services.TransferSubmissionService;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import nl.inholland.bankAppBackEnd.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +20,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
@@ -42,6 +49,15 @@ class TransactionControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private BulkTransferService bulkTransferService;
+
+    @Mock
+    private TransferSubmissionService transferSubmissionService;
+
+    @Mock
+    private AccountVersions accountVersions;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -187,6 +203,60 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.transactions.length()").value(1));
     }
 
+    @Test
+    void getMyTransactions_Cursor_ReturnsNextCursorWithoutTotals() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        TransactionCursor position = new TransactionCursor(LocalDateTime.of(2024, 5, 1, 12, 0), 42L);
+        TransactionService.CursorPage<TransactionDTO> cursorPage =
+                new TransactionService.CursorPage<>(List.of(new TransactionDTO(), new TransactionDTO()), "next-token");
+
+        when(transactionService.getTransactionsWithDirectionByUser(mockUser, position, 2))
+                .thenReturn(cursorPage);
+
+        // When & Then
+        mockMvc.perform(get("/api/transactions/my-transactions")
+                        .param("cursor", position.encode())
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.totalItems").doesNotExist());
+        verify(transactionService, never()).getTransactionsWithDirectionByUser(any(), any(Pageable.class));
+    }
+
+    @Test
+    void getMyTransactions_WithoutTotal_ReturnsHasNextInsteadOfTotals() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "timestamp"));
+        Slice<TransactionDTO> slice = new SliceImpl<>(List.of(new TransactionDTO(), new TransactionDTO()), pageable, true);
+
+        when(transactionService.getTransactionsWithDirectionByUserSlice(mockUser, pageable)).thenReturn(slice);
+
+        // When & Then
+        mockMvc.perform(get("/api/transactions/my-transactions")
+                        .param("size", "2")
+                        .param("includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalItems").doesNotExist());
+        verify(transactionService, never()).getTransactionsWithDirectionByUser(any(), any(Pageable.class));
+    }
+
+    @Test
+    void getFilteredTransactions_InvalidCursor() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+
+        // When & Then
+        mockMvc.perform(get("/api/transactions")
+                        .param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("❌ Invalid cursor"));
+    }
+
     @Test
     void getUserIbans_Success() throws Exception {
         // Given
@@ -202,6 +272,22 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.ibans.length()").value(2));
     }
 
+    @Test
+    void getUserIbans_NotModified() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        when(accountVersions.ownerEtag(eq("user-ibans"), any())).thenReturn("W/\"e-1\"");
+
+        // When & Then
+        mockMvc.perform(get("/api/transactions/user-ibans"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"e-1\""));
+        mockMvc.perform(get("/api/transactions/user-ibans").header("If-None-Match", "W/\"e-1\""))
+                .andExpect(status().isNotModified());
+
+        verify(transactionService, times(1)).getUserIbans(any());
+    }
+
     @Test
     void transfer_Success() throws Exception {
         // Given
@@ -228,6 +314,34 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.message").value("Transfer successful"));
     }
 
+    @Test
+    void transfer_Async_ReturnsAcceptedWithSubmissionId() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("fromIban", "NL01INHO0000000001");
+        requestBody.put("toIban", "NL01INHO0000000002");
+        requestBody.put("amount", 100.0);
+        requestBody.put("async", true);
+
+        TransferSubmissionService.Submission submission = mock(TransferSubmissionService.Submission.class);
+        when(submission.getId()).thenReturn("submission-1");
+        when(submission.getStatus()).thenReturn(TransferSubmissionService.Status.PENDING);
+        when(transferSubmissionService.submit(eq(mockUser), eq(false), any())).thenReturn(submission);
+
+        // When & Then
+        mockMvc.perform(post("/api/transactions/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.submissionId").value("submission-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.statusUrl").value("/api/transactions/submissions/submission-1"));
+
+        // The posting is handed to the submission service, not run on the request thread
+        verify(transactionService, never()).transferFunds(anyString(), anyString(), anyDouble(), any());
+    }
+
     @Test
     void transfer_UnapprovedUser() throws Exception {
         // Given
@@ -533,16 +647,13 @@ class TransactionControllerTest {
     void getAllTransactions_AdminOnly_Success() throws Exception {
         // Given
         mockAuthentication(mockAdminUser);
-        List<Transaction> transactions = Arrays.asList(new Transaction(), new Transaction());
-        Page<Transaction> page = new PageImpl<>(transactions, PageRequest.of(0, 10), 2);
+        List<TransactionDTO> transactions = Arrays.asList(new TransactionDTO(), new TransactionDTO());
+        Page<TransactionDTO> page = new PageImpl<>(transactions, PageRequest.of(0, 10), 2);
 
-        when(transactionService.getFilteredTransactions(
+        when(transactionService.getFilteredTransactionDTOs(
                 any(), any(), any(), any(), any(), any(), any(), any(Pageable.class)))
                 .thenReturn(page);
 
-        when(transactionService.convertToAdminDTO(any(Transaction.class)))
-                .thenReturn(new TransactionDTO());
-
         // When & Then
         mockMvc.perform(get("/api/transactions/all")
                         .param("page", "0")
@@ -554,4 +665,63 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.totalItems").value(2))
                 .andExpect(jsonPath("$.totalPages").value(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void batchTransfer_ReturnsOneResultPerItem() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        Transaction transaction = new Transaction();
+        transaction.setId(42L);
+
+        when(bulkTransferService.getMaxItems()).thenReturn(10000);
+        when(bulkTransferService.transferAll(anyList(), eq(mockUser))).thenReturn(List.of(
+                new TransactionService.TransferResult(true, "✅ Successfully transferred €10.00", transaction),
+                new TransactionService.TransferResult(false, "❌ Destination account not found")));
+
+        Map<String, Object> request = Map.of("transfers", List.of(
+                Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000002", "amount", 10.0),
+                Map.of("fromIban", "NL01INHO0000000001", "amount", 5.0),
+                Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000009", "amount", 5.0)));
+
+        // When & Then
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(3))
+                .andExpect(jsonPath("$.results[0].success").value(true))
+                .andExpect(jsonPath("$.results[0].transactionId").value(42))
+                .andExpect(jsonPath("$.results[1].success").value(false))
+                .andExpect(jsonPath("$.results[1].message").value(
+                        "❌ Missing required field: fromIban, toIban and amount are required"))
+                .andExpect(jsonPath("$.results[2].success").value(false))
+                .andExpect(jsonPath("$.message").value("Processed 3 transfers: 1 succeeded, 2 failed"));
+
+        // The malformed item never reaches the service
+        verify(bulkTransferService).transferAll(argThat(items -> items.size() == 2), eq(mockUser));
+    }
+
+    @Test
+    void batchTransfer_RejectsAmountsOutOfRangeInPlace() throws Exception {
+        // Given
+        mockAuthentication(mockUser);
+        when(bulkTransferService.getMaxItems()).thenReturn(10000);
+        when(bulkTransferService.transferAll(anyList(), eq(mockUser))).thenReturn(List.of(
+                new TransactionService.TransferResult(true, "✅ Successfully transferred €10.00")));
+
+        Map<String, Object> request = Map.of("transfers", List.of(
+                Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000002", "amount", 1e30),
+                Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000002", "amount", 10.0)));
+
+        // When & Then
+        mockMvc.perform(post("/api/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].success").value(false))
+                .andExpect(jsonPath("$.results[0].message").value("❌ Invalid amount format"))
+                .andExpect(jsonPath("$.results[1].success").value(true));
+
+        verify(bulkTransferService).transferAll(argThat(items -> items.size() == 1), eq(mockUser));
+    }
+}
@@ -90,7 +90,7 @@ class UserControllerTest {
 
         when(userService.getUserByEmail(email)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(password, user.getPassword())).thenReturn(true);
-        when(jwtUtil.generateToken(user.getUsername(), user.getRole().toString())).thenReturn("mock-token");
+        when(jwtUtil.generateToken(user)).thenReturn("mock-token");
 
         mockMvc.perform(post("/api/users/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,123 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.DTOs.BankAccountDTO;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.AccountActivityReconciler;
+import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Activity counters against the database: postings keep them current, and the reconciliation job
+ * repairs counters that no longer match the ledger.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountActivityReconcilerTest {
+
+    @Autowired
+    private AccountActivityReconciler reconciler;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private BankAccount checking;
+    private BankAccount other;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("activity-" + suffix, "AC" + suffix, User.Role.USER);
+        checking = fixtures.account(owner, "NL00ACTC" + suffix, BankAccount.AccountType.CHECKING, 0.0);
+        other = fixtures.account(fixtures.user("activity-other-" + suffix, "AO" + suffix, User.Role.USER),
+                "NL00ACTO" + suffix, BankAccount.AccountType.CHECKING, 0.0);
+    }
+
+    private BankAccountDTO dto(BankAccount account) {
+        return bankAccountService.getAccountDTOById(account.getId()).orElseThrow();
+    }
+
+    @Test
+    void postings_UpdateTheCountersOfBothSides() {
+        assertTrue(transactionService.deposit(checking.getIban(), 100.0, owner).isSuccess());
+        assertTrue(transactionService.transferFunds(checking.getIban(), other.getIban(), 30.0, owner).isSuccess());
+
+        BankAccountDTO from = dto(checking);
+        assertEquals(2, from.getTransactionCount());
+        assertEquals(100.0, from.getTotalIn());
+        assertEquals(30.0, from.getTotalOut());
+        assertNotNull(from.getLastActivityAt());
+
+        BankAccountDTO to = dto(other);
+        assertEquals(1, to.getTransactionCount());
+        assertEquals(30.0, to.getTotalIn());
+        assertEquals(0.0, to.getTotalOut());
+        assertEquals(from.getLastActivityAt(), to.getLastActivityAt());
+
+        reconciler.reconcile();
+        assertEquals(2, dto(checking).getTransactionCount());
+    }
+
+    @Test
+    void reconcile_RepairsCountersThatMissedATransaction() {
+        assertTrue(transactionService.deposit(checking.getIban(), 100.0, owner).isSuccess());
+
+        // Written straight to the ledger, past every posting path
+        LocalDateTime later = LocalDateTime.now().plusMinutes(5).truncatedTo(ChronoUnit.SECONDS);
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(checking);
+        transaction.setToAccount(other);
+        transaction.setAmount(40.0);
+        transaction.setTransactionType("TRANSFER");
+        transaction.setTimestamp(later);
+        transaction.setInitiatedByUser(owner);
+        transactionRepository.save(transaction);
+        assertEquals(1, dto(checking).getTransactionCount());
+
+        assertTrue(reconciler.reconcile() >= 2);
+
+        BankAccountDTO from = dto(checking);
+        assertEquals(2, from.getTransactionCount());
+        assertEquals(100.0, from.getTotalIn());
+        assertEquals(40.0, from.getTotalOut());
+        assertEquals(later, from.getLastActivityAt());
+        BankAccountDTO to = dto(other);
+        assertEquals(1, to.getTransactionCount());
+        assertEquals(40.0, to.getTotalIn());
+
+        // Nothing left to repair on these accounts; the balance was never touched
+        Long version = bankAccountRepository.findById(checking.getId()).orElseThrow().getVersion();
+        reconciler.reconcile();
+        assertEquals(version, bankAccountRepository.findById(checking.getId()).orElseThrow().getVersion());
+        assertEquals(100.0, from.getBalance());
+    }
+}
@@ -0,0 +1,97 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Limits and ATM summary against the database: repeated reads are served from the snapshot cache
+ * without SQL, and postings and limit changes show up on the next read.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=nl.inholland.bankAppBackEnd.Services.SqlStatementCounter")
+@ActiveProfiles("test")
+class AccountSnapshotCacheTest {
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TestFixtures fixtures;
+    private User owner;
+    private User admin;
+    private String iban;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("snapshot-" + suffix, "SN" + suffix, User.Role.USER);
+        admin = fixtures.user("snapshot-admin-" + suffix, "SA" + suffix, User.Role.ADMIN);
+        iban = fixtures.account(owner, "NL00SNAP" + suffix, BankAccount.AccountType.CHECKING, 200.0).getIban();
+    }
+
+    private Map<String, Object> limits() {
+        return bankAccountService.getLimitsForUser(iban, owner);
+    }
+
+    @Test
+    void repeatedReads_AreServedWithoutSql() {
+        // First read learns the id, the second keeps the snapshot
+        limits();
+        limits();
+
+        SqlStatementCounter.reset();
+        assertEquals(200.0, limits().get("balance"));
+        assertEquals(200.0, transactionService.getAccountSummary(iban, owner).getNewBalance());
+        assertTrue(SqlStatementCounter.statements().isEmpty(), SqlStatementCounter.statements().toString());
+    }
+
+    @Test
+    void postingsAndLimitChanges_ShowOnTheNextRead() {
+        limits();
+        limits();
+
+        assertTrue(transactionService.atmWithdraw(iban, 50.0, owner).isSuccess());
+        Map<String, Object> afterWithdrawal = limits();
+        assertEquals(150.0, afterWithdrawal.get("balance"));
+        assertEquals(50.0, afterWithdrawal.get("dailySpent"));
+        assertEquals(950.0, afterWithdrawal.get("remainingDailyLimit"));
+
+        assertTrue(transactionService.updateAccountLimits(iban, 25.0, 500.0, admin).isSuccess());
+        TransactionService.ATMResult summary = transactionService.getAccountSummary(iban, owner);
+        assertEquals(125.0, summary.getAvailableBalance());
+        assertEquals(450.0, summary.getRemainingDailyLimit());
+    }
+
+    @Test
+    void otherUsersAccount_IsRejected() {
+        User stranger = fixtures.user("snapshot-stranger-" + UUID.randomUUID().toString().substring(0, 8),
+                "ST" + UUID.randomUUID().toString().substring(0, 8), User.Role.USER);
+
+        assertThrows(SecurityException.class, () -> bankAccountService.getLimitsForUser(iban, stranger));
+        assertFalse(transactionService.getAccountSummary(iban, stranger).isSuccess());
+        assertEquals(200.0, bankAccountService.getLimitsForUser(iban, admin).get("balance"));
+    }
+}
@@ -0,0 +1,110 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.AccountVersions;
+import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETags of the account and history views against the database: they stay the same while nothing
+ * changes, and postings, limit changes, closures and new accounts give the views a new one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AccountVersionsTest {
+
+    @Autowired
+    private AccountVersions accountVersions;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TestFixtures fixtures;
+    private User owner;
+    private User admin;
+    private BankAccount checking;
+    private BankAccount other;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("etag-" + suffix, "ET" + suffix, User.Role.USER);
+        admin = fixtures.user("etag-admin-" + suffix, "EA" + suffix, User.Role.ADMIN);
+        checking = fixtures.account(owner, "NL00ETGC" + suffix, BankAccount.AccountType.CHECKING, 100.0);
+        other = fixtures.account(fixtures.user("etag-other-" + suffix, "EO" + suffix, User.Role.USER),
+                "NL00ETGO" + suffix, BankAccount.AccountType.CHECKING, 100.0);
+    }
+
+    @Test
+    void unchangedAccounts_KeepTheirTags() {
+        String limits = accountVersions.accountEtag("limits", checking.getIban());
+        String history = accountVersions.ownerEtag("history", owner.getId());
+
+        assertEquals(limits, accountVersions.accountEtag("limits", checking.getIban()));
+        assertEquals(history, accountVersions.ownerEtag("history", owner.getId()));
+        // Different views and owners never share a tag
+        assertNotEquals(history, accountVersions.ownerEtag("accounts", owner.getId()));
+        assertNotEquals(history, accountVersions.ownerEtag("history", other.getOwner().getId()));
+
+        assertNull(accountVersions.accountEtag("limits", "NL00NONE" + UUID.randomUUID().toString().substring(0, 8)));
+    }
+
+    @Test
+    void postingsAndLimitChanges_ChangeTheTags() {
+        String limits = accountVersions.accountEtag("limits", checking.getIban());
+        String history = accountVersions.ownerEtag("history", owner.getId());
+        String otherHistory = accountVersions.ownerEtag("history", other.getOwner().getId());
+
+        // A transfer changes both sides
+        assertTrue(transactionService.transferFunds(checking.getIban(), other.getIban(), 30.0, owner).isSuccess());
+        String afterTransfer = accountVersions.accountEtag("limits", checking.getIban());
+        assertNotEquals(limits, afterTransfer);
+        assertNotEquals(history, accountVersions.ownerEtag("history", owner.getId()));
+        assertNotEquals(otherHistory, accountVersions.ownerEtag("history", other.getOwner().getId()));
+
+        assertTrue(transactionService.updateAccountLimits(checking.getIban(), 25.0, 500.0, admin).isSuccess());
+        assertNotEquals(afterTransfer, accountVersions.accountEtag("limits", checking.getIban()));
+    }
+
+    @Test
+    void newAccount_ChangesTheOwnersTags() {
+        String accounts = accountVersions.ownerEtag("accounts", owner.getId());
+
+        fixtures.account(owner, checking.getIban().replace("ETGC", "ETGN"), BankAccount.AccountType.CHECKING, 100.0);
+
+        assertNotEquals(accounts, accountVersions.ownerEtag("accounts", owner.getId()));
+    }
+
+    @Test
+    void closedAccount_ChangesTheOwnersTags() {
+        BankAccount empty = fixtures.account(owner, checking.getIban().replace("ETGC", "ETGZ"),
+                BankAccount.AccountType.CHECKING, 0.0);
+        String accounts = accountVersions.ownerEtag("accounts", owner.getId());
+
+        bankAccountService.closeAccount(empty.getId());
+
+        assertNotEquals(accounts, accountVersions.ownerEtag("accounts", owner.getId()));
+    }
+}
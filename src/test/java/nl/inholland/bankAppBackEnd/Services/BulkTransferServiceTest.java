@@ -0,0 +1,155 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.services.AccountSnapshotCache;
+import nl.inholland.bankAppBackEnd.services.BulkTransferService;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.HistoryTotalCache;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
+import nl.inholland.bankAppBackEnd.services.PostingExecutor;
+import nl.inholland.bankAppBackEnd.services.RecentTransactionCache;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkTransferServiceTest {
+
+    @Mock
+    private BankAccountRepository bankAccountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkTransferService bulkTransferService;
+    private User owner;
+    private BankAccount source;
+    private BankAccount target;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        owner = new User();
+        owner.setId(1L);
+        owner.setUsername("owner");
+        owner.setRole(User.Role.USER);
+        owner.setApproved(true);
+
+        source = account(1L, 100.0);
+        target = account(2L, 0.0);
+        when(bankAccountRepository.findIdsByIbanIn(anyCollection())).thenReturn(List.of(1L, 2L));
+        when(bankAccountRepository.findAllByIdInForUpdate(anyCollection())).thenReturn(List.of(source, target));
+        when(transactionRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        PostingExecutor postingExecutor = new PostingExecutor(transactionManager);
+        TransactionService transactionService = new TransactionService(transactionRepository, bankAccountRepository,
+                postingExecutor, mock(ApplicationEventPublisher.class), mock(HotAccountService.class),
+                mock(HistoryTotalCache.class), mock(RecentTransactionCache.class), mock(DailyAggregateService.class),
+                mock(AccountSnapshotCache.class));
+        bulkTransferService = new BulkTransferService(transactionService, postingExecutor, 2, 100);
+    }
+
+    private BankAccount account(Long id, double balance) {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setIban("NL01INHO000000000" + id);
+        account.setBalance(balance);
+        account.setType(BankAccount.AccountType.CHECKING);
+        account.setOwner(owner);
+        account.setAbsoluteLimit(0.0);
+        account.setDailyLimit(1000.0);
+        return account;
+    }
+
+    @Test
+    void transferAll_AppliesTransferRulesInOrderPerItem() {
+        List<BulkTransferService.TransferItem> items = new ArrayList<>();
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 60.0));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 60.0));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000009", 10.0));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", -1.0));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 40.0));
+
+        List<TransactionService.TransferResult> results = bulkTransferService.transferAll(items, owner);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        // Second transfer sees the balance left by the first one
+        assertTrue(results.get(1).getMessage().contains("absolute limit"));
+        assertEquals("❌ Destination account not found", results.get(2).getMessage());
+        assertEquals("❌ Transfer amount must be greater than zero", results.get(3).getMessage());
+        assertTrue(results.get(4).isSuccess());
+
+        assertEquals(0.0, source.getBalance());
+        assertEquals(100.0, target.getBalance());
+        verify(transactionRepository, times(2)).save(any());
+    }
+
+    @Test
+    void transferAll_LocksEachChunkWithOneQuery() {
+        List<BulkTransferService.TransferItem> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 1.0));
+        }
+
+        bulkTransferService.transferAll(items, owner);
+
+        // Chunk size 2: three chunks, one id lookup and one locking IN query each, no per-IBAN lookups
+        verify(bankAccountRepository, times(3)).findIdsByIbanIn(anyCollection());
+        verify(bankAccountRepository, times(3)).findAllByIdInForUpdate(anyCollection());
+        verify(bankAccountRepository, never()).findByIban(anyString());
+    }
+
+    @Test
+    void transferAll_RejectsAmountsTooLargeForCentsPerItem() {
+        List<BulkTransferService.TransferItem> items = new ArrayList<>();
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 1e30));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 10.0));
+        items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", Double.NaN));
+
+        List<TransactionService.TransferResult> results = bulkTransferService.transferAll(items, owner);
+
+        // The valid item shares its chunk with the first bad one and still goes through
+        assertEquals("❌ Invalid transfer amount", results.get(0).getMessage());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("❌ Invalid transfer amount", results.get(2).getMessage());
+        assertEquals(90.0, source.getBalance());
+        verify(transactionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void transferAll_ReportsEveryItemOfAFailedChunk() {
+        when(bankAccountRepository.findAllByIdInForUpdate(anyCollection()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of(source, target));
+
+        List<BulkTransferService.TransferItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(new BulkTransferService.TransferItem("NL01INHO0000000001", "NL01INHO0000000002", 1.0));
+        }
+
+        List<TransactionService.TransferResult> results = bulkTransferService.transferAll(items, owner);
+
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(0).getMessage().contains("rolled back"));
+        assertTrue(results.get(2).isSuccess());
+    }
+}
@@ -0,0 +1,120 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.ConditionalPostingService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the conditional UPDATE fast path against the database: the rules have to hold in SQL exactly
+ * as they do in TransactionService, and rejections must leave no trace.
+ */
+@SpringBootTest(properties = "bank.posting.set-based.enabled=true")
+@ActiveProfiles("test")
+class ConditionalPostingServiceTest {
+
+    @Autowired
+    private ConditionalPostingService conditionalPostingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private TestFixtures fixtures;
+    private User owner;
+    private User stranger;
+    private String checkingIban;
+    private String savingsIban;
+
+    @BeforeEach
+    void setUp() {
+        fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("cond-" + suffix, "CO" + suffix, User.Role.USER);
+        stranger = fixtures.user("cond-x-" + suffix, "CX" + suffix, User.Role.USER);
+
+        checkingIban = account("NL00CNDC" + suffix, BankAccount.AccountType.CHECKING);
+        savingsIban = account("NL00CNDS" + suffix, BankAccount.AccountType.SAVINGS);
+    }
+
+    // €100 on the owner's account, with a daily limit low enough to hit
+    private String account(String iban, BankAccount.AccountType type) {
+        BankAccount account = fixtures.account(owner, iban, type, 100.0);
+        account.setDailyLimit(50.0);
+        bankAccountRepository.save(account);
+        return iban;
+    }
+
+    private BankAccount reload(String iban) {
+        return bankAccountRepository.findByIban(iban).orElseThrow();
+    }
+
+    @Test
+    void transfer_MovesMoneyAndRecordsTransaction() {
+        TransactionService.TransferResult result = conditionalPostingService.transfer(checkingIban, savingsIban, 30.0, owner);
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertNotNull(result.getTransaction().getId());
+        assertTrue(transactionRepository.findById(result.getTransaction().getId()).isPresent());
+        assertEquals(70.0, reload(checkingIban).getBalance());
+        assertEquals(130.0, reload(savingsIban).getBalance());
+        assertEquals(3000L, reload(checkingIban).getDailySpentCents());
+    }
+
+    @Test
+    void transfer_OverDailyLimitFallsBackForMessageAndChangesNothing() {
+        TransactionService.TransferResult result = conditionalPostingService.transfer(checkingIban, savingsIban, 60.0, owner);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("daily limit"), result.getMessage());
+        assertEquals(100.0, reload(checkingIban).getBalance());
+        assertEquals(100.0, reload(savingsIban).getBalance());
+    }
+
+    @Test
+    void transfer_DailySpentRollsOverOnNewDay() {
+        BankAccount checking = reload(checkingIban);
+        checking.setDailySpentCents(5000);
+        checking.setLastResetDate(LocalDate.now().minusDays(1));
+        bankAccountRepository.save(checking);
+
+        TransactionService.TransferResult result = conditionalPostingService.transfer(checkingIban, savingsIban, 40.0, owner);
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals(4000L, reload(checkingIban).getDailySpentCents());
+        assertEquals(LocalDate.now(), reload(checkingIban).getLastResetDate());
+    }
+
+    @Test
+    void transfer_RulesInWhereClauseMatchFullValidation() {
+        TransactionService.TransferResult fromSavings = conditionalPostingService.transfer(savingsIban, checkingIban, 10.0, owner);
+        assertEquals("❌ Transfers can only be made from checking accounts", fromSavings.getMessage());
+
+        TransactionService.TransferResult notOwner = conditionalPostingService.transfer(checkingIban, savingsIban, 10.0, stranger);
+        assertEquals("❌ You can only transfer from your own accounts", notOwner.getMessage());
+
+        TransactionService.TransferResult unknown = conditionalPostingService.transfer(checkingIban, "NL00UNKNOWN", 10.0, owner);
+        assertEquals("❌ Destination account not found", unknown.getMessage());
+
+        assertEquals(100.0, reload(checkingIban).getBalance());
+        assertEquals(100.0, reload(savingsIban).getBalance());
+    }
+}
@@ -0,0 +1,123 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.DTOs.DailyActivityDTO;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Daily aggregates against the database: postings update the row of their day, and a rebuild from
+ * the ledger produces the same rows plus the days that were never posted through the service.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DailyAggregateServiceTest {
+
+    @Autowired
+    private DailyAggregateService dailyAggregateService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private BankAccount checking;
+    private BankAccount other;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("daily-" + suffix, "DA" + suffix, User.Role.USER);
+        checking = fixtures.account(owner, "NL00DAYC" + suffix, BankAccount.AccountType.CHECKING, 0.0);
+        other = fixtures.account(fixtures.user("daily-other-" + suffix, "DO" + suffix, User.Role.USER),
+                "NL00DAYO" + suffix, BankAccount.AccountType.CHECKING, 0.0);
+        today = LocalDate.now();
+    }
+
+    private List<DailyActivityDTO> activity(BankAccount account, LocalDate from, LocalDate to) {
+        return dailyAggregateService.getDailyActivity(account.getId(), from, to);
+    }
+
+    private String describe(List<DailyActivityDTO> days) {
+        return days.stream()
+                .map(day -> day.getDate() + "|" + day.getTransactionCount() + "|" + day.getTotalIn() + "|"
+                        + day.getTotalOut() + "|" + day.getMinBalance() + "|" + day.getMaxBalance())
+                .toList()
+                .toString();
+    }
+
+    @Test
+    void postings_UpdateTheRowOfTheirDay() {
+        assertTrue(transactionService.deposit(checking.getIban(), 100.0, owner).isSuccess());
+        assertTrue(transactionService.transferFunds(checking.getIban(), other.getIban(), 30.0, owner).isSuccess());
+
+        List<DailyActivityDTO> from = activity(checking, today, today);
+        assertEquals(1, from.size());
+        assertEquals(2, from.get(0).getTransactionCount());
+        assertEquals(100.0, from.get(0).getTotalIn());
+        assertEquals(30.0, from.get(0).getTotalOut());
+        assertEquals(70.0, from.get(0).getMinBalance());
+        assertEquals(100.0, from.get(0).getMaxBalance());
+
+        List<DailyActivityDTO> to = activity(other, today, today);
+        assertEquals(1, to.size());
+        assertEquals(1, to.get(0).getTransactionCount());
+        assertEquals(30.0, to.get(0).getMinBalance());
+    }
+
+    @Test
+    void rebuild_MatchesThePostedRowsAndAddsHistory() {
+        assertTrue(transactionService.deposit(checking.getIban(), 100.0, owner).isSuccess());
+        assertTrue(transactionService.transferFunds(checking.getIban(), other.getIban(), 30.0, owner).isSuccess());
+        String posted = describe(activity(checking, today, today));
+
+        // Two months back, written straight to the ledger
+        LocalDateTime earlier = today.minusMonths(2).atTime(10, 0);
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(other);
+        transaction.setToAccount(checking);
+        transaction.setAmount(50.0);
+        transaction.setTransactionType("TRANSFER");
+        transaction.setTimestamp(earlier);
+        transaction.setInitiatedByUser(owner);
+        transactionRepository.save(transaction);
+        assertEquals(1, activity(checking, earlier.toLocalDate(), today).size());
+
+        DailyAggregateService.RebuildResult result = dailyAggregateService.rebuild();
+        assertTrue(result.accounts() >= 2);
+
+        List<DailyActivityDTO> days = activity(checking, earlier.toLocalDate(), today);
+        assertEquals(2, days.size());
+        assertEquals(earlier.toLocalDate(), days.get(0).getDate());
+        assertEquals(1, days.get(0).getTransactionCount());
+        assertEquals(50.0, days.get(0).getTotalIn());
+        assertEquals(posted, describe(days.subList(1, 2)));
+    }
+}
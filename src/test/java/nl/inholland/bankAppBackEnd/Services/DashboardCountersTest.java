@@ -0,0 +1,144 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.DTOs.DashboardStatsDTO;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.DashboardCounters;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import nl.inholland.bankAppBackEnd.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dashboard counters against the database: registrations, approvals, account changes and postings
+ * move them without a recount, and the recount repairs what was written past the posting paths.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DashboardCountersTest {
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private String suffix;
+
+    @BeforeEach
+    void setUp() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        // Start from counters that match the database, whatever earlier tests wrote
+        dashboardCounters.reconcile();
+    }
+
+    private User register(String name) {
+        User user = new User();
+        user.setName("Dashboard " + name);
+        user.setUsername(name + "-" + suffix);
+        user.setEmail(name + "-" + suffix + "@bank.com");
+        user.setPassword("dashboardpass");
+        user.setPhone("0600000000");
+        user.setAddress("Counter Court 1");
+        user.setBsnNumber(name.substring(0, 2).toUpperCase() + suffix);
+        return userService.register(user);
+    }
+
+    @Test
+    void changes_MoveTheCountersWithoutARecount() {
+        DashboardStatsDTO before = bankAccountService.getDashboardStats();
+
+        User user = register("dash");
+        DashboardStatsDTO registered = bankAccountService.getDashboardStats();
+        assertEquals(before.getTotalUsers() + 1, registered.getTotalUsers());
+        assertEquals(before.getPendingApprovals() + 1, registered.getPendingApprovals());
+
+        userService.approveUser(user);
+        List<BankAccount> accounts = bankAccountService.createAccountsForUserWithLimits(user, 0.0, 1000.0);
+        DashboardStatsDTO approved = bankAccountService.getDashboardStats();
+        assertEquals(before.getPendingApprovals(), approved.getPendingApprovals());
+        assertEquals(before.getActiveAccounts() + accounts.size(), approved.getActiveAccounts());
+
+        BankAccount checking = accounts.get(0);
+        assertTrue(transactionService.deposit(checking.getIban(), 40.0, user).isSuccess());
+        assertEquals(before.getTodayTransactions() + 1, bankAccountService.getDashboardStats().getTodayTransactions());
+
+        bankAccountService.closeAccount(accounts.get(1).getId());
+        assertEquals(before.getActiveAccounts() + accounts.size() - 1,
+                bankAccountService.getDashboardStats().getActiveAccounts());
+
+        // Every change went through JPA, so there is nothing to repair
+        assertFalse(dashboardCounters.reconcile());
+    }
+
+    @Test
+    void reconcile_PicksUpRowsWrittenPastThePostingPaths() {
+        User user = register("ledger");
+        userService.approveUser(user);
+        BankAccount checking = bankAccountService.createAccountsForUserWithLimits(user, 0.0, 1000.0).get(0);
+        DashboardStatsDTO before = bankAccountService.getDashboardStats();
+
+        Transaction transaction = new Transaction();
+        transaction.setToAccount(checking);
+        transaction.setAmount(15.0);
+        transaction.setTransactionType("DEPOSIT");
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setInitiatedByUser(user);
+        transactionRepository.save(transaction);
+        assertEquals(before.getTodayTransactions(), bankAccountService.getDashboardStats().getTodayTransactions());
+
+        assertTrue(dashboardCounters.reconcile());
+        assertEquals(before.getTodayTransactions() + 1, bankAccountService.getDashboardStats().getTodayTransactions());
+        assertEquals(userRepository.count(), bankAccountService.getDashboardStats().getTotalUsers());
+    }
+
+    @Test
+    void concurrentReconciles_ShareOneCount() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DashboardStatsDTO>> polls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                polls.add(executor.submit(() -> {
+                    dashboardCounters.reconcile();
+                    return dashboardCounters.getStats();
+                }));
+            }
+            DashboardStatsDTO first = polls.get(0).get();
+            for (Future<DashboardStatsDTO> poll : polls) {
+                assertEquals(first.getTotalUsers(), poll.get().getTotalUsers());
+                assertEquals(first.getActiveAccounts(), poll.get().getActiveAccounts());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
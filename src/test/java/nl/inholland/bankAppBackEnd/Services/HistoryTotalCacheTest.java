@@ -0,0 +1,88 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.services.AccountsChangedEvent;
+import nl.inholland.bankAppBackEnd.services.HistoryTotalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryTotalCacheTest {
+
+    private HistoryTotalCache historyTotalCache;
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        historyTotalCache = new HistoryTotalCache(2, 60);
+    }
+
+    private LongSupplier count(long total) {
+        return () -> {
+            counts.incrementAndGet();
+            return total;
+        };
+    }
+
+    @Test
+    void total_RepeatedFilterIsCountedOnce() {
+        assertEquals(12, historyTotalCache.total(7L, "to=1", List.of(1L, 2L), count(12)));
+        assertEquals(12, historyTotalCache.total(7L, "to=1", List.of(1L, 2L), count(99)));
+
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void total_OtherUserOrFilterIsCountedSeparately() {
+        historyTotalCache.total(7L, "to=1", List.of(1L), count(12));
+        historyTotalCache.total(8L, "to=1", List.of(1L), count(3));
+        historyTotalCache.total(7L, "", List.of(1L), count(20));
+
+        assertEquals(3, counts.get());
+    }
+
+    @Test
+    void onAccountsChanged_DropsOnlyTotalsOverTheChangedAccounts() {
+        historyTotalCache.total(7L, "", List.of(1L, 2L), count(12));
+        historyTotalCache.total(8L, "", List.of(3L), count(5));
+
+        historyTotalCache.onAccountsChanged(new AccountsChangedEvent(Set.of(2L)));
+
+        assertEquals(13, historyTotalCache.total(7L, "", List.of(1L, 2L), count(13)));
+        assertEquals(5, historyTotalCache.total(8L, "", List.of(3L), count(6)));
+        assertEquals(3, counts.get());
+    }
+
+    @Test
+    void onAccountsChanged_DropsTotalsOverAllAccounts() {
+        historyTotalCache.total(null, "start=2024-05-01", null, count(40));
+
+        historyTotalCache.onAccountsChanged(new AccountsChangedEvent(Set.of(9L)));
+
+        assertEquals(41, historyTotalCache.total(null, "start=2024-05-01", null, count(41)));
+    }
+
+    @Test
+    void total_ZeroTtlIsNeverReused() {
+        historyTotalCache = new HistoryTotalCache(2, 0);
+
+        historyTotalCache.total(7L, "", List.of(1L), count(12));
+        historyTotalCache.total(7L, "", List.of(1L), count(12));
+
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    void total_EvictsLeastRecentlyUsedBeyondCapacity() {
+        historyTotalCache.total(1L, "", List.of(1L), count(1));
+        historyTotalCache.total(2L, "", List.of(2L), count(2));
+        historyTotalCache.total(3L, "", List.of(3L), count(3));
+
+        assertEquals(2, historyTotalCache.size());
+    }
+}
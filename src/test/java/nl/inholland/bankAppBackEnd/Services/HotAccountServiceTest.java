@@ -0,0 +1,147 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.BankAccountService;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot account mode against the database: credits land on balance slots, every balance read reports
+ * row plus slots, and debits and mode changes move the slots back into the row without losing money.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HotAccountServiceTest {
+
+    private static final int THREADS = 8;
+    private static final int DEPOSITS_PER_THREAD = 25;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankAccountService bankAccountService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    private User merchant;
+    private User admin;
+    private String hotIban;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        merchant = fixtures.user("hot-" + suffix, "HT" + suffix, User.Role.USER);
+        admin = fixtures.user("hot-admin-" + suffix, "HA" + suffix, User.Role.ADMIN);
+
+        BankAccount account = fixtures.account(merchant, "NL00HOTA" + suffix, BankAccount.AccountType.CHECKING, 100.0);
+        account.setDailyLimit(1_000_000.0);
+        bankAccountRepository.save(account);
+        hotIban = account.getIban();
+
+        assertTrue(hotAccountService.setBalanceSlots(hotIban, 4, admin).isSuccess());
+    }
+
+    private BankAccount reload() {
+        return bankAccountRepository.findByIban(hotIban).orElseThrow();
+    }
+
+    @Test
+    void concurrentCredits_GoToSlotsAndBalanceIsConsolidated() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> deposits = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            deposits.add(pool.submit(() -> {
+                boolean allPosted = true;
+                for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    allPosted &= transactionService.deposit(hotIban, 1.0, admin).isSuccess();
+                }
+                return allPosted;
+            }));
+        }
+        for (Future<Boolean> deposit : deposits) {
+            assertTrue(deposit.get());
+        }
+        pool.shutdown();
+
+        BankAccount account = reload();
+        double expected = 100.0 + THREADS * DEPOSITS_PER_THREAD;
+        // The account row itself was never credited
+        assertEquals(10_000L, account.getMainBalanceCents());
+        assertEquals(expected, account.getBalance());
+        assertEquals(expected, bankAccountService.getLimitsForUser(hotIban, merchant).get("balance"));
+        assertEquals(expected, transactionService.getAccountSummary(hotIban, merchant).getNewBalance());
+        // Activity was counted on the slots as well
+        assertEquals(THREADS * DEPOSITS_PER_THREAD, account.getTransactionCount());
+        assertEquals(THREADS * DEPOSITS_PER_THREAD * 100L, account.getTotalInCents());
+        assertNotNull(account.getLastActivityAt());
+    }
+
+    @Test
+    void debitLargerThanRow_ConsolidatesSlotsFirst() {
+        assertTrue(transactionService.deposit(hotIban, 50.0, admin).isSuccess());
+
+        TransactionService.TransferResult withdrawal = transactionService.withdraw(hotIban, 120.0, merchant);
+
+        assertTrue(withdrawal.isSuccess(), withdrawal.getMessage());
+        BankAccount account = reload();
+        assertEquals(30.0, account.getBalance());
+        assertEquals(3_000L, account.getMainBalanceCents());
+        assertEquals(2, account.getTransactionCount());
+        assertEquals(50.0, account.getTotalIn());
+        assertEquals(120.0, account.getTotalOut());
+    }
+
+    @Test
+    void debitBeyondConsolidatedBalance_IsRejected() {
+        assertTrue(transactionService.deposit(hotIban, 50.0, admin).isSuccess());
+
+        TransactionService.TransferResult withdrawal = transactionService.withdraw(hotIban, 151.0, merchant);
+
+        assertFalse(withdrawal.isSuccess());
+        assertEquals(150.0, reload().getBalance());
+    }
+
+    @Test
+    void turningHotModeOff_MovesSlotsIntoRow() {
+        assertTrue(transactionService.deposit(hotIban, 25.0, admin).isSuccess());
+
+        assertTrue(hotAccountService.setBalanceSlots(hotIban, 0, admin).isSuccess());
+
+        BankAccount account = reload();
+        assertFalse(account.isStriped());
+        assertFalse(hotAccountService.isHot(hotIban));
+        assertEquals(12_500L, account.getMainBalanceCents());
+        assertEquals(125.0, account.getBalance());
+    }
+
+    @Test
+    void setBalanceSlots_OnlyForAdmins() {
+        assertFalse(hotAccountService.setBalanceSlots(hotIban, 2, merchant).isSuccess());
+    }
+}
@@ -0,0 +1,199 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.inholland.bankAppBackEnd.models.IdempotencyRecord;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.IdempotencyRecordRepository;
+import nl.inholland.bankAppBackEnd.services.IdempotencyService;
+import nl.inholland.bankAppBackEnd.services.TransactionPostedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private static final Map<String, Object> REQUEST =
+            Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000002", "amount", 10.0);
+
+    private IdempotencyService idempotencyService;
+    private User user;
+    private final AtomicInteger postings = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, new ObjectMapper(), 2);
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("customer");
+    }
+
+    private ResponseEntity<?> post() {
+        postings.incrementAndGet();
+        return ResponseEntity.ok(Map.of("success", true, "message", "✅ Successfully transferred €10.00"));
+    }
+
+    @Test
+    void execute_RepeatedKeyReplaysStoredResponse() {
+        ResponseEntity<?> first = idempotencyService.execute("key-1", user, "transfer", REQUEST, this::post);
+        ResponseEntity<?> second = idempotencyService.execute("key-1", user, "transfer", REQUEST, this::post);
+
+        assertEquals(1, postings.get());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals("true", second.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("✅ Successfully transferred €10.00", ((JsonNode) second.getBody()).get("message").asText());
+        assertNull(first.getHeaders().getFirst("Idempotent-Replayed"));
+        verify(idempotencyRecordRepository, times(1)).insert(eq("7:key-1"), eq("transfer"), anyString(),
+                eq("COMPLETED"), eq(200), anyString(), any());
+    }
+
+    @Test
+    void execute_WithoutKeyAlwaysPosts() {
+        idempotencyService.execute(null, user, "transfer", REQUEST, this::post);
+        idempotencyService.execute(null, user, "transfer", REQUEST, this::post);
+
+        assertEquals(2, postings.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void execute_KeyEvictedFromMemoryIsServedFromTable() {
+        IdempotencyRecord stored = new IdempotencyRecord("7:old-key", "deposit", null,
+                IdempotencyRecord.State.COMPLETED, 200, "{\"success\":true,\"message\":\"stored\"}");
+        when(idempotencyRecordRepository.findById("7:old-key")).thenReturn(Optional.of(stored));
+
+        ResponseEntity<?> response = idempotencyService.execute("old-key", user, "deposit", REQUEST, this::post);
+
+        assertEquals(0, postings.get());
+        assertEquals("stored", ((JsonNode) response.getBody()).get("message").asText());
+    }
+
+    @Test
+    void execute_KeyReusedForOtherEndpointIsRejected() {
+        idempotencyService.execute("key-2", user, "deposit", REQUEST, this::post);
+
+        ResponseEntity<?> response = idempotencyService.execute("key-2", user, "withdraw", REQUEST, this::post);
+
+        assertEquals(1, postings.get());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+    }
+
+    @Test
+    void execute_KeyReusedWithOtherBodyIsRejected() {
+        idempotencyService.execute("key-5", user, "transfer", REQUEST, this::post);
+
+        Map<String, Object> sameFieldsOtherOrder = new LinkedHashMap<>();
+        sameFieldsOtherOrder.put("amount", 10.0);
+        sameFieldsOtherOrder.put("toIban", "NL01INHO0000000002");
+        sameFieldsOtherOrder.put("fromIban", "NL01INHO0000000001");
+        ResponseEntity<?> same = idempotencyService.execute("key-5", user, "transfer", sameFieldsOtherOrder, this::post);
+        ResponseEntity<?> other = idempotencyService.execute("key-5", user, "transfer",
+                Map.of("fromIban", "NL01INHO0000000001", "toIban", "NL01INHO0000000002", "amount", 99.0), this::post);
+
+        assertEquals(1, postings.get());
+        assertEquals("true", same.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, other.getStatusCode());
+    }
+
+    @Test
+    void execute_KeyIsInsertedWithThePostingAndCompletedAfterwards() {
+        ResponseEntity<?> response = idempotencyService.execute("key-6", user, "transfer", REQUEST, () -> {
+            // What the posting's transaction does right before it commits
+            idempotencyService.onTransactionPosted(new TransactionPostedEvent(new Transaction()));
+            idempotencyService.onTransactionPosted(new TransactionPostedEvent(new Transaction()));
+            return post();
+        });
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(idempotencyRecordRepository, times(1)).insert(eq("7:key-6"), eq("transfer"), anyString(),
+                eq("PENDING"), isNull(), isNull(), any());
+        verify(idempotencyRecordRepository).complete(eq("7:key-6"), eq(200), contains("Successfully transferred"));
+        verify(idempotencyRecordRepository, never()).insert(anyString(), anyString(), anyString(),
+                eq("COMPLETED"), any(), any(), any());
+    }
+
+    @Test
+    void execute_PendingKeyIsNeverPostedAgain() {
+        // The posting committed with its key, but the response was never stored
+        IdempotencyRecord pending = new IdempotencyRecord("7:key-7", "transfer", null,
+                IdempotencyRecord.State.PENDING, null, null);
+        pending.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        when(idempotencyRecordRepository.findById("7:key-7")).thenReturn(Optional.of(pending));
+
+        ResponseEntity<?> response = idempotencyService.execute("key-7", user, "transfer", REQUEST, this::post);
+
+        assertEquals(0, postings.get());
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void execute_ServerErrorsAreNotStored() {
+        idempotencyService.execute("key-3", user, "transfer", REQUEST, () -> {
+            postings.incrementAndGet();
+            return ResponseEntity.internalServerError().body(Map.of("success", false));
+        });
+        idempotencyService.execute("key-3", user, "transfer", REQUEST, this::post);
+
+        assertEquals(2, postings.get());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicatesWaitForFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+
+        Future<ResponseEntity<?>> first = clients.submit(() ->
+                idempotencyService.execute("key-4", user, "transfer", REQUEST, () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return post();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<Future<ResponseEntity<?>>> duplicates = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            duplicates.add(clients.submit(() -> idempotencyService.execute("key-4", user, "transfer", REQUEST, this::post)));
+        }
+        release.countDown();
+
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        for (Future<ResponseEntity<?>> duplicate : duplicates) {
+            assertEquals("true", duplicate.get(5, TimeUnit.SECONDS).getHeaders().getFirst("Idempotent-Replayed"));
+        }
+        assertEquals(1, postings.get());
+        clients.shutdown();
+    }
+}
@@ -0,0 +1,194 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static nl.inholland.bankAppBackEnd.repository.TransactionSpecifications.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression tests: runs repository queries, asks H2 to EXPLAIN the SQL Hibernate sent for
+ * them and fails when any table in a plan is read with a table scan instead of an index.
+ *
+ * Not covered: the account history query and the "both" IBAN filter, whose OR across the from/to side
+ * cannot use one index, and filters on the amount alone, which has no index.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=nl.inholland.bankAppBackEnd.Services.SqlStatementCounter")
+@ActiveProfiles("test")
+class LedgerQueryPlanTest {
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private String checkingIban;
+    private String savingsIban;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("plan-" + suffix, "QP" + suffix, User.Role.USER);
+        checkingIban = fixtures.account(owner, "NL00PLNC" + suffix, BankAccount.AccountType.CHECKING, 100.0).getIban();
+        savingsIban = fixtures.account(owner, "NL00PLNS" + suffix, BankAccount.AccountType.SAVINGS, 100.0).getIban();
+    }
+
+    // Runs the query, then EXPLAINs every SELECT it sent (including follow-up fetches of associations)
+    private void assertIndexedPlans(Runnable query) {
+        SqlStatementCounter.reset();
+        transactionTemplate.executeWithoutResult(status -> query.run());
+
+        List<String> selects = SqlStatementCounter.statements().stream()
+                .filter(sql -> sql.startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty(), "query sent no SELECT");
+        for (String sql : selects) {
+            String plan = explain(sql);
+            assertFalse(plan.contains(".tableScan"), "table scan in plan:\n" + plan);
+        }
+    }
+
+    // H2 plans at prepare time, so the parameter values do not matter; they only have to be set
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    assertTrue(plan.next());
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    @Test
+    void findByIban_UsesIbanIndex() {
+        assertIndexedPlans(() -> assertTrue(bankAccountRepository.findByIban(checkingIban).isPresent()));
+    }
+
+    @Test
+    void findIdsByIbanIn_UsesIbanIndex() {
+        assertIndexedPlans(() -> assertEquals(2,
+                bankAccountRepository.findIdsByIbanIn(List.of(checkingIban, savingsIban)).size()));
+    }
+
+    @Test
+    void findAllByIdInForUpdate_UsesPrimaryKey() {
+        List<Long> ids = bankAccountRepository.findIdsByIbanIn(List.of(checkingIban, savingsIban));
+        assertIndexedPlans(() -> assertEquals(2, bankAccountRepository.findAllByIdInForUpdate(ids).size()));
+    }
+
+    @Test
+    void findAllByIbanIn_UsesIbanIndex() {
+        assertIndexedPlans(() -> assertEquals(2,
+                bankAccountRepository.findAllByIbanIn(List.of(checkingIban, savingsIban)).size()));
+    }
+
+    @Test
+    void findAllByOwner_UsesOwnerIndex() {
+        assertIndexedPlans(() -> assertEquals(2, bankAccountRepository.findAllByOwner(owner).size()));
+    }
+
+    @Test
+    void findByOwnerAndType_UsesOwnerIndex() {
+        assertIndexedPlans(() -> assertTrue(
+                bankAccountRepository.findByOwnerAndType(owner, BankAccount.AccountType.SAVINGS).isPresent()));
+    }
+
+    @Test
+    void countTransactionsByDate_UsesTimeIndex() {
+        LocalDate today = LocalDate.now();
+        assertIndexedPlans(() -> transactionRepository.countTransactionsByDate(
+                today.atStartOfDay(), today.atTime(LocalTime.MAX)));
+    }
+
+    @Test
+    void ownerHistoryStreams_AreRangeScansOfTheAccountTimeIndexes() {
+        Long accountId = bankAccountRepository.findByIban(checkingIban).orElseThrow().getId();
+        Specification<Transaction> first = before(TransactionCursor.FIRST.timestamp(), TransactionCursor.FIRST.id());
+
+        assertIndexedPlans(() -> transactionRepository.findHistory(fromAccount(accountId).and(first), 0, 10));
+        assertIndexedPlans(() -> transactionRepository.findHistory(toAccount(accountId).and(first), 0, 10));
+        assertIndexedPlans(() -> transactionRepository.count(
+                fromAccountIn(List.of(accountId)).and(toAccountIn(List.of(accountId)))));
+    }
+
+    @Test
+    void historyRows_JoinAccountsAndInitiatorByPrimaryKey() {
+        Long accountId = bankAccountRepository.findByIban(checkingIban).orElseThrow().getId();
+        Specification<Transaction> first = before(TransactionCursor.FIRST.timestamp(), TransactionCursor.FIRST.id());
+
+        assertIndexedPlans(() -> transactionRepository.findHistoryRows(toAccount(accountId).and(first), 0, 10));
+    }
+
+    // The filter combinations the history screens send; each query only carries the filters that are set
+
+    @Test
+    void historyFilter_AccountAndDateRange_UsesAccountIndex() {
+        Long accountId = bankAccountRepository.findByIban(checkingIban).orElseThrow().getId();
+        LocalDate today = LocalDate.now();
+
+        assertIndexedPlans(() -> transactionRepository.findHistory(fromAccount(accountId)
+                .and(onOrAfter(today.minusDays(30).atStartOfDay()))
+                .and(onOrBefore(today.atTime(LocalTime.MAX))), 0, 10));
+        assertIndexedPlans(() -> transactionRepository.findHistory(toAccount(accountId)
+                .and(amountAtLeast(10_000)), 0, 10));
+    }
+
+    @Test
+    void historyFilter_DateRangeOnly_UsesTimeIndex() {
+        LocalDate today = LocalDate.now();
+        Specification<Transaction> lastWeek = onOrAfter(today.minusDays(7).atStartOfDay())
+                .and(onOrBefore(today.atTime(LocalTime.MAX)));
+
+        assertIndexedPlans(() -> transactionRepository.findHistory(lastWeek, 0, 10));
+        assertIndexedPlans(() -> transactionRepository.count(lastWeek));
+    }
+
+    @Test
+    void historyFilter_InitiatedBy_UsesInitiatorIndex() {
+        assertIndexedPlans(() -> transactionRepository.findHistory(initiatedBy(owner.getUsername()), 0, 10));
+    }
+
+    @Test
+    void findByUsername_UsesUniqueIndex() {
+        assertIndexedPlans(() -> assertTrue(userRepository.findByUsername(owner.getUsername()).isPresent()));
+    }
+}
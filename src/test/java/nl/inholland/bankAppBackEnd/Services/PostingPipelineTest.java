@@ -0,0 +1,186 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.services.AccountSnapshotCache;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.HistoryTotalCache;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
+import nl.inholland.bankAppBackEnd.services.PostingExecutor;
+import nl.inholland.bankAppBackEnd.services.PostingPipeline;
+import nl.inholland.bankAppBackEnd.services.RecentTransactionCache;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostingPipelineTest {
+
+    @Mock
+    private BankAccountRepository bankAccountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PostingPipeline pipeline;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        owner = new User();
+        owner.setId(1L);
+        owner.setUsername("owner");
+        owner.setRole(User.Role.USER);
+        owner.setApproved(true);
+
+        when(bankAccountRepository.findByIban("NL01INHO0000000001")).thenAnswer(inv -> Optional.of(account(1L, 1000.0)));
+        when(bankAccountRepository.findByIban("NL01INHO0000000002")).thenAnswer(inv -> Optional.of(account(2L, 0.0)));
+        when(bankAccountRepository.findById(1L)).thenAnswer(inv -> Optional.of(account(1L, 1000.0)));
+        when(bankAccountRepository.findById(2L)).thenAnswer(inv -> Optional.of(account(2L, 0.0)));
+        when(bankAccountRepository.findAllById(anyIterable())).thenAnswer(inv -> List.of(account(2L, 0.0)));
+        when(bankAccountRepository.applyPostingDelta(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                any(), any())).thenReturn(1);
+
+        TransactionService transactionService = new TransactionService(transactionRepository, bankAccountRepository,
+                new PostingExecutor(transactionManager), mock(ApplicationEventPublisher.class), mock(HotAccountService.class),
+                mock(HistoryTotalCache.class), mock(RecentTransactionCache.class), mock(DailyAggregateService.class),
+                mock(AccountSnapshotCache.class));
+
+        // Two partitions: account 1 and account 2 live on different writers
+        pipeline = new PostingPipeline(bankAccountRepository, transactionRepository, transactionService,
+                transactionManager, mock(ApplicationEventPublisher.class), mock(DailyAggregateService.class),
+                new AccountSnapshotCache(100), 2, 64, 16, 1);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    private BankAccount account(Long id, double balance) {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setIban("NL01INHO000000000" + id);
+        account.setBalance(balance);
+        account.setType(BankAccount.AccountType.CHECKING);
+        account.setOwner(owner);
+        account.setAbsoluteLimit(0.0);
+        account.setDailyLimit(100000.0);
+        return account;
+    }
+
+    @Test
+    void concurrentTransfers_AreWrittenBehindWithoutLosingMoney() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<TransactionService.TransferResult>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(clients.submit(() ->
+                    pipeline.transfer("NL01INHO0000000001", "NL01INHO0000000002", 2.5, owner)));
+        }
+        for (Future<TransactionService.TransferResult> result : results) {
+            assertTrue(result.get().isSuccess());
+        }
+        clients.shutdown();
+        pipeline.stop();
+
+        assertEquals(-50_000L, sumOfWrittenDeltas(1L));
+        assertEquals(50_000L, sumOfWrittenDeltas(2L));
+        assertEquals(200L, sumOfWrittenTransactionCounts(1L));
+        assertEquals(200L, sumOfWrittenTransactionCounts(2L));
+    }
+
+    @Test
+    void transfer_RejectsWhenBalanceIsTooLow() {
+        TransactionService.TransferResult result =
+                pipeline.transfer("NL01INHO0000000001", "NL01INHO0000000002", 5000.0, owner);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("absolute limit"));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void failingAccountRead_FailsOnlyThatTransferAndNeverPostsIt() throws Exception {
+        // Account 3 lives on the same partition as account 1, so its transfer is drained with theirs
+        when(bankAccountRepository.findByIban("NL01INHO0000000003")).thenAnswer(inv -> Optional.of(account(3L, 1000.0)));
+        when(bankAccountRepository.findById(3L)).thenThrow(new IllegalStateException("database down"));
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<TransactionService.TransferResult>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String fromIban = i == 20 ? "NL01INHO0000000003" : "NL01INHO0000000001";
+            results.add(clients.submit(() -> pipeline.transfer(fromIban, "NL01INHO0000000002", 2.5, owner)));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            if (i == 20) {
+                Future<TransactionService.TransferResult> failed = results.get(i);
+                Exception error = assertThrows(Exception.class, failed::get);
+                assertTrue(error.getCause().getMessage().contains("database down"));
+            } else {
+                assertTrue(results.get(i).get().isSuccess());
+            }
+        }
+        clients.shutdown();
+        pipeline.stop();
+
+        // Read once, never retried, and nothing of it written; every other transfer posted exactly once
+        verify(bankAccountRepository, times(1)).findById(3L);
+        verify(bankAccountRepository, never())
+                .applyPostingDelta(eq(3L), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), any(), any());
+        assertEquals(-9_750L, sumOfWrittenDeltas(1L));
+        assertEquals(9_750L, sumOfWrittenDeltas(2L));
+    }
+
+    @Test
+    void transfer_FailsWhenTheRowNoLongerCoversTheDebit() throws InterruptedException {
+        // A posting outside the pipeline emptied the account before the eviction arrived
+        when(bankAccountRepository.applyPostingDelta(eq(1L), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                any(), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class,
+                () -> pipeline.transfer("NL01INHO0000000001", "NL01INHO0000000002", 500.0, owner));
+        pipeline.stop();
+
+        // No transaction row, and the credit forwarded to account 2 is taken back
+        verify(transactionRepository, never()).saveAll(argThat(transactions -> transactions.iterator().hasNext()));
+        assertEquals(0L, sumOfWrittenDeltas(2L));
+    }
+
+    private long sumOfWrittenDeltas(Long accountId) {
+        ArgumentCaptor<Long> deltas = ArgumentCaptor.forClass(Long.class);
+        verify(bankAccountRepository, atLeastOnce())
+                .applyPostingDelta(eq(accountId), deltas.capture(), anyLong(), anyLong(), anyLong(), anyLong(), any(), any());
+        return deltas.getAllValues().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private long sumOfWrittenTransactionCounts(Long accountId) {
+        ArgumentCaptor<Long> counts = ArgumentCaptor.forClass(Long.class);
+        verify(bankAccountRepository, atLeastOnce())
+                .applyPostingDelta(eq(accountId), anyLong(), anyLong(), counts.capture(), anyLong(), anyLong(), any(), any());
+        return counts.getAllValues().stream().mapToLong(Long::longValue).sum();
+    }
+}
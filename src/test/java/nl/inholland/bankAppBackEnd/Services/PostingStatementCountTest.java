@@ -0,0 +1,130 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import jakarta.persistence.EntityManagerFactory;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL each posting operation sends: one read of the account ids, one locking read of the
+ * accounts by id, one daily aggregate upsert per side, the account updates and the transaction insert,
+ * all in a single flush. Guards against per-step lookups creeping back in.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=nl.inholland.bankAppBackEnd.Services.SqlStatementCounter",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class PostingStatementCountTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private String checkingIban;
+    private String savingsIban;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("sql-" + suffix, "SQ" + suffix, User.Role.USER);
+        checkingIban = fixtures.account(owner, "NL00SQLC" + suffix, BankAccount.AccountType.CHECKING, 1_000.0).getIban();
+        savingsIban = fixtures.account(owner, "NL00SQLS" + suffix, BankAccount.AccountType.SAVINGS, 1_000.0).getIban();
+    }
+
+    private void assertSinglePass(int accountsTouched, Supplier<Boolean> posting) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long flushesBefore = statistics.getFlushCount();
+        SqlStatementCounter.reset();
+
+        assertTrue(posting.get(), "posting should succeed");
+
+        List<String> statements = SqlStatementCounter.statements();
+        assertEquals(2, statements.stream().filter(sql -> sql.startsWith("select") && sql.contains("bank_account")).count(),
+                "accounts must be resolved with one query and locked with one more: " + statements);
+        assertTrue(SqlStatementCounter.count("select") <= 3,
+                "only the account ids, the account lock and the owner fetch: " + statements);
+        assertEquals(1, SqlStatementCounter.count("insert into transaction"), statements.toString());
+
+        // Each side adds itself to its daily aggregate with one upsert, without reading the row first
+        assertEquals(accountsTouched, SqlStatementCounter.count("merge into account_daily_aggregate"), statements.toString());
+        assertEquals(accountsTouched, statements.stream().filter(sql -> sql.contains("account_daily_aggregate")).count(),
+                statements.toString());
+
+        long updates = SqlStatementCounter.count("update bank_account");
+        assertTrue(updates >= 1 && updates <= accountsTouched, statements.toString());
+
+        int firstWrite = -1;
+        for (int i = 0; i < statements.size(); i++) {
+            if (!statements.get(i).startsWith("select")) {
+                firstWrite = i;
+                break;
+            }
+        }
+        assertTrue(firstWrite > 0, statements.toString());
+        assertTrue(statements.subList(firstWrite, statements.size()).stream().noneMatch(sql -> sql.startsWith("select")),
+                "no reads once the posting starts writing: " + statements);
+
+        assertEquals(1, statistics.getFlushCount() - flushesBefore, "one flush per posting");
+    }
+
+    @Test
+    void transferFunds_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(2, () -> transactionService.transferFunds(checkingIban, savingsIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void internalTransfer_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(2, () -> transactionService.internalTransfer(checkingIban, savingsIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void deposit_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(1, () -> transactionService.deposit(checkingIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void withdraw_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(1, () -> transactionService.withdraw(checkingIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void atmDeposit_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(1, () -> transactionService.atmDeposit(checkingIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void atmWithdraw_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(1, () -> transactionService.atmWithdraw(checkingIban, 10.0, owner).isSuccess());
+    }
+
+    @Test
+    void atmTransfer_IssuesOneLockingReadAndOneFlush() {
+        assertSinglePass(2, () -> transactionService.atmTransfer(checkingIban, savingsIban, 10.0, owner).isSuccess());
+    }
+}
@@ -0,0 +1,102 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.services.RecentTransactionCache;
+import nl.inholland.bankAppBackEnd.services.TransactionPostedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentTransactionCacheTest {
+
+    private RecentTransactionCache recentTransactionCache;
+    private User customer;
+    private User employee;
+    private BankAccount customerAccount;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        recentTransactionCache = new RecentTransactionCache(3, 100);
+
+        customer = new User();
+        customer.setId(7L);
+        employee = new User();
+        employee.setId(8L);
+
+        customerAccount = new BankAccount();
+        customerAccount.setId(70L);
+        customerAccount.setOwner(customer);
+    }
+
+    private IntFunction<List<Long>> load(Long... newestFirst) {
+        return capacity -> {
+            loads.incrementAndGet();
+            assertEquals(3, capacity);
+            return List.of(newestFirst);
+        };
+    }
+
+    private TransactionPostedEvent posted(long id, User initiatedBy) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setToAccount(customerAccount);
+        transaction.setInitiatedByUser(initiatedBy);
+        return new TransactionPostedEvent(transaction);
+    }
+
+    @Test
+    void recentIds_LoadsOnceThenServesFromTheRing() {
+        assertEquals(List.of(12L, 11L), recentTransactionCache.recentIds(7L, 2, load(12L, 11L, 10L)));
+        assertEquals(List.of(12L, 11L, 10L), recentTransactionCache.recentIds(7L, 5, load(99L)));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void onTransactionPosted_PushesNewestAndDropsOldest() {
+        recentTransactionCache.recentIds(7L, 3, load(12L, 11L, 10L));
+
+        recentTransactionCache.onTransactionPosted(posted(13L, customer));
+
+        assertEquals(List.of(13L, 12L, 11L), recentTransactionCache.recentIds(7L, 3, load()));
+    }
+
+    @Test
+    void onTransactionPosted_IgnoresPostingsOnOtherUsersAccounts() {
+        recentTransactionCache.recentIds(8L, 3, load(5L));
+
+        // An employee depositing to a customer's account is not the employee's own activity
+        recentTransactionCache.onTransactionPosted(posted(13L, employee));
+
+        assertEquals(List.of(5L), recentTransactionCache.recentIds(8L, 3, load()));
+    }
+
+    @Test
+    void onTransactionPosted_DuringLoadIsKept() {
+        List<Long> ids = recentTransactionCache.recentIds(7L, 3, capacity -> {
+            // Committed after the query read its rows, before the ring is seeded
+            recentTransactionCache.onTransactionPosted(posted(13L, customer));
+            return List.of(12L, 11L);
+        });
+
+        assertEquals(List.of(13L, 12L, 11L), ids);
+    }
+
+    @Test
+    void recentIds_FailedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> recentTransactionCache.recentIds(7L, 3, capacity -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(List.of(12L), recentTransactionCache.recentIds(7L, 3, load(12L)));
+        assertEquals(1, recentTransactionCache.size());
+    }
+}
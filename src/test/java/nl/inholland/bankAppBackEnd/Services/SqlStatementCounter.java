@@ -0,0 +1,38 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Hibernate StatementInspector that records the SQL prepared on the current thread, so tests can
+ * assert how many statements an operation issues. Register it with
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim());
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    // Statements seen since the last reset; sequence fetches are left out, they depend on the id pool
+    public static List<String> statements() {
+        return STATEMENTS.get().stream()
+                .filter(sql -> !sql.contains("next value for"))
+                .toList();
+    }
+
+    public static long count(String prefix) {
+        return statements().stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+}
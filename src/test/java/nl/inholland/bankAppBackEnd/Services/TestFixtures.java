@@ -0,0 +1,49 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+
+/**
+ * Saved users and accounts for the tests that run against the database. Those tests use the "test"
+ * profile (in-memory H2, see application-test.properties), shared by every test in the run, so callers
+ * pass unique usernames, BSNs and IBANs.
+ */
+class TestFixtures {
+
+    private final UserRepository userRepository;
+    private final BankAccountRepository bankAccountRepository;
+
+    TestFixtures(UserRepository userRepository, BankAccountRepository bankAccountRepository) {
+        this.userRepository = userRepository;
+        this.bankAccountRepository = bankAccountRepository;
+    }
+
+    // Approved user
+    User user(String username, String bsn, User.Role role) {
+        User user = new User();
+        user.setName("Test " + username);
+        user.setUsername(username);
+        user.setEmail(username + "@bank.com");
+        user.setPassword("testpass");
+        user.setPhone("0600000000");
+        user.setAddress("Test Street 1");
+        user.setBsnNumber(bsn);
+        user.setRole(role);
+        user.setApproved(true);
+        return userRepository.save(user);
+    }
+
+    // Active account without an absolute limit and with a daily limit of €1000
+    BankAccount account(User owner, String iban, BankAccount.AccountType type, double balance) {
+        BankAccount account = new BankAccount();
+        account.setIban(iban);
+        account.setOwner(owner);
+        account.setType(type);
+        account.setBalance(balance);
+        account.setAbsoluteLimit(0.0);
+        account.setDailyLimit(1000.0);
+        return bankAccountRepository.save(account);
+    }
+}
@@ -0,0 +1,117 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.config.JwtPrincipal;
+import nl.inholland.bankAppBackEnd.config.JwtUtil;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Access tokens against the database: a token's claims are trusted while its version is current, and
+ * approvals, role changes and deletions made after it was issued take effect on the next request.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenVersionCacheTest {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = new User();
+        user.setName("Token " + suffix);
+        user.setUsername("token-" + suffix);
+        user.setEmail("token-" + suffix + "@bank.com");
+        user.setPassword("tokenpass");
+        user.setPhone("0600000000");
+        user.setAddress("Claim Court 1");
+        user.setBsnNumber("TK" + suffix);
+        user.setRole(User.Role.USER);
+        user.setApproved(false);
+        user = userRepository.save(user);
+    }
+
+    private JwtPrincipal login() {
+        return jwtUtil.parsePrincipal(jwtUtil.generateToken(userRepository.findById(user.getId()).orElseThrow()));
+    }
+
+    @Test
+    void token_CarriesTheUsersClaims() {
+        JwtPrincipal claimed = login();
+
+        assertEquals(user.getId(), claimed.id());
+        assertEquals(user.getUsername(), claimed.getName());
+        assertEquals(User.Role.USER, claimed.role());
+        assertFalse(claimed.approved());
+        assertSame(claimed, userService.resolvePrincipal(claimed).orElseThrow());
+
+        assertNull(jwtUtil.parsePrincipal("not-a-token"));
+    }
+
+    @Test
+    void verifiedToken_IsParsedOnce() {
+        String token = jwtUtil.generateToken(userRepository.findById(user.getId()).orElseThrow());
+
+        JwtPrincipal first = jwtUtil.parsePrincipal(token);
+        assertNotNull(first);
+        assertSame(first, jwtUtil.parsePrincipal(token));
+
+        // A token whose signature does not match is rejected, and not remembered either
+        int cached = jwtUtil.cachedTokens();
+        int signature = token.lastIndexOf('.') + 1;
+        char flipped = token.charAt(signature) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signature) + flipped + token.substring(signature + 1);
+        assertNull(jwtUtil.parsePrincipal(tampered));
+        assertEquals(cached, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void approval_TakesEffectForTokensIssuedBefore() {
+        JwtPrincipal claimed = login();
+        assertSame(claimed, userService.resolvePrincipal(claimed).orElseThrow());
+
+        userService.approveUser(userRepository.findById(user.getId()).orElseThrow());
+
+        JwtPrincipal resolved = userService.resolvePrincipal(claimed).orElseThrow();
+        assertTrue(resolved.approved());
+        assertTrue(resolved.tokenVersion() > claimed.tokenVersion());
+
+        // A token issued after the approval is trusted as it is again
+        JwtPrincipal fresh = login();
+        assertTrue(fresh.approved());
+        assertSame(fresh, userService.resolvePrincipal(fresh).orElseThrow());
+    }
+
+    @Test
+    void roleChangeAndDeletion_TakeEffectForTokensIssuedBefore() {
+        JwtPrincipal claimed = login();
+
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        stored.setRole(User.Role.ADMIN);
+        userService.updateUser(stored);
+        assertEquals("ROLE_ADMIN",
+                userService.resolvePrincipal(claimed).orElseThrow().getAuthorities().get(0).getAuthority());
+
+        userService.deleteUserByUsername(user.getUsername());
+        assertTrue(userService.resolvePrincipal(claimed).isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.TransactionCursor;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pagination against the database: following nextCursor visits every transaction exactly once,
+ * in (timestamp DESC, id DESC) order, also when several transactions share a timestamp.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionKeysetPaginationTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private BankAccount account;
+    private BankAccount savings;
+    private final List<Long> expectedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("keyset-" + suffix, "KS" + suffix, User.Role.USER);
+        account = fixtures.account(owner, "NL00KEYS" + suffix, BankAccount.AccountType.CHECKING, 0.0);
+        savings = fixtures.account(owner, "NL00KEYT" + suffix, BankAccount.AccountType.SAVINGS, 100.0);
+
+        // Three timestamps, the middle one shared by four transactions, so pages split a tie. The transfer
+        // between the owner's own accounts is in both the outgoing and the incoming history, but is one row
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Transaction> saved = new ArrayList<>();
+        saved.add(deposit(base.minusMinutes(2), 1.0));
+        saved.add(deposit(base.minusMinutes(1), 2.0));
+        saved.add(deposit(base.minusMinutes(1), 3.0));
+        saved.add(deposit(base.minusMinutes(1), 4.0));
+        saved.add(internalTransfer(base.minusMinutes(1), 6.0));
+        saved.add(deposit(base, 5.0));
+
+        saved.sort((a, b) -> {
+            int byTime = b.getTimestamp().compareTo(a.getTimestamp());
+            return byTime != 0 ? byTime : Long.compare(b.getId(), a.getId());
+        });
+        saved.forEach(tx -> expectedIds.add(tx.getId()));
+    }
+
+    private Transaction deposit(LocalDateTime timestamp, double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setToAccount(account);
+        transaction.setAmount(amount);
+        transaction.setTransactionType("DEPOSIT");
+        transaction.setTimestamp(timestamp);
+        transaction.setInitiatedByUser(owner);
+        return transactionRepository.save(transaction);
+    }
+
+    private Transaction internalTransfer(LocalDateTime timestamp, double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(savings);
+        transaction.setToAccount(account);
+        transaction.setAmount(amount);
+        transaction.setTransactionType("TRANSFER");
+        transaction.setTimestamp(timestamp);
+        transaction.setInitiatedByUser(owner);
+        return transactionRepository.save(transaction);
+    }
+
+    @Test
+    void myTransactions_FollowingCursorVisitsEveryTransactionOnce() {
+        List<Long> visited = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            TransactionService.CursorPage<TransactionDTO> page = transactionService.getTransactionsWithDirectionByUser(
+                    owner, TransactionCursor.decode(cursor), PAGE_SIZE);
+            assertTrue(page.content().size() <= PAGE_SIZE);
+            page.content().forEach(dto -> visited.add(dto.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expectedIds, visited);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void filteredTransactions_CursorKeepsTheFilter() {
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionService.CursorPage<TransactionDTO> page = transactionService.getFilteredTransactions(
+                    account.getIban(), "to", 1.5, ">", null, null, null, TransactionCursor.decode(cursor), PAGE_SIZE);
+            page.content().forEach(dto -> visited.add(dto.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Everything but the €1.00 deposit, which is the oldest
+        assertEquals(expectedIds.subList(0, expectedIds.size() - 1), visited);
+    }
+
+    @Test
+    void myTransactions_OffsetPagesMatchTheMergedHistory() {
+        Page<TransactionDTO> second = transactionService.getTransactionsWithDirectionByUser(owner, PageRequest.of(1, PAGE_SIZE));
+
+        assertEquals(expectedIds.size(), second.getTotalElements());
+        assertEquals(expectedIds.subList(PAGE_SIZE, 2 * PAGE_SIZE),
+                second.getContent().stream().map(TransactionDTO::getId).toList());
+    }
+
+    @Test
+    void accountTransactions_CursorPagesAndStreamMatchTheHistory() {
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionService.CursorPage<TransactionDTO> page = transactionService.getAccountTransactionDTOs(
+                    account.getId(), TransactionCursor.decode(cursor), PAGE_SIZE);
+            page.content().forEach(dto -> paged.add(dto.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<Long> streamed = new ArrayList<>();
+        transactionService.streamAccountTransactionDTOs(account.getId(), dto -> streamed.add(dto.getId()));
+
+        // Every transaction touches the checking account: five deposits and the incoming internal transfer
+        assertEquals(expectedIds, paged);
+        assertEquals(expectedIds, streamed);
+    }
+
+    @Test
+    void cursor_RoundTripsAndRejectsGarbage() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000), 42L);
+
+        assertEquals(cursor, TransactionCursor.decode(cursor.encode()));
+        assertEquals(TransactionCursor.FIRST, TransactionCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("bm90IGEgY3Vyc29y"));
+    }
+}
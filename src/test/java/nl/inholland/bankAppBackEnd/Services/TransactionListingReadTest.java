@@ -0,0 +1,127 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.DTOs.TransactionDTO;
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static nl.inholland.bankAppBackEnd.repository.TransactionSpecifications.toAccount;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures one page of history read as entities (the accounts, their owners and the initiating user
+ * loaded with every transaction) against the same page read as TransactionRow projections: SQL sent
+ * and bytes allocated on the calling thread, each in a fresh persistence context.
+ */
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=nl.inholland.bankAppBackEnd.Services.SqlStatementCounter")
+@ActiveProfiles("test")
+class TransactionListingReadTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Specification<Transaction> incoming;
+
+    private record Measurement(List<String> statements, long allocatedBytes, List<String> listing) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User owner = fixtures.user("listing-" + suffix, "LO" + suffix, User.Role.USER);
+        BankAccount checking = fixtures.account(owner, "NL00LSTC" + suffix, BankAccount.AccountType.CHECKING, 100.0);
+
+        // Every transfer comes from a different sender, so no row shares its account or user with another
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            User sender = fixtures.user("sender" + i + "-" + suffix, "S" + i + suffix, User.Role.USER);
+            Transaction transaction = new Transaction();
+            transaction.setFromAccount(fixtures.account(sender, "NL0" + i + "LSTS" + suffix,
+                    BankAccount.AccountType.CHECKING, 100.0));
+            transaction.setToAccount(checking);
+            transaction.setAmount(10.0 + i);
+            transaction.setTransactionType("TRANSFER");
+            transaction.setTimestamp(base.minusMinutes(i));
+            transaction.setInitiatedByUser(sender);
+            transactionRepository.save(transaction);
+        }
+        incoming = toAccount(checking.getId());
+    }
+
+    // Best of several runs after warm-up, so JIT and class loading do not count against either side
+    private Measurement measure(Supplier<List<TransactionDTO>> page) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 50; i++) {
+            transactionTemplate.execute(status -> page.get());
+        }
+
+        long leastAllocated = Long.MAX_VALUE;
+        List<TransactionDTO> dtos = List.of();
+        for (int i = 0; i < 5; i++) {
+            SqlStatementCounter.reset();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            dtos = transactionTemplate.execute(status -> page.get());
+            leastAllocated = Math.min(leastAllocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        List<String> listing = dtos.stream()
+                .map(dto -> String.join("|", String.valueOf(dto.getId()), dto.getFromIban(), dto.getToIban(),
+                        String.valueOf(dto.getAmount()), dto.getDate(), dto.getDescription(), dto.getInitiatedBy(),
+                        dto.getDirection(), String.valueOf(dto.getSignedAmount())))
+                .toList();
+        return new Measurement(SqlStatementCounter.statements(), leastAllocated, listing);
+    }
+
+    @Test
+    void rows_ReadThePageInOneSelectWithoutLoadingUsers() {
+        Measurement entities = measure(() -> transactionRepository.findHistory(incoming, 0, PAGE_SIZE).stream()
+                .map(transactionService::convertToAdminDTO).toList());
+        Measurement rows = measure(() -> transactionRepository.findHistoryRows(incoming, 0, PAGE_SIZE).stream()
+                .map(transactionService::convertToAdminDTO).toList());
+
+        assertEquals(PAGE_SIZE, rows.listing().size());
+        assertEquals(entities.listing(), rows.listing());
+
+        assertTrue(entities.statements().size() > 1,
+                "entities: the page plus association loads: " + entities.statements());
+        assertEquals(1, rows.statements().size(), rows.statements().toString());
+        assertFalse(rows.statements().get(0).contains("password"), rows.statements().get(0));
+
+        assertTrue(rows.allocatedBytes() < entities.allocatedBytes(),
+                "allocated per page: rows " + rows.allocatedBytes() + " B, entities " + entities.allocatedBytes() + " B");
+    }
+}
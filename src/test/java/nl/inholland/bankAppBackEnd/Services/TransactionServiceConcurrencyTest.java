@@ -0,0 +1,106 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a small set of accounts with transfers from many threads at once and checks that no
+ * update is lost: money is only ever moved, never created or destroyed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionServiceConcurrencyTest {
+
+    private static final int ACCOUNTS = 6;
+    private static final int THREADS = 12;
+    private static final int TRANSFERS_PER_THREAD = 60;
+    private static final double OPENING_BALANCE = 500.0;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    private User owner;
+    private final List<String> ibans = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures fixtures = new TestFixtures(userRepository, bankAccountRepository);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = fixtures.user("stress-" + suffix, "ST" + suffix, User.Role.USER);
+
+        ibans.clear();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount account = fixtures.account(owner, "NL00STRS" + suffix + i,
+                    BankAccount.AccountType.CHECKING, OPENING_BALANCE);
+            account.setDailyLimit(1_000_000.0);
+            bankAccountRepository.save(account);
+            ibans.add(account.getIban());
+        }
+    }
+
+    @Test
+    void concurrentTransfers_ConserveTotalBalance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    double amount = 1 + random.nextInt(40);
+
+                    TransactionService.TransferResult result =
+                            transactionService.transferFunds(ibans.get(from), ibans.get(to), amount, owner);
+                    if (result.isSuccess()) {
+                        succeeded.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        double total = 0;
+        for (String iban : ibans) {
+            BankAccount account = bankAccountRepository.findByIban(iban).orElseThrow();
+            assertTrue(account.getBalance() >= account.getAbsoluteLimit(),
+                    "Account " + iban + " went below its absolute limit");
+            total += account.getBalance();
+        }
+
+        assertEquals(ACCOUNTS * OPENING_BALANCE, total, 0.0001);
+        assertTrue(succeeded.get() > 0);
+    }
+}
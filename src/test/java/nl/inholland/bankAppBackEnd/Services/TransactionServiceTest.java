@@ -6,16 +6,25 @@ import nl.inholland.bankAppBackEnd.models.Transaction;
 import nl.inholland.bankAppBackEnd.models.User;
 import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
 import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRow;
+import nl.inholland.bankAppBackEnd.services.AccountSnapshotCache;
+import nl.inholland.bankAppBackEnd.services.DailyAggregateService;
+import nl.inholland.bankAppBackEnd.services.HistoryTotalCache;
+import nl.inholland.bankAppBackEnd.services.HotAccountService;
+import nl.inholland.bankAppBackEnd.services.PostingExecutor;
+import nl.inholland.bankAppBackEnd.services.RecentTransactionCache;
 import nl.inholland.bankAppBackEnd.services.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -33,6 +42,27 @@ class TransactionServiceTest {
     @Mock
     private BankAccountRepository bankAccountRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private DailyAggregateService dailyAggregateService;
+
+    @Spy
+    private PostingExecutor postingExecutor = new PostingExecutor(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private HistoryTotalCache historyTotalCache = new HistoryTotalCache(100, 60);
+
+    @Spy
+    private RecentTransactionCache recentTransactionCache = new RecentTransactionCache(20, 100);
+
+    @Spy
+    private AccountSnapshotCache accountSnapshotCache = new AccountSnapshotCache(100);
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -74,6 +104,13 @@ class TransactionServiceTest {
         mockTransaction.setTimestamp(LocalDateTime.now());
     }
 
+    // Resolve the accounts' ids and lock them, as the two queries of a posting would
+    private void stubLocked(BankAccount... accounts) {
+        List<Long> ids = Arrays.stream(accounts).map(BankAccount::getId).toList();
+        when(bankAccountRepository.findIdsByIbanIn(anyCollection())).thenReturn(ids);
+        when(bankAccountRepository.findAllByIdInForUpdate(anyCollection())).thenReturn(List.of(accounts));
+    }
+
     @Test
     void saveTransaction_Success() {
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
@@ -110,18 +147,48 @@ class TransactionServiceTest {
 
     @Test
     void getFilteredTransactionsWithDirection_Success() {
-        List<Transaction> transactions = Arrays.asList(mockTransaction, mockTransaction);
-        Page<Transaction> page = new PageImpl<>(transactions, PageRequest.of(0, 10), 2);
-        when(transactionRepository.findFilteredByUser(any(), any(), any(), any(), any(), any(), any(), any(), any(Pageable.class)))
-                .thenReturn(page);
+        // The account's outgoing and incoming streams both return the same own-account transfer
+        when(transactionRepository.findHistoryRows(any(), anyLong(), anyInt()))
+                .thenReturn(List.of(TransactionRow.of(mockTransaction)));
+        when(transactionRepository.count(any(Specification.class))).thenReturn(1L);
         when(bankAccountRepository.findAllByOwner(mockUser)).thenReturn(List.of(mockAccount));
 
         Page<TransactionDTO> result = transactionService.getFilteredTransactionsWithDirection(
                 mockUser, null, null, null, null, null, null, PageRequest.of(0, 10));
 
         assertNotNull(result);
-        assertEquals(2, result.getTotalElements());
-        verify(transactionRepository, times(1)).findFilteredByUser(any(), any(), any(), any(), any(), any(), any(), any(), any(Pageable.class));
+        assertEquals(1, result.getContent().size());
+        assertEquals("Internal", result.getContent().get(0).getDirection());
+        assertEquals(1, result.getTotalElements());
+        verify(transactionRepository, times(2)).findHistoryRows(any(), anyLong(), anyInt());
+        verify(transactionRepository, never()).findHistory(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getFilteredTransactions_UnknownIbanMatchesNothing() {
+        when(bankAccountRepository.findByIban("NL00UNKNOWN")).thenReturn(Optional.empty());
+
+        Page<Transaction> result = transactionService.getFilteredTransactions(
+                "NL00UNKNOWN", "from", null, null, null, null, null, PageRequest.of(0, 10));
+
+        assertTrue(result.isEmpty());
+        verify(transactionRepository, never()).findHistory(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getRecentATMTransactions_SecondReadIsServedFromTheRing() {
+        mockTransaction.setInitiatedByUser(mockUser);
+        when(bankAccountRepository.findAllByOwner(mockUser)).thenReturn(List.of(mockAccount));
+        when(transactionRepository.findHistoryRows(any(), anyLong(), anyInt()))
+                .thenReturn(List.of(TransactionRow.of(mockTransaction)));
+        when(transactionRepository.findAllById(List.of(1L))).thenReturn(List.of(mockTransaction));
+
+        assertEquals(List.of(mockTransaction), transactionService.getRecentATMTransactions(mockUser, 5));
+        assertEquals(List.of(mockTransaction), transactionService.getRecentATMTransactions(mockUser, 5));
+
+        // Outgoing and incoming stream of the one account, for the first read only
+        verify(transactionRepository, times(2)).findHistoryRows(any(), anyLong(), anyInt());
+        verify(transactionRepository, never()).findAll();
     }
 
     @Test
@@ -148,8 +215,7 @@ class TransactionServiceTest {
         toAccount.setOwner(toAccountOwner); // ✅ Fix: Set an owner (different user)
 
         // Mock repository calls
-        when(bankAccountRepository.findByIban("NL01INHO0000000001")).thenReturn(Optional.of(fromAccount));
-        when(bankAccountRepository.findByIban("NL01INHO0000000002")).thenReturn(Optional.of(toAccount));
+        stubLocked(fromAccount, toAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
 
         // Execute the transfer
@@ -165,9 +231,44 @@ class TransactionServiceTest {
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
 
+    @Test
+    void transferFunds_LocksBothAccountsInIdOrder() {
+        BankAccount lowId = new BankAccount();
+        lowId.setId(1L);
+        lowId.setIban("NL01INHO0000000001");
+        lowId.setBalance(500.0);
+        User otherOwner = new User();
+        otherOwner.setId(2L);
+        lowId.setOwner(otherOwner);
+
+        BankAccount highId = new BankAccount();
+        highId.setId(2L);
+        highId.setIban("NL01INHO0000000002");
+        highId.setBalance(1000.0);
+        highId.setType(BankAccount.AccountType.CHECKING);
+        highId.setOwner(mockUser);
+
+        // The unlocked id lookup may answer in any order
+        when(bankAccountRepository.findIdsByIbanIn(anyCollection())).thenReturn(List.of(2L, 1L));
+        when(bankAccountRepository.findAllByIdInForUpdate(anyCollection())).thenReturn(List.of(lowId, highId));
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
+
+        TransactionService.TransferResult result = transactionService.transferFunds(
+                "NL01INHO0000000002", "NL01INHO0000000001", 100.0, mockUser);
+
+        assertTrue(result.isSuccess());
+        verify(bankAccountRepository, times(1)).findIdsByIbanIn(
+                argThat(ibans -> ibans.size() == 2 && ibans.contains("NL01INHO0000000001")
+                        && ibans.contains("NL01INHO0000000002")));
+        // Both rows are locked by one query on their ids, handed over in ascending order
+        verify(bankAccountRepository, times(1)).findAllByIdInForUpdate(
+                argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L))));
+        verify(bankAccountRepository, never()).findByIban(anyString());
+    }
+
     @Test
     void deposit_Success() {
-        when(bankAccountRepository.findByIban("NL01INHO0000000001")).thenReturn(Optional.of(mockAccount));
+        stubLocked(mockAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
 
         TransactionService.TransferResult result = transactionService.deposit("NL01INHO0000000001", 100.0, mockUser);
@@ -180,7 +281,7 @@ class TransactionServiceTest {
 
     @Test
     void withdraw_Success() {
-        when(bankAccountRepository.findByIban("NL01INHO0000000001")).thenReturn(Optional.of(mockAccount));
+        stubLocked(mockAccount);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
 
         TransactionService.TransferResult result = transactionService.withdraw("NL01INHO0000000001", 100.0, mockUser);
@@ -191,6 +292,23 @@ class TransactionServiceTest {
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
 
+    @Test
+    void atmWithdraw_RejectsAnotherUsersAccount() {
+        User stranger = new User();
+        stranger.setId(2L);
+        stranger.setUsername("stranger");
+        stranger.setRole(User.Role.USER);
+        stranger.setApproved(true);
+        stubLocked(mockAccount);
+
+        TransactionService.ATMResult result = transactionService.atmWithdraw("NL01INHO0000000001", 100.0, stranger);
+
+        assertFalse(result.isSuccess());
+        assertEquals("❌ Unauthorized access to account", result.getMessage());
+        assertEquals(1000.0, mockAccount.getBalance());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
     @Test
     void getUserIbans_Success() {
         when(bankAccountRepository.findAllByOwner(mockUser)).thenReturn(List.of(mockAccount));
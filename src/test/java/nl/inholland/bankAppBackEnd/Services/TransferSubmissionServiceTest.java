@@ -0,0 +1,110 @@
+package nl.inholland.bankAppBackEnd.Services;
+
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import nl.inholland.bankAppBackEnd.services.TransferSubmissionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferSubmissionServiceTest {
+
+    private TransferSubmissionService submissionService;
+    private User owner;
+    private User stranger;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        submissionService = new TransferSubmissionService(1, 2, 60);
+        owner = user(1L, User.Role.USER);
+        stranger = user(2L, User.Role.USER);
+        admin = user(3L, User.Role.ADMIN);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        submissionService.shutdown();
+    }
+
+    private User user(Long id, User.Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    private TransferSubmissionService.Submission awaitDone(TransferSubmissionService.Submission submission)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((submission.getStatus() == TransferSubmissionService.Status.PENDING
+                || submission.getStatus() == TransferSubmissionService.Status.RUNNING) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return submission;
+    }
+
+    @Test
+    void submit_RunsPostingAndKeepsOutcome() throws InterruptedException {
+        TransactionService.TransferResult result = new TransactionService.TransferResult(true, "✅ done");
+
+        TransferSubmissionService.Submission submission = submissionService.submit(owner, false, () -> result);
+
+        assertNotNull(submission);
+        assertEquals(TransferSubmissionService.Status.COMPLETED, awaitDone(submission).getStatus());
+        assertSame(result, submission.getResult());
+    }
+
+    @Test
+    void submit_FailedPostingIsReportedAsFailed() throws InterruptedException {
+        TransferSubmissionService.Submission submission = submissionService.submit(owner, false, () -> {
+            throw new IllegalStateException("Posting timed out");
+        });
+
+        assertEquals(TransferSubmissionService.Status.FAILED, awaitDone(submission).getStatus());
+        assertEquals("Posting timed out", submission.getError());
+    }
+
+    @Test
+    void find_OnlySubmitterAndAdminsSeeSubmission() {
+        TransferSubmissionService.Submission submission = submissionService.submit(owner, false, () -> null);
+
+        assertTrue(submissionService.find(submission.getId(), owner).isPresent());
+        assertTrue(submissionService.find(submission.getId(), admin).isPresent());
+        assertTrue(submissionService.find(submission.getId(), stranger).isEmpty());
+        assertTrue(submissionService.find("unknown", admin).isEmpty());
+    }
+
+    @Test
+    void submit_RejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // Concurrency 1: the first posting holds the only permit and the next two fill the queue
+        TransferSubmissionService.Submission first = submissionService.submit(owner, false, () -> { blocked.run(); return null; });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (first.getStatus() != TransferSubmissionService.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertNotNull(submissionService.submit(owner, false, () -> null));
+        assertNotNull(submissionService.submit(owner, false, () -> null));
+
+        assertNull(submissionService.submit(owner, false, () -> null));
+        assertEquals(2, submissionService.getQueueStats().get("queueDepth"));
+        assertEquals(1L, submissionService.getQueueStats().get("rejected"));
+
+        release.countDown();
+        assertEquals(TransferSubmissionService.Status.COMPLETED, awaitDone(first).getStatus());
+    }
+}
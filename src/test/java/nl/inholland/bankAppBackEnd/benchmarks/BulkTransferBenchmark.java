@@ -0,0 +1,115 @@
+package nl.inholland.bankAppBackEnd.benchmarks;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import nl.inholland.bankAppBackEnd.services.BulkTransferService;
+import nl.inholland.bankAppBackEnd.services.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transfers per second: one transferFunds call per transfer versus the same transfers through
+ * BulkTransferService (one IN query per chunk, one commit per chunk).
+ *
+ * Run with: ./mvnw test -Dtest=BulkTransferBenchmark -Dbenchmarks=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class BulkTransferBenchmark {
+
+    private static final int TRANSFERS = 5_000;
+    private static final int ACCOUNTS = 20;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User admin;
+    private final List<BankAccount> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        admin = new User("Bench Admin", "bench-" + suffix, "bench-" + suffix + "@bank.com",
+                "benchpass", "0600000000", "Bench Street 1", User.Role.ADMIN);
+        admin.setBsnNumber("BN" + suffix);
+        admin = userRepository.save(admin);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount account = new BankAccount();
+            account.setIban("NL00BULK" + suffix + i);
+            account.setOwner(admin);
+            account.setType(BankAccount.AccountType.CHECKING);
+            account.setBalance(1_000_000.0);
+            accounts.add(bankAccountRepository.save(account));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch(transactionRepository.findAll().stream()
+                .filter(tx -> tx.getInitiatedByUser() != null && tx.getInitiatedByUser().getId().equals(admin.getId()))
+                .toList());
+        bankAccountRepository.deleteAllInBatch(accounts);
+        userRepository.delete(admin);
+    }
+
+    @Test
+    void transfersPerSecond_OneByOneVersusBatch() {
+        List<BulkTransferService.TransferItem> items = transfers(TRANSFERS);
+
+        // Warm up both paths before measuring
+        transferOneByOne(transfers(500));
+        bulkTransferService.transferAll(transfers(500), admin);
+
+        long start = System.nanoTime();
+        transferOneByOne(items);
+        double single = TRANSFERS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        List<TransactionService.TransferResult> results = bulkTransferService.transferAll(items, admin);
+        double batched = TRANSFERS / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("Transfers/s: one-by-one %.0f, batch %.0f (x%.1f)%n", single, batched, batched / single);
+        assertTrue(results.stream().allMatch(TransactionService.TransferResult::isSuccess));
+    }
+
+    private void transferOneByOne(List<BulkTransferService.TransferItem> items) {
+        for (BulkTransferService.TransferItem item : items) {
+            transactionService.transferFunds(item.fromIban(), item.toIban(), item.amount(), admin);
+        }
+    }
+
+    private List<BulkTransferService.TransferItem> transfers(int count) {
+        List<BulkTransferService.TransferItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new BulkTransferService.TransferItem(accounts.get(i % ACCOUNTS).getIban(),
+                    accounts.get((i + 1) % ACCOUNTS).getIban(), 1.0));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,121 @@
+package nl.inholland.bankAppBackEnd.benchmarks;
+
+import jakarta.servlet.FilterChain;
+import nl.inholland.bankAppBackEnd.config.JwtAuthenticationFilter;
+import nl.inholland.bankAppBackEnd.config.JwtPrincipal;
+import nl.inholland.bankAppBackEnd.config.JwtUtil;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JWT filter as run on every authenticated request: the old two verifications (isTokenValid, then
+ * extractUsername), a single parse, and the filter itself with and without the verified-token cache.
+ * The user lookup is stubbed to accept the claims, as it does from its version cache.
+ *
+ * Run with: ./mvnw test -Dtest=JwtFilterBenchmark -Dbenchmarks=true
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(0)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class JwtFilterBenchmark {
+
+    private JwtUtil uncachedUtil;
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private String uncachedToken;
+    private String cachedToken;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("bench");
+        user.setRole(User.Role.USER);
+        user.setApproved(true);
+
+        UserService userService = new UserService() {
+            @Override
+            public Optional<JwtPrincipal> resolvePrincipal(JwtPrincipal claimed) {
+                return Optional.of(claimed);
+            }
+        };
+
+        uncachedUtil = new JwtUtil(0);
+        uncachedFilter = new JwtAuthenticationFilter(uncachedUtil, userService);
+        uncachedToken = uncachedUtil.generateToken(user);
+
+        JwtUtil cachedUtil = new JwtUtil(10_000);
+        cachedFilter = new JwtAuthenticationFilter(cachedUtil, userService);
+        cachedToken = cachedUtil.generateToken(user);
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    @Benchmark
+    public void verifyTwice(Blackhole blackhole) {
+        if (uncachedUtil.isTokenValid(uncachedToken)) {
+            blackhole.consume(uncachedUtil.extractUsername(uncachedToken));
+        }
+    }
+
+    @Benchmark
+    public void parseOnce(Blackhole blackhole) {
+        blackhole.consume(uncachedUtil.parsePrincipal(uncachedToken));
+    }
+
+    @Benchmark
+    public void filterUncached(Blackhole blackhole) throws Exception {
+        uncachedFilter.doFilter(request(uncachedToken), new MockHttpServletResponse(), chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void filterCached(Blackhole blackhole) throws Exception {
+        cachedFilter.doFilter(request(cachedToken), new MockHttpServletResponse(), chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,98 @@
+package nl.inholland.bankAppBackEnd.benchmarks;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit check + balance update as done per posting, on a real BankAccount: the Double euro methods the
+ * posting path used before against the cents methods it uses now. Run with -prof gc (or check the
+ * gc.alloc.rate.norm column) to see the allocations the Double path makes and the cents path does not.
+ *
+ * Run with: ./mvnw test -Dtest=LimitCheckBenchmark -Dbenchmarks=true
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(0)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class LimitCheckBenchmark {
+
+    private final BankAccount doubleAccount = account();
+    private final BankAccount centsAccount = account();
+
+    private final Double amount = 12.5;
+    private final long amountCents = 1_250;
+    // The posting path resolves today once per posting
+    private final LocalDate today = LocalDate.now();
+
+    private static BankAccount account() {
+        BankAccount account = new BankAccount();
+        account.setBalanceCents(100_000);
+        account.setAbsoluteLimitCents(-10_000);
+        account.setDailyLimitCents(100_000);
+        account.setDailySpentCents(0);
+        return account;
+    }
+
+    // Keep the state bounded so every invocation takes the happy path
+    private void reset(BankAccount account) {
+        if (account.getDailySpentCents() > account.getDailyLimitCents() - amountCents) {
+            account.setBalanceCents(100_000);
+            account.setDailySpentCents(0);
+        }
+    }
+
+    @Benchmark
+    public void boxedDouble(Blackhole blackhole) {
+        BankAccount account = doubleAccount;
+        boolean allowed = !account.wouldViolateAbsoluteLimit(amount) && !account.wouldExceedDailyLimit(amount);
+        if (allowed) {
+            account.setBalance(account.getBalance() - amount);
+            account.addToDailySpent(amount);
+        }
+        reset(account);
+        blackhole.consume(allowed);
+    }
+
+    @Benchmark
+    public void longCents(Blackhole blackhole) {
+        BankAccount account = centsAccount;
+        boolean allowed = !account.wouldViolateAbsoluteLimitCents(amountCents)
+                && !account.wouldExceedDailyLimitCents(amountCents, today);
+        if (allowed) {
+            account.debit(amountCents);
+            account.addToDailySpentCents(amountCents, today);
+        }
+        reset(account);
+        blackhole.consume(allowed);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LimitCheckBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,133 @@
+package nl.inholland.bankAppBackEnd.benchmarks;
+
+import nl.inholland.bankAppBackEnd.models.BankAccount;
+import nl.inholland.bankAppBackEnd.models.Transaction;
+import nl.inholland.bankAppBackEnd.models.User;
+import nl.inholland.bankAppBackEnd.repository.BankAccountRepository;
+import nl.inholland.bankAppBackEnd.repository.TransactionRepository;
+import nl.inholland.bankAppBackEnd.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Inserts per second for transaction rows: one insert + commit per posting (the old createTransactionRecord
+ * shape) versus group-committed batches as written by the posting pipeline.
+ *
+ * Run with: ./mvnw test -Dtest=TransactionInsertBenchmark -Dbenchmarks=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TransactionInsertBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int GROUP_SIZE = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+    private BankAccount from;
+    private BankAccount to;
+    private final List<Transaction> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        user = new User("Bench User", "bench-" + suffix, "bench-" + suffix + "@bank.com",
+                "benchpass", "0600000000", "Bench Street 1", User.Role.USER);
+        user.setBsnNumber("BN" + suffix);
+        user = userRepository.save(user);
+
+        from = newAccount("NL00BNCH" + suffix + "A");
+        to = newAccount("NL00BNCH" + suffix + "B");
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAllInBatch(inserted);
+        bankAccountRepository.deleteAllInBatch(List.of(from, to));
+        userRepository.delete(user);
+    }
+
+    @Test
+    void insertsPerSecond_SingleVersusGroupCommit() {
+        // Warm up the connection pool, statement cache and JIT before measuring
+        insertOneByOne(500);
+        insertGroupCommitted(500);
+
+        double single = insertOneByOne(ROWS);
+        double grouped = insertGroupCommitted(ROWS);
+
+        System.out.printf("Transaction inserts/s: one-by-one %.0f, group commit (%d per batch) %.0f (x%.1f)%n",
+                single, GROUP_SIZE, grouped, grouped / single);
+        assertEquals(2 * (ROWS + 500), inserted.size());
+    }
+
+    private double insertOneByOne(int rows) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = newTransaction();
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.save(transaction));
+            inserted.add(transaction);
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private double insertGroupCommitted(int rows) {
+        long start = System.nanoTime();
+        for (int done = 0; done < rows; done += GROUP_SIZE) {
+            List<Transaction> group = new ArrayList<>(GROUP_SIZE);
+            for (int i = 0; i < GROUP_SIZE && done + i < rows; i++) {
+                group.add(newTransaction());
+            }
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.saveAll(group));
+            inserted.addAll(group);
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private Transaction newTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setFromAccount(from);
+        transaction.setToAccount(to);
+        transaction.setAmount(1.0);
+        transaction.setTransactionType("TRANSFER");
+        transaction.setTimestamp(LocalDateTime.now());
+        transaction.setInitiatedByUser(user);
+        return transaction;
+    }
+
+    private BankAccount newAccount(String iban) {
+        BankAccount account = new BankAccount();
+        account.setIban(iban);
+        account.setOwner(user);
+        account.setType(BankAccount.AccountType.CHECKING);
+        account.setBalance(0.0);
+        return bankAccountRepository.save(account);
+    }
+}